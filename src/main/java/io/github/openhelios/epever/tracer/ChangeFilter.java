@@ -0,0 +1,224 @@
+package io.github.openhelios.epever.tracer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jspecify.annotations.Nullable;
+
+import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.DataType;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Index;
+import io.github.openhelios.epever.tracer.protocol.Register;
+
+/**
+ * Decides, whether a received read response is significant enough to notify the listeners added by
+ * {@link Tracer3210AN#addFilteredListener(Tracer3210ANListener)}, e.g. to reduce the traffic to a database for almost
+ * constant values like the battery configuration. The payload of a response is compared with
+ * the payload last notified for the same device, function ID, address and amount. By default, any changed register is
+ * significant. A register with a deadband is only significant, if its value differs from the last notified value by
+ * more than the deadband. A response is always significant after the {@link #setMaxSilence(Duration) maximum
+ * silence}, so the listeners get a heartbeat. Error responses, write responses and unexpected responses are always
+ * significant. This class is thread-safe.
+ */
+public final class ChangeFilter {
+
+  /** The default maximum time without notifying an unchanged response. */
+  public static final Duration DEFAULT_MAX_SILENCE = Duration.ofMinutes(1);
+
+  private static final Map<Integer, Register> REGISTERS = new HashMap<>();
+
+  static {
+    for (final Register register : Register.values()) {
+      REGISTERS.put(key(register.functionId(), register.address()), register);
+    }
+  }
+
+  /**
+   * The last notified response of one command.
+   */
+  private static final class State {
+
+    private byte[] payload = new byte[0];
+
+    private long notifiedNanos;
+
+  }
+
+  private final Map<Long, State> states = new HashMap<>();
+
+  private final double[] absoluteDeadbands = new double[Register.COUNT];
+
+  private final double[] relativeDeadbands = new double[Register.COUNT];
+
+  private long maxSilenceNanos = DEFAULT_MAX_SILENCE.toNanos();
+
+  private long suppressedCount;
+
+  /**
+   * Creates a filter without deadbands.
+   */
+  public ChangeFilter() {
+    Arrays.fill(absoluteDeadbands, Double.NaN);
+  }
+
+  private static int key(final FunctionId functionId, final int address) {
+    return functionId.ordinal() << 16 | address;
+  }
+
+  private static Register low(final Register register) {
+    return DataType.UINT32_HIGH == register.dataType() ? register.partner() : register;
+  }
+
+  /**
+   * Gets the maximum time without notifying an unchanged response.
+   *
+   * @return The maximum silence.
+   */
+  public synchronized Duration getMaxSilence() {
+    return Duration.ofNanos(maxSilenceNanos);
+  }
+
+  /**
+   * Sets the maximum time without notifying an unchanged response. The default is 1 minute.
+   *
+   * @param maxSilence The maximum silence.
+   * @throws IllegalArgumentException if the maximum silence is negative.
+   */
+  public synchronized void setMaxSilence(final Duration maxSilence) {
+    if (maxSilence.isNegative()) {
+      throw new IllegalArgumentException("maxSilence must not be negative, but was " + maxSilence);
+    }
+    maxSilenceNanos = maxSilence.toNanos();
+  }
+
+  /**
+   * Sets the deadband of the given register. A change of the value is significant, if it is greater than the absolute
+   * deadband and greater than the relative deadband multiplied by the last notified value. Both registers of an
+   * unsigned integer with 32 bits share one deadband.
+   *
+   * @param register The register.
+   * @param absolute The absolute deadband in the unit of the register, e.g. 0.1 for 0.1 V.
+   * @param relative The relative deadband, e.g. 0.01 for 1 %.
+   * @throws IllegalArgumentException if a deadband is negative.
+   */
+  public synchronized void setDeadband(final Register register, final double absolute, final double relative) {
+    if (!(0 <= absolute) || !(0 <= relative)) {
+      throw new IllegalArgumentException("deadbands must not be negative, but were " + absolute + " and " + relative);
+    }
+    absoluteDeadbands[low(register).ordinal()] = absolute;
+    relativeDeadbands[low(register).ordinal()] = relative;
+  }
+
+  /**
+   * Removes the deadband of the given register, so any change is significant again.
+   *
+   * @param register The register.
+   */
+  public synchronized void removeDeadband(final Register register) {
+    absoluteDeadbands[low(register).ordinal()] = Double.NaN;
+  }
+
+  /**
+   * Gets the amount of responses, which have not been significant.
+   *
+   * @return The suppressed count.
+   */
+  public synchronized long getSuppressedCount() {
+    return suppressedCount;
+  }
+
+  /**
+   * Forgets the last notified responses, so the next response of each command is significant.
+   */
+  public synchronized void reset() {
+    states.clear();
+  }
+
+  /**
+   * Checks, if the given response is significant, and remembers it as last notified response if so.
+   *
+   * @param command The command waiting for its response, which may be {@code null}, if no command is waiting.
+   * @param frame The received frame including the checksum from the position up to the limit, which is not modified.
+   * @param nanos The current value of {@link System#nanoTime()}.
+   * @return True, if the listeners shall be notified.
+   */
+  public synchronized boolean test(@Nullable final Command<?> command, final ByteBuffer frame, final long nanos) {
+    if (null == command || !command.matches(frame)
+        || command.getFunctionId().get() != Data.int8(frame, Index.FUNCTION_ID.get())) {
+      return true;
+    }
+    switch (command.getFunctionId()) {
+      case READ_COILS, READ_DISCRETE_INPUTS, READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> {
+        // compared below
+      }
+      default -> {
+        return true;
+      }
+    }
+    final long key = (long) command.getDeviceId() << 40 | (long) command.getFunctionId().ordinal() << 32
+        | (long) command.getAddress() << 16 | command.getCount();
+    final int length = frame.remaining() - Index.DATA.get() - Checksum.SIZE;
+    State state = states.get(key);
+    if (null == state) {
+      state = new State();
+      states.put(key, state);
+    } else if (nanos - state.notifiedNanos < maxSilenceNanos && state.payload.length == length
+        && !isChanged(command, state.payload, frame)) {
+      suppressedCount++;
+      return false;
+    }
+    if (state.payload.length != length) {
+      state.payload = new byte[length];
+    }
+    frame.get(frame.position() + Index.DATA.get(), state.payload);
+    state.notifiedNanos = nanos;
+    return true;
+  }
+
+  private boolean isChanged(final Command<?> command, final byte[] payload, final ByteBuffer frame) {
+    final int data = Index.DATA.get();
+    final FunctionId functionId = command.getFunctionId();
+    if (FunctionId.READ_COILS == functionId || FunctionId.READ_DISCRETE_INPUTS == functionId) {
+      for (int i = 0; i < payload.length; i++) {
+        if (payload[i] != Data.int8(frame, data + i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    for (int i = 0; 2 * i + 1 < payload.length; i++) {
+      if (Data.uint16(payload, 2 * i) == Data.uint16(frame, data + 2 * i)) {
+        continue;
+      }
+      final Register register = REGISTERS.get(key(functionId, command.getAddress() + i));
+      if (null == register) {
+        return true;
+      }
+      final Register low = low(register);
+      final double absolute = absoluteDeadbands[low.ordinal()];
+      final int index = 2 * (low.address() - command.getAddress());
+      final int size = low.dataType().isUInt32() ? 4 : 2;
+      if (Double.isNaN(absolute) || index < 0 || payload.length < index + size) {
+        return true; // no deadband, or only one half of an unsigned integer with 32 bits
+      }
+      final double previous = value(low, 4 == size ? Data.uint32(payload, index) : Data.uint16(payload, index));
+      final double current =
+          value(low, 4 == size ? Data.uint32(frame, data + index) : Data.uint16(frame, data + index));
+      if (Math.abs(current - previous) > Math.max(absolute, relativeDeadbands[low.ordinal()] * Math.abs(previous))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static double value(final Register register, final long raw) {
+    return (DataType.INT16 == register.dataType() ? (short) raw : raw) * (double) register.scale();
+  }
+
+}
@@ -0,0 +1,84 @@
+package io.github.openhelios.epever.tracer;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Dispatches the received responses of one device to its listeners. All implementations notify each listener in the
+ * order the responses have been received.
+ */
+public interface Dispatcher extends AutoCloseable {
+
+  /**
+   * Dispatches the response to the listeners without blocking the receiving thread.
+   *
+   * @param listeners The listeners.
+   * @param deviceId The ID of the responding device.
+   * @param response The response.
+   */
+  void dispatch(Collection<Tracer3210ANListener> listeners, int deviceId, Response response);
+
+  /**
+   * The amount of dispatched responses, which have not been handled by all listeners yet.
+   *
+   * @return The queue depth.
+   */
+  int getQueueDepth();
+
+  /**
+   * Releases the resources kept for the given listener, which has been removed. Already dispatched responses are still
+   * handed to it.
+   *
+   * @param listener The removed listener.
+   */
+  default void removeListener(final Tracer3210ANListener listener) {
+    // no resources per listener
+  }
+
+  /**
+   * Stops dispatching after all already dispatched responses have been handled.
+   */
+  @Override
+  void close();
+
+  /**
+   * Creates a dispatcher with a single consumer thread notifying all listeners one after the other.
+   *
+   * @return The created dispatcher.
+   */
+  static Dispatcher singleConsumer() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "tracer-dispatcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    return new SerialDispatcher(executor, executor::shutdown);
+  }
+
+  /**
+   * Creates a dispatcher notifying the listeners on the given executor, which will not be shut down by the dispatcher.
+   * The responses are handed to the executor one after the other to keep the order.
+   *
+   * @param executor The executor.
+   * @return The created dispatcher.
+   */
+  static Dispatcher of(final Executor executor) {
+    return new SerialDispatcher(executor, () -> {
+      // the executor is owned by the caller
+    });
+  }
+
+  /**
+   * Creates a dispatcher with a virtual thread for each listener, so a slow listener does not delay other listeners.
+   *
+   * @return The created dispatcher.
+   */
+  static Dispatcher virtualThreadPerListener() {
+    return new ListenerDispatcher();
+  }
+
+}
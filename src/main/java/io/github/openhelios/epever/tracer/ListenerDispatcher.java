@@ -0,0 +1,48 @@
+package io.github.openhelios.epever.tracer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Dispatcher with an own ordered queue for each listener, which is drained by a virtual thread.
+ */
+class ListenerDispatcher implements Dispatcher {
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final Map<Tracer3210ANListener, SerialExecutor> executors = new ConcurrentHashMap<>();
+
+  @Override
+  public void dispatch(final Collection<Tracer3210ANListener> listeners, final int deviceId,
+      final Response response) {
+    for (final Tracer3210ANListener listener : listeners) {
+      executors.computeIfAbsent(listener, l -> new SerialExecutor(executor))
+          .execute(() -> listener.onMessage(deviceId, response));
+    }
+  }
+
+  @Override
+  public void removeListener(final Tracer3210ANListener listener) {
+    executors.remove(listener);
+  }
+
+  @Override
+  public int getQueueDepth() {
+    int depth = 0;
+    for (final SerialExecutor serialExecutor : executors.values()) {
+      depth = Math.max(depth, serialExecutor.size());
+    }
+    return depth;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+}
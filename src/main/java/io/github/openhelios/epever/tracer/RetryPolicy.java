@@ -0,0 +1,297 @@
+package io.github.openhelios.epever.tracer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.response.ErrorCode;
+
+/**
+ * Decides, whether a command answered by an error response is sent again, and how long to wait before. The delay grows
+ * exponentially with each retry up to a maximum and is shortened by a random jitter, so several connections do not
+ * retry in lockstep. A token bucket limits the retries of all commands, so a device reporting busy for a long time does
+ * not cause a retry storm. Only read commands are retried by default, because an error response like
+ * {@link ErrorCode#PROCESSING_FUNCTION_STARTED} may be sent after a write has already been executed, and sending it
+ * again would execute it twice, e.g. {@link Command#loadOn(boolean)}. This class is thread-safe.
+ */
+public final class RetryPolicy {
+
+  /** The default maximum amount of retries for {@link ErrorCode#DEVICE_BUSY}. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /** The default delay before the first retry. */
+  public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(20);
+
+  /** The default maximum delay before a retry. */
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1);
+
+  /** The default fraction of the delay, which is randomly subtracted. */
+  public static final double DEFAULT_JITTER = 0.5;
+
+  /** The default amount of retries, which can be spent at once. */
+  public static final int DEFAULT_BUDGET = 10;
+
+  /** The default amount of retries added to the budget per second. */
+  public static final double DEFAULT_BUDGET_REFILL_PER_SECOND = 2;
+
+  private final Map<ErrorCode, Integer> maxRetriesByErrorCode = new EnumMap<>(ErrorCode.class);
+
+  private final Map<Integer, Integer> maxRetriesByCommand = new ConcurrentHashMap<>();
+
+  private volatile Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+  private volatile Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+
+  private volatile double jitter = DEFAULT_JITTER;
+
+  private volatile boolean isWriteRetryOn;
+
+  private int budget = DEFAULT_BUDGET;
+
+  private double refillPerSecond = DEFAULT_BUDGET_REFILL_PER_SECOND;
+
+  private double tokens = DEFAULT_BUDGET;
+
+  private long refillNanos = System.nanoTime();
+
+  /**
+   * Creates a policy retrying {@link ErrorCode#DEVICE_BUSY} and {@link ErrorCode#PROCESSING_FUNCTION_STARTED} up to
+   * {@value #DEFAULT_MAX_RETRIES} times.
+   */
+  public RetryPolicy() {
+    maxRetriesByErrorCode.put(ErrorCode.DEVICE_BUSY, DEFAULT_MAX_RETRIES);
+    maxRetriesByErrorCode.put(ErrorCode.PROCESSING_FUNCTION_STARTED, DEFAULT_MAX_RETRIES);
+  }
+
+  /**
+   * Creates a policy, which never retries.
+   *
+   * @return The created policy.
+   */
+  public static RetryPolicy none() {
+    final RetryPolicy policy = new RetryPolicy();
+    policy.maxRetriesByErrorCode.clear();
+    return policy;
+  }
+
+  private static boolean isRead(final FunctionId functionId) {
+    return switch (functionId) {
+      case READ_COILS, READ_DISCRETE_INPUTS, READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> true;
+      default -> false;
+    };
+  }
+
+  private static int key(final Command<?> command) {
+    return command.getFunctionId().ordinal() << 16 | command.getAddress();
+  }
+
+  /**
+   * Gets the maximum amount of retries for the given error code.
+   *
+   * @param errorCode The error code of the error response.
+   * @return The maximum amount of retries; 0 for none.
+   */
+  public synchronized int getMaxRetries(final ErrorCode errorCode) {
+    return maxRetriesByErrorCode.getOrDefault(errorCode, 0);
+  }
+
+  /**
+   * Sets the maximum amount of retries for the given error code.
+   *
+   * @param errorCode The error code of the error response.
+   * @param maxRetries The maximum amount of retries; 0 for none.
+   * @throws IllegalArgumentException if the amount is negative.
+   */
+  public synchronized void setMaxRetries(final ErrorCode errorCode, final int maxRetries) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("maxRetries must not be negative, but was " + maxRetries);
+    }
+    maxRetriesByErrorCode.put(errorCode, maxRetries);
+  }
+
+  /**
+   * Sets the maximum amount of retries for the given command, which overrides the amount of the error code. It only
+   * applies to error codes with a maximum amount greater than 0, so an error like
+   * {@link ErrorCode#UNKNOWN_REGISTER_ADDRESS}, which would occur again, is still not retried. The setting applies to
+   * all commands with the same function ID and address independent of the device ID, e.g. both
+   * {@link Command#loadOn(boolean)} commands. A write command is only retried, if the
+   * {@link #setWriteRetryOn(boolean) write retry} is on.
+   *
+   * @param command The command.
+   * @param maxRetries The maximum amount of retries; 0 for none.
+   * @throws IllegalArgumentException if the amount is negative.
+   */
+  public void setMaxRetries(final Command<?> command, final int maxRetries) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("maxRetries must not be negative, but was " + maxRetries);
+    }
+    maxRetriesByCommand.put(key(command), maxRetries);
+  }
+
+  /**
+   * Removes the maximum amount of retries set for the given command, so the amount of the error code applies again.
+   *
+   * @param command The command.
+   */
+  public void resetMaxRetries(final Command<?> command) {
+    maxRetriesByCommand.remove(key(command));
+  }
+
+  /**
+   * Gets the write retry mode.
+   *
+   * @return True, if write commands are retried.
+   */
+  public boolean isWriteRetryOn() {
+    return isWriteRetryOn;
+  }
+
+  /**
+   * Sets the write retry mode. By default, write commands are not retried. Enable it only, if all written values are
+   * idempotent, because a write answered by an error response may already have been executed.
+   *
+   * @param isEnabled True to retry write commands like read commands.
+   */
+  public void setWriteRetryOn(final boolean isEnabled) {
+    this.isWriteRetryOn = isEnabled;
+  }
+
+  /**
+   * Gets the delay before the first retry.
+   *
+   * @return The initial backoff.
+   */
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  /**
+   * Sets the delay before the first retry, which is doubled for each further retry. The default is 20 ms.
+   *
+   * @param initialBackoff The initial backoff.
+   */
+  public void setInitialBackoff(final Duration initialBackoff) {
+    this.initialBackoff = initialBackoff;
+  }
+
+  /**
+   * Gets the maximum delay before a retry.
+   *
+   * @return The maximum backoff.
+   */
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  /**
+   * Sets the maximum delay before a retry. The default is 1 s.
+   *
+   * @param maxBackoff The maximum backoff.
+   */
+  public void setMaxBackoff(final Duration maxBackoff) {
+    this.maxBackoff = maxBackoff;
+  }
+
+  /**
+   * Gets the fraction of the delay, which is randomly subtracted.
+   *
+   * @return The jitter from 0 to 1.
+   */
+  public double getJitter() {
+    return jitter;
+  }
+
+  /**
+   * Sets the fraction of the delay, which is randomly subtracted. The default is {@value #DEFAULT_JITTER}.
+   *
+   * @param jitter The jitter from 0 for none to 1 for a delay between 0 and the full backoff.
+   * @throws IllegalArgumentException if the jitter is out of range.
+   */
+  public void setJitter(final double jitter) {
+    if (jitter < 0 || 1 < jitter) {
+      throw new IllegalArgumentException("jitter must be from 0 to 1, but was " + jitter);
+    }
+    this.jitter = jitter;
+  }
+
+  /**
+   * Sets the retry budget shared by all commands using this policy. A retry takes one token from the bucket, and a
+   * retry is not done, if the bucket is empty.
+   *
+   * @param budget The amount of retries, which can be spent at once, which is also the new amount of tokens.
+   * @param refillPerSecond The amount of retries added to the budget per second.
+   * @throws IllegalArgumentException if a value is negative.
+   */
+  public synchronized void setBudget(final int budget, final double refillPerSecond) {
+    if (budget < 0 || refillPerSecond < 0) {
+      throw new IllegalArgumentException("budget and refill must not be negative");
+    }
+    this.budget = budget;
+    this.refillPerSecond = refillPerSecond;
+    tokens = budget;
+    refillNanos = System.nanoTime();
+  }
+
+  /**
+   * Gets the amount of retries, which can currently be spent.
+   *
+   * @return The amount of available tokens.
+   */
+  public synchronized int getAvailableBudget() {
+    refill();
+    return (int) tokens;
+  }
+
+  private void refill() {
+    final long now = System.nanoTime();
+    tokens = Math.min(budget, tokens + (now - refillNanos) * refillPerSecond / 1e9);
+    refillNanos = now;
+  }
+
+  /**
+   * Checks, if the command shall be sent again after the given error, and takes a token from the budget if so.
+   *
+   * @param command The command answered by the error response.
+   * @param errorCode The error code of the error response.
+   * @param retries The amount of retries already done for the command.
+   * @return True, if the command shall be sent again after the {@link #getBackoff(int) backoff}.
+   */
+  public synchronized boolean tryRetry(final Command<?> command, final ErrorCode errorCode, final int retries) {
+    if (!isWriteRetryOn && !isRead(command.getFunctionId())) {
+      return false;
+    }
+    final int maxRetriesOfErrorCode = getMaxRetries(errorCode);
+    final Integer maxRetries = maxRetriesByCommand.get(key(command));
+    if (0 == maxRetriesOfErrorCode || retries >= (null == maxRetries ? maxRetriesOfErrorCode : maxRetries)) {
+      return false;
+    }
+    refill();
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  /**
+   * Computes the delay before the next retry.
+   *
+   * @param retries The amount of retries already done for the command.
+   * @return The initial backoff doubled for each done retry, limited by the maximum backoff and shortened by the
+   *         jitter.
+   */
+  public Duration getBackoff(final int retries) {
+    final long max = maxBackoff.toNanos();
+    long nanos = initialBackoff.toNanos();
+    for (int i = 0; i < retries && nanos < max; i++) {
+      nanos <<= 1;
+    }
+    final double factor = 1 - jitter * ThreadLocalRandom.current().nextDouble();
+    return Duration.ofNanos((long) (Math.min(nanos, max) * factor));
+  }
+
+}
@@ -0,0 +1,48 @@
+package io.github.openhelios.epever.tracer;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Dispatcher notifying all listeners of a response in one task, while the tasks are executed one after the other.
+ */
+class SerialDispatcher implements Dispatcher {
+
+  private final SerialExecutor executor;
+
+  private final Runnable onClose;
+
+  /**
+   * Constructor.
+   *
+   * @param executor The underlying executor.
+   * @param onClose Called on close.
+   */
+  SerialDispatcher(final Executor executor, final Runnable onClose) {
+    this.executor = new SerialExecutor(executor);
+    this.onClose = onClose;
+  }
+
+  @Override
+  public void dispatch(final Collection<Tracer3210ANListener> listeners, final int deviceId,
+      final Response response) {
+    executor.execute(() -> {
+      for (final Tracer3210ANListener listener : listeners) {
+        listener.onMessage(deviceId, response);
+      }
+    });
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return executor.size();
+  }
+
+  @Override
+  public void close() {
+    onClose.run();
+  }
+
+}
@@ -0,0 +1,69 @@
+package io.github.openhelios.epever.tracer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the tasks one after the other in the order of submission on an underlying executor, which may run tasks in
+ * parallel. At most one task of this executor is running at the same time.
+ */
+class SerialExecutor implements Executor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SerialExecutor.class);
+
+  private final Executor executor;
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Constructor.
+   *
+   * @param executor The underlying executor.
+   */
+  SerialExecutor(final Executor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void execute(final Runnable task) {
+    tasks.add(task);
+    if (0 == size.getAndIncrement()) {
+      try {
+        executor.execute(this::drain);
+      } catch (final RejectedExecutionException e) {
+        LOG.debug("drop {} tasks, because the executor has been shut down", size.get(), e);
+        tasks.clear();
+        size.set(0);
+      }
+    }
+  }
+
+  /**
+   * The amount of submitted tasks, which have not been finished yet.
+   *
+   * @return The queue depth including the running task.
+   */
+  int size() {
+    return size.get();
+  }
+
+  private void drain() {
+    do {
+      final Runnable task = tasks.poll();
+      try {
+        task.run();
+      } catch (final RuntimeException e) {
+        LOG.error("task failed", e);
+      }
+    } while (0 != size.decrementAndGet());
+  }
+
+}
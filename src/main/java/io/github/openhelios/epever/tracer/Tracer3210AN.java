@@ -1,71 +1,191 @@
 package io.github.openhelios.epever.tracer;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fazecast.jSerialComm.SerialPort;
-import com.fazecast.jSerialComm.SerialPortDataListener;
-import com.fazecast.jSerialComm.SerialPortEvent;
 
+import io.github.openhelios.epever.tracer.protocol.BaudRate;
 import io.github.openhelios.epever.tracer.protocol.Command;
 import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.PollPlan;
+import io.github.openhelios.epever.tracer.protocol.Register;
+import io.github.openhelios.epever.tracer.protocol.RegisterPlan;
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.BatteryChargingDischargingStatus;
+import io.github.openhelios.epever.tracer.protocol.response.BatteryConfig;
+import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.BitValues;
 import io.github.openhelios.epever.tracer.protocol.response.Clock;
+import io.github.openhelios.epever.tracer.protocol.response.Error;
+import io.github.openhelios.epever.tracer.protocol.response.ErrorResponseException;
 import io.github.openhelios.epever.tracer.protocol.response.Messages;
+import io.github.openhelios.epever.tracer.protocol.response.Messages.FrameListener;
+import io.github.openhelios.epever.tracer.protocol.response.Ok;
+import io.github.openhelios.epever.tracer.protocol.response.RatedArrayBatteryChargingMode;
+import io.github.openhelios.epever.tracer.protocol.response.RatedLoad;
+import io.github.openhelios.epever.tracer.protocol.response.RegisterValues;
 import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.ArrayEnergyStatistics;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.DayMinMaxVoltageStatistics;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.LoadEnergyStatistics;
+import io.github.openhelios.epever.tracer.transport.SerialTransport;
+import io.github.openhelios.epever.tracer.transport.Transport;
 
 /**
- * Represents the Tracer 3210AN to send commands to and receive responses.
+ * Represents the Tracer 3210AN to send commands to and receive responses. The connection is done by a
+ * {@link Transport}, which is a serial port by default.
  */
-public class Tracer3210AN implements SerialPortDataListener, AutoCloseable {
+public class Tracer3210AN implements AutoCloseable {
+
+  /** The default time to wait for a response, which is 1 second. */
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(1);
+
+  /** The default baud rate, which is the fixed baud rate of the Tracer 3210AN. */
+  public static final BaudRate DEFAULT_BAUD_RATE = BaudRate.BPS_115200;
 
   private static final String DESCRIPTIVE_PORT_NAME = "USB Single Serial";
 
   private static final Logger LOG = LoggerFactory.getLogger(Tracer3210AN.class);
 
-  private final SerialPort serialPort;
+  private final Transport transport;
+
+  private final Set<Tracer3210ANListener> listeners = new CopyOnWriteArraySet<>();
+
+  private final Set<Tracer3210ANListener> filteredListeners = new CopyOnWriteArraySet<>();
+
+  private final Messages messages = new Messages(this::getExpectedCommand, this::onResponse);
+
+  private final Deque<Request<?>> requests = new ArrayDeque<>();
+
+  private final Thread shutdownHook = new Thread(this::onShutdown, "tracer-shutdown");
+
+  @Nullable
+  private Request<?> activeRequest;
+
+  private Duration timeout = DEFAULT_TIMEOUT;
+
+  private volatile BaudRate baudRate = DEFAULT_BAUD_RATE;
+
+  private Duration turnaroundDelay = DEFAULT_BAUD_RATE.silentInterval();
+
+  private long nextSendNanos = System.nanoTime();
+
+  private boolean isSendScheduled;
+
+  private volatile Dispatcher dispatcher = Dispatcher.singleConsumer();
+
+  private volatile RetryPolicy retryPolicy = new RetryPolicy();
 
-  private final Set<Tracer3210ANListener> listeners = new HashSet<>();
+  @Nullable
+  private volatile ChangeFilter changeFilter;
 
-  private Class<? extends Response> expectedResponseType;
+  @Nullable
+  private volatile FrameListener frameListener;
+
+  /** Whether the filtered listeners are notified of the response of the current frame; used by the receiving thread. */
+  private boolean isSignificant = true;
+
+  /** Whether the error response of the current frame is retried; set by the receiving thread completing the request. */
+  private boolean isRetried;
 
   private boolean isDebugOn;
 
+  /**
+   * A command waiting to be sent or waiting for its response.
+   *
+   * @param <T> The type of the expected response.
+   * @param command The command.
+   * @param frame The encoded frame of the command.
+   * @param future The future to be completed with the response.
+   * @param timeout The time to wait for the response after sending the command.
+   */
+  private record Request<T extends Response>(Command<T> command, ByteBuffer frame, CompletableFuture<T> future,
+      Duration timeout) {
+
+    boolean complete(final int deviceId, final Response response) {
+      if (deviceId != command.getDeviceId()) {
+        return false;
+      }
+      final Class<T> responseType = command.getResponseType();
+      if (response instanceof final Error error) {
+        return error.functionId() == command.getFunctionId()
+            && future.completeExceptionally(new ErrorResponseException(error));
+      }
+      if (response instanceof final Ok ok && ok.functionId() != command.getFunctionId()) {
+        return false;
+      }
+      return responseType.isInstance(response) && future.complete(responseType.cast(response));
+    }
+
+  }
+
   private static SerialPort getSerialPortByDescrptvePortName(final SerialPort[] serialPorts) {
-    final List<String> names = new ArrayList<>(serialPorts.length);
+    final List<SerialPort> found = findSerialPorts(serialPorts);
+    if (found.isEmpty()) {
+      final List<String> names = new ArrayList<>(serialPorts.length);
+      for (final SerialPort serialPort : serialPorts) {
+        names.add(serialPort.getDescriptivePortName());
+      }
+      throw new IllegalStateException(DESCRIPTIVE_PORT_NAME + " not found in: " + names);
+    }
+    return found.get(0);
+  }
+
+  /**
+   * Finds all serial ports of connected Tracer 3210AN.
+   *
+   * @param serialPorts The serial ports to search in, e.g. {@link SerialPort#getCommPorts()}.
+   * @return The found serial ports; may be empty.
+   */
+  public static List<SerialPort> findSerialPorts(final SerialPort[] serialPorts) {
+    final List<SerialPort> found = new ArrayList<>();
     for (final SerialPort serialPort : serialPorts) {
-      final String name = serialPort.getDescriptivePortName();
-      if (DESCRIPTIVE_PORT_NAME.equals(name)) {
-        return serialPort;
+      if (DESCRIPTIVE_PORT_NAME.equals(serialPort.getDescriptivePortName())) {
+        found.add(serialPort);
       }
-      names.add(name);
     }
-    throw new IllegalStateException(DESCRIPTIVE_PORT_NAME + " not found in: " + names);
+    return found;
+  }
+
+  /**
+   * Opens a connection with a Tracer 3210AN using the given transport.
+   *
+   * @param transport The transport, which will be opened.
+   */
+  public Tracer3210AN(final Transport transport) {
+    this.transport = transport;
+    if (transport instanceof final SerialTransport serialTransport) {
+      baudRate = serialTransport.getBaudRate();
+      turnaroundDelay = baudRate.silentInterval();
+    }
+    messages.setFrameListener(this::onFrame);
+    transport.open(this::onReceive);
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
   }
 
   /**
    * Opens a serial connection with a Tracer 3210AN.
    *
-   * @param serialPort The serial port to be used to open the connection with DPS-150.
+   * @param serialPort The serial port to be used to open the connection with the Tracer 3210AN.
    */
   public Tracer3210AN(final SerialPort serialPort) {
-    this.serialPort = serialPort;
-    serialPort.setBaudRate(115200);
-    serialPort.setNumDataBits(8);
-    serialPort.setNumStopBits(1);
-    serialPort.setParity(SerialPort.NO_PARITY);
-    serialPort.setFlowControl(SerialPort.FLOW_CONTROL_DISABLED);
-    if (!serialPort.openPort()) {
-      final int code = serialPort.getLastErrorCode();
-      throw new IllegalStateException(
-          "opening commPort " + serialPort.getDescriptivePortName() + " failed: error code " + code
-              + (11 == code ? " (opened by an other process?)" : "") + ", line " + serialPort.getLastErrorLocation());
-    }
-    SerialPort.addShutdownHook(new Thread(this::onShutdown));
+    this(new SerialTransport(serialPort));
   }
 
   /**
@@ -75,6 +195,24 @@ public class Tracer3210AN implements SerialPortDataListener, AutoCloseable {
     this(getSerialPortByDescrptvePortName(SerialPort.getCommPorts()));
   }
 
+  /**
+   * The name of the connection.
+   *
+   * @return The name of the transport, e.g. the system port name {@code ttyUSB0} or {@code COM3}.
+   */
+  public String getName() {
+    return transport.getName();
+  }
+
+  /**
+   * The transport.
+   *
+   * @return The transport used for the connection.
+   */
+  public Transport getTransport() {
+    return transport;
+  }
+
   /**
    * Adds a listener, which wants to be informed by each received response from DPS-150.
    *
@@ -82,20 +220,29 @@ public class Tracer3210AN implements SerialPortDataListener, AutoCloseable {
    */
   public void addListener(final Tracer3210ANListener listener) {
     this.listeners.add(listener);
-    if (1 == listeners.size()) {
-      serialPort.addDataListener(this);
-    }
   }
 
   /**
-   * Removes the given previously added listener.
+   * Adds a listener, which is only informed by the responses passed by the {@link #setChangeFilter(ChangeFilter) change
+   * filter}, e.g. a sink publishing to MQTT or writing into a database. Listeners integrating or recording the values
+   * over time like {@link io.github.openhelios.epever.tracer.history.EnergyIntegrator} need each response, so they
+   * must be added by {@link #addListener(Tracer3210ANListener)}.
    *
    * @param listener The listener.
    */
+  public void addFilteredListener(final Tracer3210ANListener listener) {
+    filteredListeners.add(listener);
+  }
+
+  /**
+   * Removes the given previously added listener.
+   *
+   * @param listener The listener, which has been added filtered or not.
+   */
   public void removeListener(final Tracer3210ANListener listener) {
-    if (listeners.remove(listener) && listeners.isEmpty()) {
-      serialPort.removeDataListener();
-    }
+    listeners.remove(listener);
+    filteredListeners.remove(listener);
+    dispatcher.removeListener(listener);
   }
 
   /**
@@ -105,6 +252,9 @@ public class Tracer3210AN implements SerialPortDataListener, AutoCloseable {
     for (final var listener : new ArrayList<>(listeners)) {
       removeListener(listener);
     }
+    for (final var listener : new ArrayList<>(filteredListeners)) {
+      removeListener(listener);
+    }
   }
 
   /**
@@ -125,126 +275,510 @@ public class Tracer3210AN implements SerialPortDataListener, AutoCloseable {
     this.isDebugOn = isEnabled;
   }
 
-  private void writeBytes(final byte[] bytes) {
+  private void writeFrame(final ByteBuffer frame) {
     if (isDebugOn) {
+      final byte[] bytes = new byte[frame.remaining()];
+      frame.get(frame.position(), bytes);
       ConsolePrinter.println("writeBytes: " + Data.hex(bytes));
     }
-    final int count = serialPort.writeBytes(bytes, bytes.length);
-    if (count != bytes.length) {
-      throw new IllegalStateException("expected " + bytes.length + " send bytes, but returned " + count);
+    transport.write(frame);
+  }
+
+  /**
+   * Sets the listener, which is called synchronously on the receiving thread with a view of each received frame
+   * before the response is created and dispatched. Reading the fields from the view does not allocate memory.
+   *
+   * @param frameListener The frame listener or {@code null} to remove it.
+   */
+  public void setFrameListener(@Nullable final FrameListener frameListener) {
+    this.frameListener = frameListener;
+  }
+
+  /**
+   * Gets the dispatcher notifying the listeners.
+   *
+   * @return The dispatcher.
+   */
+  public Dispatcher getDispatcher() {
+    return dispatcher;
+  }
+
+  /**
+   * Sets the dispatcher notifying the listeners. The previous dispatcher is closed after handling its already
+   * dispatched responses. The default is {@link Dispatcher#singleConsumer()}.
+   *
+   * @param dispatcher The dispatcher.
+   */
+  public void setDispatcher(final Dispatcher dispatcher) {
+    final Dispatcher previous = this.dispatcher;
+    this.dispatcher = dispatcher;
+    previous.close();
+  }
+
+  /**
+   * The amount of received responses, which have not been handled by all listeners yet.
+   *
+   * @return The queue depth of the dispatcher.
+   */
+  public int getDispatchQueueDepth() {
+    return dispatcher.getQueueDepth();
+  }
+
+  /**
+   * Gets the policy to retry commands answered by an error response.
+   *
+   * @return The retry policy.
+   */
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets the policy to retry commands answered by an error response. The retries are transparent to the callers and
+   * listeners: the future of a command is only completed with the last response, and the listeners are not notified
+   * about error responses, which are retried. The default is a new {@link RetryPolicy}.
+   *
+   * @param retryPolicy The retry policy, e.g. {@link RetryPolicy#none()} to disable retries.
+   */
+  public void setRetryPolicy(final RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Gets the filter deciding, whether the filtered listeners are notified of a response.
+   *
+   * @return The change filter, or {@code null}, if the filtered listeners are notified of each response.
+   */
+  @Nullable
+  public ChangeFilter getChangeFilter() {
+    return changeFilter;
+  }
+
+  /**
+   * Sets the filter deciding, whether the listeners added by {@link #addFilteredListener(Tracer3210ANListener)} are
+   * notified of a response, so unchanged responses do not reach them. The listeners added by
+   * {@link #addListener(Tracer3210ANListener)} and the futures of the commands get each response independent of the
+   * filter. The default is no filter.
+   *
+   * @param changeFilter The change filter, or {@code null} to notify the filtered listeners of each response.
+   */
+  public void setChangeFilter(@Nullable final ChangeFilter changeFilter) {
+    this.changeFilter = changeFilter;
+  }
+
+  /**
+   * Gets the default time to wait for a response.
+   *
+   * @return The default timeout.
+   */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Sets the default time to wait for a response, which is used by {@link #send(Command)}.
+   *
+   * @param timeout The default timeout.
+   */
+  public void setTimeout(final Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Gets the minimum silent time on the bus between the end of a response or timeout and the next request.
+   *
+   * @return The turnaround delay.
+   */
+  public Duration getTurnaroundDelay() {
+    return turnaroundDelay;
+  }
+
+  /**
+   * Sets the minimum silent time on the bus between the end of a response or timeout and the next request, which gives
+   * the devices on a RS-485 bus time to release the bus. The default is the {@link BaudRate#silentInterval()} of the
+   * baud rate.
+   *
+   * @param turnaroundDelay The turnaround delay.
+   */
+  public void setTurnaroundDelay(final Duration turnaroundDelay) {
+    this.turnaroundDelay = turnaroundDelay;
+  }
+
+  /**
+   * Gets the baud rate of the serial line.
+   *
+   * @return The baud rate.
+   */
+  public BaudRate getBaudRate() {
+    return baudRate;
+  }
+
+  /**
+   * Sets the baud rate of the serial line and resets the turnaround delay to its {@link BaudRate#silentInterval()}.
+   * The transmission time of a command and its expected response at this baud rate is added to each timeout. The
+   * Tracer 3210AN has no register to change its baud rate, so only a line to devices or a bridge configured for the
+   * same baud rate keeps working.
+   *
+   * @param baudRate The baud rate.
+   * @throws IllegalStateException if the transport failed to change the baud rate.
+   */
+  public void setBaudRate(final BaudRate baudRate) {
+    synchronized (requests) {
+      transport.setBaudRate(baudRate);
+      this.baudRate = baudRate;
+      turnaroundDelay = baudRate.silentInterval();
+    }
+  }
+
+  /**
+   * Sends the given command with the default timeout.
+   *
+   * @param <T> The type of the expected response.
+   * @param command The command.
+   * @return The future completed with the response, or exceptionally completed with an {@link ErrorResponseException}
+   *         for an error response or with a {@link java.util.concurrent.TimeoutException}.
+   * @see #send(Command, Duration)
+   */
+  public <T extends Response> CompletableFuture<T> send(final Command<T> command) {
+    return send(command, timeout);
+  }
+
+  /**
+   * Sends the given command as soon as all previously sent commands have been answered or timed out. The timeout
+   * starts, when the command has been written to the device, and is extended by the transmission time of the command
+   * and its expected response at the configured baud rate.
+   *
+   * @param <T> The type of the expected response.
+   * @param command The command.
+   * @param timeout The time to wait for the response.
+   * @return The future completed with the response, or exceptionally completed with an {@link ErrorResponseException}
+   *         for an error response, which is not retried by the {@link #getRetryPolicy() retry policy}, or with a
+   *         {@link java.util.concurrent.TimeoutException}.
+   */
+  public <T extends Response> CompletableFuture<T> send(final Command<T> command, final Duration timeout) {
+    synchronized (requests) {
+      final CompletableFuture<T> future = enqueue(command, command.frame(), timeout);
+      sendNext();
+      return future;
     }
   }
 
-  private void writeBytes(final Command command) {
-    expectedResponseType = command.getResponseType();
-    writeBytes(command.get());
-    try {
-      Thread.sleep(75);
-    } catch (final InterruptedException e) {
-      // ignore
+  /**
+   * Sends all commands of the given plan one after another with the default timeout using the frames encoded by the
+   * plan. The responses are passed to the listeners.
+   *
+   * @param plan The poll plan.
+   * @return The future completed, when all commands have been answered, or exceptionally completed, if a command
+   *         failed.
+   */
+  public CompletableFuture<Void> poll(final PollPlan plan) {
+    final List<Command<?>> commands = plan.getCommands();
+    final CompletableFuture<?>[] futures = new CompletableFuture<?>[commands.size()];
+    synchronized (requests) {
+      for (int i = 0; i < futures.length; i++) {
+        futures[i] = enqueue(commands.get(i), plan.frame(i), timeout);
+      }
+      sendNext();
     }
+    return CompletableFuture.allOf(futures);
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.RatedArrayBatteryChargingMode}.
+   * Reads all registers of the given plan with the default timeout.
+   *
+   * @param plan The register plan.
+   * @return The future completed with the value of type uint16_t for each requested register, or exceptionally
+   *         completed, if a read failed.
    */
-  public void requestRatedArrayBatteryChargingMode() {
-    writeBytes(Command.ratedArrayBatteryChargingMode());
+  public CompletableFuture<Map<Register, Integer>> read(final RegisterPlan plan) {
+    final List<Command<RegisterValues>> commands = plan.getCommands();
+    final List<CompletableFuture<RegisterValues>> futures = new ArrayList<>(commands.size());
+    for (final Command<RegisterValues> command : commands) {
+      futures.add(send(command));
+    }
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+        .thenApply(v -> plan.split(futures.stream().map(CompletableFuture::join).toList()));
+  }
+
+  private <T extends Response> CompletableFuture<T> enqueue(final Command<T> command, final ByteBuffer frame,
+      final Duration timeout) {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    retryOnError(command, frame, timeout, enqueueAttempt(command, frame, timeout), result, 0);
+    return result;
+  }
+
+  private <T extends Response> CompletableFuture<T> enqueueAttempt(final Command<T> command, final ByteBuffer frame,
+      final Duration timeout) {
+    final Request<T> request = new Request<>(command, frame.duplicate(), new CompletableFuture<>(), timeout);
+    request.future().whenComplete((response, throwable) -> onCompleted(request));
+    requests.add(request);
+    return request.future();
+  }
+
+  private <T extends Response> void retryOnError(final Command<T> command, final ByteBuffer frame,
+      final Duration timeout, final CompletableFuture<T> attempt, final CompletableFuture<T> result,
+      final int retries) {
+    result.whenComplete((response, throwable) -> attempt.cancel(false));
+    attempt.whenComplete((response, throwable) -> {
+      if (null == throwable) {
+        result.complete(response);
+        return;
+      }
+      final RetryPolicy policy = retryPolicy;
+      if (throwable instanceof final ErrorResponseException e && !result.isDone()
+          && policy.tryRetry(command, e.getError().code(), retries)) {
+        isRetried = true;
+        final Duration backoff = policy.getBackoff(retries);
+        LOG.debug("retry {} after {} in {}", command, e.getError().code(), backoff);
+        CompletableFuture.delayedExecutor(backoff.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+          final CompletableFuture<T> next;
+          synchronized (requests) {
+            next = enqueueAttempt(command, frame, timeout);
+            sendNext();
+          }
+          retryOnError(command, frame, timeout, next, result, retries + 1);
+        });
+        return;
+      }
+      result.completeExceptionally(throwable);
+    });
+  }
+
+  private void sendNext() {
+    if (isSendScheduled) {
+      return;
+    }
+    final long delayNanos = nextSendNanos - System.nanoTime();
+    if (delayNanos > 0 && null == activeRequest && !requests.isEmpty()) {
+      isSendScheduled = true;
+      CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(this::sendScheduled);
+      return;
+    }
+    while (null == activeRequest && !requests.isEmpty()) {
+      final Request<?> request = requests.poll();
+      if (request.future().isDone()) {
+        continue; // cancelled by the caller
+      }
+      activeRequest = request;
+      try {
+        final Command<?> command = request.command();
+        writeFrame(request.frame());
+        final long transmissionNanos =
+            baudRate.transmissionTime(command.size() + command.expectedResponseSize()).toNanos();
+        request.future().orTimeout(request.timeout().toNanos() + transmissionNanos, TimeUnit.NANOSECONDS);
+      } catch (final RuntimeException e) {
+        activeRequest = null;
+        request.future().completeExceptionally(e);
+      }
+    }
+  }
+
+  private void sendScheduled() {
+    synchronized (requests) {
+      isSendScheduled = false;
+      sendNext();
+    }
+  }
+
+  private void onCompleted(final Request<?> request) {
+    synchronized (requests) {
+      if (activeRequest == request) {
+        activeRequest = null;
+        nextSendNanos = System.nanoTime() + turnaroundDelay.toNanos();
+        sendNext();
+      }
+    }
+  }
+
+  @Nullable
+  private Command<?> getExpectedCommand() {
+    synchronized (requests) {
+      return null == activeRequest ? null : activeRequest.command();
+    }
+  }
+
+  private void onResponse(final int deviceId, final Response response) {
+    final Request<?> request;
+    synchronized (requests) {
+      request = activeRequest;
+    }
+    isRetried = false;
+    if (null == request || !request.complete(deviceId, response)) {
+      LOG.debug("no request waiting for {} from device {}", response, deviceId);
+    }
+    if (isRetried) {
+      LOG.trace("not dispatching retried {} from device {}", response, deviceId);
+      return;
+    }
+    dispatcher.dispatch(listeners, deviceId, response);
+    if (!isSignificant) {
+      LOG.trace("suppressed unchanged {} from device {}", response, deviceId);
+    } else if (!filteredListeners.isEmpty()) {
+      dispatcher.dispatch(filteredListeners, deviceId, response);
+    }
+  }
+
+  private void onFrame(@Nullable final Command<?> command, final ByteBuffer frame) {
+    final ChangeFilter filter = changeFilter;
+    isSignificant = null == filter || filter.test(command, frame, System.nanoTime());
+    final FrameListener listener = frameListener;
+    if (null != listener) {
+      listener.onFrame(command, frame);
+    }
+  }
+
+  /**
+   * Requests {@link RatedArrayBatteryChargingMode}.
+   *
+   * @return The future response.
+   */
+  public CompletableFuture<RatedArrayBatteryChargingMode> requestRatedArrayBatteryChargingMode() {
+    return send(Command.ratedArrayBatteryChargingMode());
+  }
+
+  /**
+   * Requests {@link RatedLoad}.
+   *
+   * @return The future response.
+   */
+  public CompletableFuture<RatedLoad> requestRatedLoad() {
+    return send(Command.ratedLoad());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.RatedLoad}.
+   * Requests {@link ActualArrayBattery}.
+   *
+   * @return The future response.
    */
-  public void requestRatedLoad() {
-    writeBytes(Command.ratedLoad());
+  public CompletableFuture<ActualArrayBattery> requestActualArrayBattery() {
+    return send(Command.actualArrayBattery());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery}.
+   * Requests {@link ActualLoadTemperature}.
+   *
+   * @return The future response.
+   */
+  public CompletableFuture<ActualLoadTemperature> requestActualLoadTemperature() {
+    return send(Command.actualLoadTemperature());
+  }
+
+  /**
+   * Requests {@link ActualBatterySocRemoteTemperature}.
+   *
+   * @return The future response.
    */
-  public void requestActualArrayBattery() {
-    writeBytes(Command.actualArrayBattery());
+  public CompletableFuture<ActualBatterySocRemoteTemperature> requestActualBatterySocRemoteTemperature() {
+    return send(Command.actualBatterySocRemoteTemperature());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature}.
+   * Requests {@link BatterySystem}.
+   *
+   * @return The future response.
    */
-  public void requestActualLoadTemperature() {
-    writeBytes(Command.actualLoadTemperature());
+  public CompletableFuture<BatterySystem> requestBatterySystem() {
+    return send(Command.batterySystem());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature}.
+   * Requests {@link BatteryChargingDischargingStatus}.
+   *
+   * @return The future response.
    */
-  public void requestActualBatterySocRemoteTemperature() {
-    writeBytes(Command.actualBatterySocRemoteTemperature());
+  public CompletableFuture<BatteryChargingDischargingStatus> requestBatteryChargingDischargingStatus() {
+    return send(Command.batteryChargingDischargingStatus());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.BatterySystem}.
+   * Requests {@link BatteryConfig}.
+   *
+   * @return The future response.
    */
-  public void requestBatterySystem() {
-    writeBytes(Command.batterySystem());
+  public CompletableFuture<BatteryConfig> requestBatteryConfig() {
+    return send(Command.batteryConfig());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.BatteryChargingDischargingStatus}.
+   * Requests {@link Clock}.
+   *
+   * @return The future response.
    */
-  public void requestBatteryChargingDischargingStatus() {
-    writeBytes(Command.batteryChargingDischargingStatus());
+  public CompletableFuture<Clock> requestClock() {
+    return send(Command.clock());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.BatteryConfig}.
+   * Requests the states of all coils with {@link Command#coils()}. The listeners are notified about the response to
+   * each command.
+   *
+   * @return The future combined response.
    */
-  public void requestBatteryConfig() {
-    writeBytes(Command.batteryConfig());
+  public CompletableFuture<BitValues> requestCoils() {
+    return sendBits(Command.coils());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.Clock}.
+   * Requests the states of all discrete inputs with {@link Command#discreteInputs()}. The listeners are notified about
+   * the response to each command.
+   *
+   * @return The future combined response.
    */
-  public void requestClock() {
-    writeBytes(Command.clock());
+  public CompletableFuture<BitValues> requestDiscreteInputs() {
+    return sendBits(Command.discreteInputs());
+  }
+
+  private CompletableFuture<BitValues> sendBits(final List<Command<BitValues>> commands) {
+    final List<CompletableFuture<BitValues>> futures = commands.stream().map(command -> send(command)).toList();
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+        .thenApply(v -> BitValues.combine(futures.stream().map(CompletableFuture::join).toList()));
   }
 
   /**
    * Sets the real time clock to the given time.
    *
    * @param clock The clock.
+   * @return The future response.
    */
-  public void setClock(final Clock clock) {
-    writeBytes(Command.setClock(clock));
+  public CompletableFuture<Ok> setClock(final Clock clock) {
+    return send(Command.setClock(clock));
   }
 
   /**
    * Command to set the output load.
    *
    * @param isEnabled True to enable the output load.
+   * @return The future response.
    */
-  public void setOutputLoadOn(final boolean isEnabled) {
-    writeBytes(Command.loadOn(isEnabled));
+  public CompletableFuture<Ok> setOutputLoadOn(final boolean isEnabled) {
+    return send(Command.loadOn(isEnabled));
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.statistic.DayMinMaxVoltageStatistics}.
+   * Requests {@link DayMinMaxVoltageStatistics}.
+   *
+   * @return The future response.
    */
-  public void requestDayMinMaxVoltageStatistics() {
-    writeBytes(Command.dayMinMaxVoltageStatistics());
+  public CompletableFuture<DayMinMaxVoltageStatistics> requestDayMinMaxVoltageStatistics() {
+    return send(Command.dayMinMaxVoltageStatistics());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.statistic.LoadEnergyStatistics}.
+   * Requests {@link LoadEnergyStatistics}.
+   *
+   * @return The future response.
    */
-  public void requestLoadEnergyStatistics() {
-    writeBytes(Command.loadEnergyStatistics());
+  public CompletableFuture<LoadEnergyStatistics> requestLoadEnergyStatistics() {
+    return send(Command.loadEnergyStatistics());
   }
 
   /**
-   * Requests {@link io.github.openhelios.epever.tracer.protocol.response.statistic.ArrayEnergyStatistics}.
+   * Requests {@link ArrayEnergyStatistics}.
+   *
+   * @return The future response.
    */
-  public void requestArrayEnergyStatistics() {
-    writeBytes(Command.arrayEnergyStatistics());
+  public CompletableFuture<ArrayEnergyStatistics> requestArrayEnergyStatistics() {
+    return send(Command.arrayEnergyStatistics());
   }
 
   /**
@@ -253,34 +787,36 @@ public class Tracer3210AN implements SerialPortDataListener, AutoCloseable {
    * @return True, if the serial port is currently connected.
    */
   public boolean isConnected() {
-    return serialPort.isOpen();
+    return transport.isOpen();
   }
 
   @Override
   public void close() {
-    if (serialPort.isOpen()) {
-      serialPort.flushDataListener();
-      serialPort.closePort();
+    final List<Request<?>> pending;
+    synchronized (requests) {
+      pending = new ArrayList<>(requests);
+      requests.clear();
+      if (null != activeRequest) {
+        pending.add(activeRequest);
+      }
+    }
+    for (final Request<?> request : pending) {
+      request.future().completeExceptionally(new IllegalStateException("closed before response"));
+    }
+    transport.close();
+    dispatcher.close();
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (final IllegalStateException e) {
+      LOG.trace("closed during shutdown");
     }
   }
 
-  @Override
-  public int getListeningEvents() {
-    return SerialPort.LISTENING_EVENT_DATA_RECEIVED;
-  }
-
-  @Override
-  public void serialEvent(final SerialPortEvent event) {
-    if (listeners.isEmpty()) {
-      LOG.info("no listener registered");
-      return;
-    }
-    final byte[] data = event.getReceivedData();
+  private void onReceive(final byte[] data, final int offset, final int length) {
     if (isDebugOn) {
-      ConsolePrinter.println("readBytes : " + Data.hex(data));
+      ConsolePrinter.println("readBytes : " + Data.hex(data, offset, length));
     }
-    final Messages messages = new Messages(data, expectedResponseType, listeners);
-    new Thread(messages::readAll).start();
+    messages.read(data, offset, length);
   }
 
   private void onShutdown() {
@@ -14,4 +14,15 @@ public interface Tracer3210ANListener {
    */
   void onMessage(Response response);
 
+  /**
+   * A response from the device with the given ID has been received. Override this method to distinguish several
+   * devices connected to one RS-485 bus. The default implementation calls {@link #onMessage(Response)}.
+   *
+   * @param deviceId The ID of the responding device.
+   * @param response There are several specific sub types to represent the values in a type safe way.
+   */
+  default void onMessage(final int deviceId, final Response response) {
+    onMessage(response);
+  }
+
 }
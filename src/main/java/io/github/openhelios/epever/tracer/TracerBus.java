@@ -0,0 +1,101 @@
+package io.github.openhelios.epever.tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Client for several Tracer devices connected to one RS-485 bus, which are all reached over the same connection. The
+ * requests are sent one after the other with the turnaround delay of the connection in between. The listeners of the
+ * connection receive the responses of all devices and can distinguish them by
+ * {@link Tracer3210ANListener#onMessage(int, Response)}.
+ */
+public class TracerBus {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TracerBus.class);
+
+  private final Tracer3210AN connection;
+
+  private final List<Integer> deviceIds;
+
+  /**
+   * Constructor.
+   *
+   * @param connection The connection to the bus.
+   * @param deviceIds The IDs of the devices connected to the bus.
+   */
+  public TracerBus(final Tracer3210AN connection, final int... deviceIds) {
+    if (0 == deviceIds.length) {
+      throw new IllegalArgumentException("expected at least one device ID");
+    }
+    this.connection = connection;
+    final List<Integer> ids = new ArrayList<>(deviceIds.length);
+    for (final int deviceId : deviceIds) {
+      ids.add(deviceId);
+    }
+    this.deviceIds = Collections.unmodifiableList(ids);
+  }
+
+  /**
+   * The connection to the bus.
+   *
+   * @return The connection.
+   */
+  public Tracer3210AN getConnection() {
+    return connection;
+  }
+
+  /**
+   * The IDs of the devices connected to the bus.
+   *
+   * @return The device IDs.
+   */
+  public List<Integer> getDeviceIds() {
+    return deviceIds;
+  }
+
+  /**
+   * Sends the given command to each device.
+   *
+   * @param <T> The type of the expected response.
+   * @param command The command.
+   * @return The future responses by device ID in the order of the device IDs.
+   */
+  public <T extends Response> Map<Integer, CompletableFuture<T>> send(final Command<T> command) {
+    final Map<Integer, CompletableFuture<T>> futures = new LinkedHashMap<>();
+    for (final int deviceId : deviceIds) {
+      futures.put(deviceId, connection.send(command.withDeviceId(deviceId)));
+    }
+    return futures;
+  }
+
+  /**
+   * Sends all given commands to the first device, then to the second device and so on. The responses are received by
+   * the listeners of the connection.
+   *
+   * @param commands The commands.
+   * @return The future completed, when all devices have answered or timed out.
+   */
+  public CompletableFuture<Void> poll(final List<Command<?>> commands) {
+    final List<CompletableFuture<?>> futures = new ArrayList<>(deviceIds.size() * commands.size());
+    for (final int deviceId : deviceIds) {
+      for (final Command<?> command : commands) {
+        futures.add(connection.send(command.withDeviceId(deviceId)).exceptionally(throwable -> {
+          LOG.debug("polling device {} failed", deviceId, throwable);
+          return null;
+        }));
+      }
+    }
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+  }
+
+}
@@ -0,0 +1,219 @@
+package io.github.openhelios.epever.tracer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.PollPlan;
+import io.github.openhelios.epever.tracer.protocol.Message;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Manages several Tracer 3210AN connected to different ports and polls them concurrently on virtual threads. The
+ * responses of all connections are merged into one stream, which is handed to the fleet listeners one after the other.
+ */
+public class TracerFleet implements AutoCloseable {
+
+  /**
+   * Listener for the merged responses of all connections.
+   */
+  public interface FleetListener {
+
+    /**
+     * A response has been received.
+     *
+     * @param connection The connection, which received the response.
+     * @param deviceId The ID of the responding device.
+     * @param response The response.
+     */
+    void onMessage(Tracer3210AN connection, int deviceId, Response response);
+
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(TracerFleet.class);
+
+  private final List<Tracer3210AN> connections;
+
+  private final Set<FleetListener> listeners = new CopyOnWriteArraySet<>();
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final SerialExecutor merger = new SerialExecutor(executor);
+
+  private final List<Thread> pollers = new ArrayList<>();
+
+  /**
+   * Opens a connection for each found Tracer 3210AN. Ports, which can not be opened, are skipped.
+   *
+   * @return The created fleet.
+   */
+  public static TracerFleet discover() {
+    final List<Tracer3210AN> connections = new ArrayList<>();
+    for (final SerialPort serialPort : Tracer3210AN.findSerialPorts(SerialPort.getCommPorts())) {
+      try {
+        connections.add(new Tracer3210AN(serialPort));
+      } catch (final IllegalStateException e) {
+        LOG.warn("skip {}", serialPort.getSystemPortName(), e);
+      }
+    }
+    return new TracerFleet(connections);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param connections The already opened connections, which will be closed by this fleet.
+   */
+  public TracerFleet(final List<Tracer3210AN> connections) {
+    this.connections = Collections.unmodifiableList(new ArrayList<>(connections));
+    for (final Tracer3210AN connection : connections) {
+      connection.addListener(new Tracer3210ANListener() {
+
+        @Override
+        public void onMessage(final Response response) {
+          onMessage(Message.DEFAULT_DEVICE_ID, response);
+        }
+
+        @Override
+        public void onMessage(final int deviceId, final Response response) {
+          merger.execute(() -> {
+            for (final FleetListener listener : listeners) {
+              listener.onMessage(connection, deviceId, response);
+            }
+          });
+        }
+
+      });
+    }
+  }
+
+  /**
+   * The connections.
+   *
+   * @return The connections managed by this fleet.
+   */
+  public List<Tracer3210AN> getConnections() {
+    return connections;
+  }
+
+  /**
+   * Adds a listener for the merged responses of all connections.
+   *
+   * @param listener The listener.
+   */
+  public void addListener(final FleetListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes the given previously added listener.
+   *
+   * @param listener The listener.
+   */
+  public void removeListener(final FleetListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Sends all given commands to all connections concurrently.
+   *
+   * @param commands The commands.
+   * @return The future completed, when all connections have received their responses or timed out.
+   */
+  public CompletableFuture<Void> poll(final List<Command<?>> commands) {
+    return poll(PollPlan.of(commands));
+  }
+
+  /**
+   * Sends all commands of the given plan to all connections concurrently.
+   *
+   * @param plan The poll plan.
+   * @return The future completed, when all connections have received their responses or timed out.
+   */
+  public CompletableFuture<Void> poll(final PollPlan plan) {
+    final List<CompletableFuture<?>> futures = new ArrayList<>(connections.size());
+    for (final Tracer3210AN connection : connections) {
+      futures.add(CompletableFuture.runAsync(() -> pollOnce(connection, plan), executor));
+    }
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+  }
+
+  /**
+   * Starts polling all connections periodically, each on its own virtual thread.
+   *
+   * @param commands The commands to be sent in each period.
+   * @param interval The time between the start of two polls of a connection.
+   */
+  public void startPolling(final List<Command<?>> commands, final Duration interval) {
+    startPolling(PollPlan.of(commands), interval);
+  }
+
+  /**
+   * Starts polling all connections periodically with the given plan, each on its own virtual thread.
+   *
+   * @param plan The poll plan to be sent in each period.
+   * @param interval The time between the start of two polls of a connection.
+   */
+  public synchronized void startPolling(final PollPlan plan, final Duration interval) {
+    stopPolling();
+    for (final Tracer3210AN connection : connections) {
+      pollers.add(Thread.ofVirtual().name("tracer-fleet-" + connection.getName())
+          .start(() -> pollPeriodically(connection, plan, interval)));
+    }
+  }
+
+  /**
+   * Stops polling started by {@link #startPolling(List, Duration)}.
+   */
+  public synchronized void stopPolling() {
+    for (final Thread poller : pollers) {
+      poller.interrupt();
+    }
+    pollers.clear();
+  }
+
+  private static void pollOnce(final Tracer3210AN connection, final PollPlan plan) {
+    try {
+      connection.poll(plan).join();
+    } catch (final RuntimeException e) {
+      LOG.debug("polling {} failed", connection.getName(), e);
+    }
+  }
+
+  private static void pollPeriodically(final Tracer3210AN connection, final PollPlan plan, final Duration interval) {
+    final long intervalNanos = interval.toNanos();
+    long nextNanos = System.nanoTime();
+    while (!Thread.currentThread().isInterrupted() && connection.isConnected()) {
+      pollOnce(connection, plan);
+      nextNanos += intervalNanos;
+      try {
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, nextNanos - System.nanoTime()));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    stopPolling();
+    for (final Tracer3210AN connection : connections) {
+      connection.close();
+    }
+    executor.shutdown();
+  }
+
+}
@@ -0,0 +1,167 @@
+package io.github.openhelios.epever.tracer.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the records of a capture file written by {@link CaptureWriter} one after the other. The fields of the current
+ * record are valid until the next call of {@link #next()}. A record cut off at the end of the file, e.g. after a crash,
+ * is ignored. This class is not thread-safe.
+ */
+public final class CaptureReader implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CaptureReader.class);
+
+  private final Path path;
+
+  private final DataInputStream in;
+
+  private final long startNanos;
+
+  private Direction direction = Direction.SENT;
+
+  private long timestampNanos;
+
+  private byte[] data = new byte[256];
+
+  private int length;
+
+  /**
+   * Opens the capture file.
+   *
+   * @param path The path of the capture file.
+   * @throws UncheckedIOException if the file could not be opened.
+   * @throws IllegalStateException if the file is no capture file.
+   */
+  public CaptureReader(final Path path) {
+    this.path = path;
+    try {
+      in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+      try {
+        if (CaptureWriter.MAGIC != in.readInt() || CaptureWriter.VERSION != in.readShort()) {
+          throw new IllegalStateException(path + " is no capture file of version " + CaptureWriter.VERSION);
+        }
+        startNanos = in.readLong();
+      } catch (final IOException | RuntimeException e) {
+        in.close();
+        throw e;
+      }
+    } catch (final EOFException e) {
+      throw new IllegalStateException(path + " is no capture file", e);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to open " + path, e);
+    }
+    timestampNanos = startNanos;
+  }
+
+  private long readVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if (b < 0x80) {
+        return value;
+      }
+    }
+    throw new IOException("invalid variable-length integer");
+  }
+
+  /**
+   * The timestamp of the begin of the capture.
+   *
+   * @return The nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return True, if a record has been read, or false at the end of the file.
+   * @throws UncheckedIOException if reading failed.
+   */
+  public boolean next() {
+    try {
+      final int d = in.read();
+      if (d < 0) {
+        return false;
+      }
+      if (Direction.values().length <= d) {
+        throw new IOException("invalid direction " + d);
+      }
+      final long t = timestampNanos + readVarLong();
+      final long n = readVarLong();
+      if (Integer.MAX_VALUE - 8 < n) {
+        throw new IOException("invalid length " + n);
+      }
+      if (data.length < n) {
+        data = new byte[(int) Math.max(n, 2L * data.length)];
+      }
+      in.readFully(data, 0, (int) n);
+      direction = Direction.values()[d];
+      timestampNanos = t;
+      length = (int) n;
+      return true;
+    } catch (final EOFException e) {
+      LOG.warn("ignoring incomplete record at the end of {}", path);
+      return false;
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to read " + path, e);
+    }
+  }
+
+  /**
+   * The direction of the current record.
+   *
+   * @return The direction.
+   */
+  public Direction getDirection() {
+    return direction;
+  }
+
+  /**
+   * The timestamp of the current record.
+   *
+   * @return The nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getTimestampNanos() {
+    return timestampNanos;
+  }
+
+  /**
+   * The bytes of the current record, which are reused for the next record.
+   *
+   * @return The buffer with the bytes from index 0 up to {@link #getLength()}.
+   */
+  public byte[] getData() {
+    return data;
+  }
+
+  /**
+   * The amount of bytes of the current record.
+   *
+   * @return The length.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  @Override
+  public void close() {
+    try {
+      in.close();
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to close " + path, e);
+    }
+  }
+
+}
@@ -0,0 +1,157 @@
+package io.github.openhelios.epever.tracer.capture;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.Tracer3210ANListener;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.response.Messages;
+import io.github.openhelios.epever.tracer.protocol.response.Messages.FrameListener;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Replays a capture file written by a {@link CapturingTransport} through {@link Messages} to the listeners, e.g. to
+ * reproduce an issue of the field or to benchmark the listeners with real traffic without hardware. Each sent frame is
+ * parsed by {@link Command#parse(byte[])}, so the received responses are decoded into the same typed responses as by
+ * {@link io.github.openhelios.epever.tracer.Tracer3210AN}. The records are replayed from the first one with their
+ * original timing divided by the {@link #setSpeed(double) speed} on the calling thread.
+ */
+public final class CaptureReplayer {
+
+  /** The speed to replay without waiting. */
+  public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+  private static final Logger LOG = LoggerFactory.getLogger(CaptureReplayer.class);
+
+  private final Path path;
+
+  private final Set<Tracer3210ANListener> listeners = new CopyOnWriteArraySet<>();
+
+  private volatile double speed = 1;
+
+  @Nullable
+  private volatile FrameListener frameListener;
+
+  @Nullable
+  private Command<?> expectedCommand;
+
+  private long responseCount;
+
+  /**
+   * Constructor.
+   *
+   * @param path The path of the capture file.
+   */
+  public CaptureReplayer(final Path path) {
+    this.path = path;
+  }
+
+  /**
+   * Adds a listener, which is called for each replayed response.
+   *
+   * @param listener The listener.
+   */
+  public void addListener(final Tracer3210ANListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes the given previously added listener.
+   *
+   * @param listener The listener.
+   */
+  public void removeListener(final Tracer3210ANListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Sets the listener, which is called with a view of each replayed frame before the response is created.
+   *
+   * @param frameListener The frame listener or {@code null} to remove it.
+   */
+  public void setFrameListener(@Nullable final FrameListener frameListener) {
+    this.frameListener = frameListener;
+  }
+
+  /**
+   * Gets the speed.
+   *
+   * @return The factor of the original speed.
+   */
+  public double getSpeed() {
+    return speed;
+  }
+
+  /**
+   * Sets the speed, which applies to the next replay. The default is 1 for real time.
+   *
+   * @param speed The factor of the original speed, e.g. 10 for ten times faster, or {@link #AS_FAST_AS_POSSIBLE}.
+   * @throws IllegalArgumentException if the speed is not positive.
+   */
+  public void setSpeed(final double speed) {
+    if (!(0 < speed)) {
+      throw new IllegalArgumentException("speed must be positive, but was " + speed);
+    }
+    this.speed = speed;
+  }
+
+  /**
+   * Replays the capture file on the calling thread until its end or until the thread is interrupted.
+   *
+   * @return The amount of replayed responses.
+   * @throws java.io.UncheckedIOException if reading the capture file failed.
+   * @throws IllegalStateException if the file is no capture file.
+   */
+  public synchronized long replay() {
+    final double factor = speed;
+    final Messages messages = new Messages(() -> expectedCommand, this::onResponse);
+    messages.setFrameListener(frameListener);
+    expectedCommand = null;
+    responseCount = 0;
+    try (CaptureReader reader = new CaptureReader(path)) {
+      final long startNanos = System.nanoTime();
+      long firstNanos = Long.MIN_VALUE;
+      while (!Thread.currentThread().isInterrupted() && reader.next()) {
+        if (Long.MIN_VALUE == firstNanos) {
+          firstNanos = reader.getTimestampNanos();
+        }
+        if (Double.isFinite(factor)) {
+          final long due = startNanos + (long) ((reader.getTimestampNanos() - firstNanos) / factor);
+          for (long wait = due - System.nanoTime(); 0 < wait; wait = due - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+            if (Thread.currentThread().isInterrupted()) {
+              return responseCount;
+            }
+          }
+        }
+        if (Direction.SENT == reader.getDirection()) {
+          messages.reset();
+          expectedCommand = Command.parse(Arrays.copyOf(reader.getData(), reader.getLength()));
+        } else {
+          messages.read(reader.getData(), 0, reader.getLength());
+        }
+      }
+    }
+    return responseCount;
+  }
+
+  private void onResponse(final int deviceId, final Response response) {
+    expectedCommand = null;
+    responseCount++;
+    for (final Tracer3210ANListener listener : listeners) {
+      try {
+        listener.onMessage(deviceId, response);
+      } catch (final RuntimeException e) {
+        LOG.warn("listener failed for {}", response, e);
+      }
+    }
+  }
+
+}
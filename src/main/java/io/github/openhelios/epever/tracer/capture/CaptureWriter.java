@@ -0,0 +1,124 @@
+package io.github.openhelios.epever.tracer.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a capture file of the communication with the devices, which is read by {@link CaptureReader}. The file starts
+ * with a header of the {@link #MAGIC magic number}, the {@link #VERSION version} and the timestamp of the begin in
+ * nanoseconds since the epoch. Each record consists of the direction, the nanoseconds since the previous record as
+ * variable-length integer, the amount of bytes as variable-length integer and the bytes. This class is thread-safe.
+ */
+public final class CaptureWriter implements AutoCloseable {
+
+  /** The magic number at the begin of a capture file. */
+  public static final int MAGIC = 0x45504346;
+
+  /** The version of the file format. */
+  public static final short VERSION = 1;
+
+  private final Path path;
+
+  private final DataOutputStream out;
+
+  private long timestampNanos;
+
+  /**
+   * Creates a new capture file, which is replaced, if it exists.
+   *
+   * @param path The path of the capture file.
+   * @param startNanos The timestamp of the begin in nanoseconds since 1970-01-01T00:00:00Z.
+   * @throws UncheckedIOException if the file could not be created.
+   */
+  public CaptureWriter(final Path path, final long startNanos) {
+    this.path = path;
+    timestampNanos = startNanos;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeLong(startNanos);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to create " + path, e);
+    }
+  }
+
+  static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+    long v = value;
+    while ((v & ~0x7FL) != 0) {
+      out.write((int) (v & 0x7F | 0x80));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+  /**
+   * Writes a record.
+   *
+   * @param direction The direction.
+   * @param nanos The timestamp in nanoseconds since 1970-01-01T00:00:00Z; an earlier timestamp than the previous one is
+   *          stored as the previous one.
+   * @param data The buffer with the bytes.
+   * @param offset The index of the first byte.
+   * @param length The amount of bytes.
+   * @throws UncheckedIOException if writing failed.
+   */
+  public synchronized void write(final Direction direction, final long nanos, final byte[] data, final int offset,
+      final int length) {
+    try {
+      out.write(direction.ordinal());
+      writeVarLong(out, Math.max(0, nanos - timestampNanos));
+      writeVarLong(out, length);
+      out.write(data, offset, length);
+      timestampNanos = Math.max(timestampNanos, nanos);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to write " + path, e);
+    }
+  }
+
+  /**
+   * Writes a record with the bytes from the position up to the limit of the given buffer, which is not modified.
+   *
+   * @param direction The direction.
+   * @param nanos The timestamp in nanoseconds since 1970-01-01T00:00:00Z.
+   * @param data The bytes.
+   * @throws UncheckedIOException if writing failed.
+   */
+  public void write(final Direction direction, final long nanos, final ByteBuffer data) {
+    if (data.hasArray()) {
+      write(direction, nanos, data.array(), data.arrayOffset() + data.position(), data.remaining());
+    } else {
+      final byte[] bytes = new byte[data.remaining()];
+      data.get(data.position(), bytes);
+      write(direction, nanos, bytes, 0, bytes.length);
+    }
+  }
+
+  /**
+   * Writes the buffered records to the file.
+   *
+   * @throws UncheckedIOException if writing failed.
+   */
+  public synchronized void flush() {
+    try {
+      out.flush();
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to write " + path, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      out.close();
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to close " + path, e);
+    }
+  }
+
+}
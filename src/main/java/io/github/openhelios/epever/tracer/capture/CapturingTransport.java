@@ -0,0 +1,98 @@
+package io.github.openhelios.epever.tracer.capture;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.protocol.BaudRate;
+import io.github.openhelios.epever.tracer.telemetry.TelemetrySample;
+import io.github.openhelios.epever.tracer.transport.Transport;
+
+/**
+ * A transport, which records each sent frame and each received chunk of bytes of another transport with a timestamp
+ * into a {@link CaptureWriter}, so the communication can be replayed by a {@link CaptureReplayer}. A failure of the
+ * capture file is logged and does not interrupt the communication.
+ */
+public final class CapturingTransport implements Transport {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CapturingTransport.class);
+
+  private final Transport transport;
+
+  private final CaptureWriter writer;
+
+  /**
+   * Constructor.
+   *
+   * @param transport The transport to be captured, which is not opened yet.
+   * @param writer The writer of the capture file, which is closed with this transport.
+   */
+  public CapturingTransport(final Transport transport, final CaptureWriter writer) {
+    this.transport = transport;
+    this.writer = writer;
+  }
+
+  /**
+   * The captured transport.
+   *
+   * @return The transport.
+   */
+  public Transport getTransport() {
+    return transport;
+  }
+
+  private void capture(final Direction direction, final byte[] data, final int offset, final int length) {
+    try {
+      writer.write(direction, TelemetrySample.nowNanos(), data, offset, length);
+    } catch (final UncheckedIOException e) {
+      LOG.warn("failed to capture {} bytes", direction, e);
+    }
+  }
+
+  @Override
+  public String getName() {
+    return transport.getName();
+  }
+
+  @Override
+  public void open(final Receiver receiver) {
+    transport.open((data, offset, length) -> {
+      capture(Direction.RECEIVED, data, offset, length);
+      receiver.onReceive(data, offset, length);
+    });
+  }
+
+  @Override
+  public void write(final ByteBuffer frame) {
+    final byte[] bytes = new byte[frame.remaining()];
+    frame.get(frame.position(), bytes);
+    capture(Direction.SENT, bytes, 0, bytes.length);
+    transport.write(frame);
+  }
+
+  @Override
+  public void setBaudRate(final BaudRate baudRate) {
+    transport.setBaudRate(baudRate);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return transport.isOpen();
+  }
+
+  @Override
+  public void close() {
+    try {
+      transport.close();
+    } finally {
+      try {
+        writer.close();
+      } catch (final UncheckedIOException e) {
+        LOG.warn("failed to close capture", e);
+      }
+    }
+  }
+
+}
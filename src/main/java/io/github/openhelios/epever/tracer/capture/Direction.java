@@ -0,0 +1,16 @@
+package io.github.openhelios.epever.tracer.capture;
+
+/**
+ * The direction of the bytes of a capture record.
+ */
+public enum Direction {
+
+  /** A frame sent to the devices. */
+  SENT,
+
+  /** A chunk of bytes received from the devices, which may contain partial or several frames. */
+  RECEIVED,
+
+  ;
+
+}
@@ -0,0 +1,124 @@
+package io.github.openhelios.epever.tracer.history;
+
+/**
+ * The aggregates of one field over a time range computed by {@link TimeSeriesStore#aggregate(Field, long, long)}.
+ */
+public final class Aggregate {
+
+  private final Field field;
+
+  private final long startNanos;
+
+  private final long endNanos;
+
+  private long count;
+
+  private float min;
+
+  private float max;
+
+  private double sum;
+
+  Aggregate(final Field field, final long startNanos, final long endNanos) {
+    this.field = field;
+    this.startNanos = startNanos;
+    this.endNanos = endNanos;
+  }
+
+  void add(final float value) {
+    merge(1, value, value, value);
+  }
+
+  void merge(final long n, final float otherMin, final float otherMax, final double otherSum) {
+    if (0 == n) {
+      return;
+    }
+    if (0 == count) {
+      min = otherMin;
+      max = otherMax;
+    } else {
+      min = Math.min(min, otherMin);
+      max = Math.max(max, otherMax);
+    }
+    sum += otherSum;
+    count += n;
+  }
+
+  /**
+   * The aggregated field.
+   *
+   * @return The field.
+   */
+  public Field getField() {
+    return field;
+  }
+
+  /**
+   * The begin of the time range.
+   *
+   * @return The inclusive begin in nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  /**
+   * The end of the time range.
+   *
+   * @return The exclusive end in nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getEndNanos() {
+    return endNanos;
+  }
+
+  /**
+   * The amount of values in the time range.
+   *
+   * @return The amount of records, in which the field is present.
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * The minimum in the time range.
+   *
+   * @return The minimum, or {@link Float#NaN}, if there is no value.
+   */
+  public float min() {
+    return 0 == count ? Float.NaN : min;
+  }
+
+  /**
+   * The maximum in the time range.
+   *
+   * @return The maximum, or {@link Float#NaN}, if there is no value.
+   */
+  public float max() {
+    return 0 == count ? Float.NaN : max;
+  }
+
+  /**
+   * The sum of the values in the time range.
+   *
+   * @return The sum; 0 if there is no value.
+   */
+  public double sum() {
+    return sum;
+  }
+
+  /**
+   * The average of the values in the time range, which is not weighted by time.
+   *
+   * @return The average, or {@link Double#NaN}, if there is no value.
+   */
+  public double avg() {
+    return 0 == count ? Double.NaN : sum / count;
+  }
+
+  @Override
+  public String toString() {
+    return "Aggregate[" + field + " " + startNanos + " " + endNanos + " count=" + count + "]";
+  }
+
+}
@@ -0,0 +1,43 @@
+package io.github.openhelios.epever.tracer.history;
+
+/**
+ * Reads bit sequences most significant bit first from a byte array.
+ */
+final class BitReader {
+
+  private final byte[] bytes;
+
+  private final int offset;
+
+  private final long bitLength;
+
+  private long position;
+
+  BitReader(final byte[] bytes, final int offset, final int length) {
+    this.bytes = bytes;
+    this.offset = offset;
+    bitLength = 8L * length;
+  }
+
+  boolean readBit() {
+    return 0 != readBits(1);
+  }
+
+  long readBits(final int count) {
+    if (bitLength - position < count) {
+      throw new IllegalStateException("end of block reached");
+    }
+    long result = 0;
+    int remaining = count;
+    while (remaining > 0) {
+      final int space = 8 - (int) (position & 7);
+      final int n = Math.min(space, remaining);
+      final int b = bytes[offset + (int) (position >>> 3)] & 0xFF;
+      result = result << n | b >>> space - n & (1 << n) - 1;
+      position += n;
+      remaining -= n;
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,42 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.util.Arrays;
+
+/**
+ * Writes bit sequences most significant bit first into a growing byte array.
+ */
+final class BitWriter {
+
+  private byte[] bytes = new byte[64];
+
+  private long bitLength;
+
+  void writeBit(final boolean bit) {
+    writeBits(bit ? 1 : 0, 1);
+  }
+
+  void writeBits(final long value, final int count) {
+    int remaining = count;
+    while (remaining > 0) {
+      final int index = (int) (bitLength >>> 3);
+      if (index == bytes.length) {
+        bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+      }
+      final int space = 8 - (int) (bitLength & 7);
+      final int n = Math.min(space, remaining);
+      final int bits = (int) (value >>> remaining - n) & (1 << n) - 1;
+      bytes[index] |= (byte) (bits << space - n);
+      bitLength += n;
+      remaining -= n;
+    }
+  }
+
+  long bitLength() {
+    return bitLength;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, (int) ((bitLength + 7) >>> 3));
+  }
+
+}
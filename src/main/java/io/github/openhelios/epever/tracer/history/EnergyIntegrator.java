@@ -0,0 +1,281 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.Tracer3210ANListener;
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.ArrayEnergyStatistics;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.LoadEnergyStatistics;
+import io.github.openhelios.epever.tracer.telemetry.TelemetrySample;
+
+/**
+ * Listener integrating the power of the array and of the load of one device into energy with a finer resolution than
+ * the energy counters of the device, which count in steps of {@value #DEVICE_RESOLUTION_WH} Wh and are only known when
+ * polled. Consecutive power samples are integrated by the trapezoidal rule. An interval longer than the
+ * {@link #setMaxGap(Duration) maximum gap} is not integrated, because the power in between is unknown. Each received
+ * total of {@link ArrayEnergyStatistics} or {@link LoadEnergyStatistics} reconciles the estimate: it is moved into the
+ * step of the device counter, so the integration error does not accumulate. The state can be saved as checkpoint and
+ * loaded after a restart. This class is thread-safe.
+ */
+public final class EnergyIntegrator implements Tracer3210ANListener {
+
+  /**
+   * The integrated power.
+   */
+  public enum Channel {
+
+    /** The power generated by the array. */
+    ARRAY,
+
+    /** The power consumed by the load. */
+    LOAD,
+
+    ;
+
+  }
+
+  /** The resolution of the energy counters of the device in Wh. */
+  public static final double DEVICE_RESOLUTION_WH = 10;
+
+  /** The default maximum interval between two samples, which is integrated. */
+  public static final Duration DEFAULT_MAX_GAP = Duration.ofMinutes(1);
+
+  /** The magic number at the begin of a checkpoint file. */
+  public static final int MAGIC = 0x45504549;
+
+  /** The version of the checkpoint file format. */
+  public static final short VERSION = 1;
+
+  private static final Logger LOG = LoggerFactory.getLogger(EnergyIntegrator.class);
+
+  private static final double NANOS_PER_HOUR = 3600e9;
+
+  private static final int COUNT = Channel.values().length;
+
+  private final double[] totalWh = new double[COUNT];
+
+  private final long[] lastNanos = new long[COUNT];
+
+  private final double[] lastPowerW = new double[COUNT];
+
+  private final boolean[] isReconciled = new boolean[COUNT];
+
+  private final double[] lastCorrectionWh = new double[COUNT];
+
+  private final long[] gapCount = new long[COUNT];
+
+  private long maxGapNanos = DEFAULT_MAX_GAP.toNanos();
+
+  /**
+   * Creates an integrator without energy, which is reconciled by the first received energy statistics.
+   */
+  public EnergyIntegrator() {
+    Arrays.fill(lastNanos, Long.MIN_VALUE);
+    Arrays.fill(lastPowerW, Double.NaN);
+  }
+
+  /**
+   * Creates an integrator from the checkpoint saved by {@link #save(Path)}.
+   *
+   * @param path The path of the checkpoint file.
+   * @return The restored integrator, or a new integrator, if the file does not exist or is truncated.
+   * @throws UncheckedIOException if reading the file failed.
+   * @throws IllegalStateException if the file is no checkpoint file.
+   */
+  public static EnergyIntegrator load(final Path path) {
+    final EnergyIntegrator integrator = new EnergyIntegrator();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (MAGIC != in.readInt() || VERSION != in.readShort() || COUNT != in.readUnsignedByte()) {
+        throw new IllegalStateException(path + " is no energy checkpoint of version " + VERSION);
+      }
+      for (int c = 0; c < COUNT; c++) {
+        integrator.totalWh[c] = in.readDouble();
+        integrator.isReconciled[c] = in.readBoolean();
+        integrator.lastNanos[c] = in.readLong();
+        integrator.lastPowerW[c] = in.readDouble();
+      }
+    } catch (final NoSuchFileException e) {
+      LOG.info("no energy checkpoint {}", path);
+    } catch (final EOFException e) {
+      LOG.warn("ignoring truncated energy checkpoint {}", path);
+      return new EnergyIntegrator();
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to read " + path, e);
+    }
+    return integrator;
+  }
+
+  /**
+   * Saves the state as checkpoint, which is forced to the storage device before it replaces the file atomically, so a
+   * crash while saving keeps the previous checkpoint.
+   *
+   * @param path The path of the checkpoint file.
+   * @throws UncheckedIOException if writing the file failed.
+   */
+  public synchronized void save(final Path path) {
+    final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(COUNT);
+        for (int c = 0; c < COUNT; c++) {
+          out.writeDouble(totalWh[c]);
+          out.writeBoolean(isReconciled[c]);
+          out.writeLong(lastNanos[c]);
+          out.writeDouble(lastPowerW[c]);
+        }
+        out.flush();
+        channel.force(true);
+      }
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to write " + path, e);
+    }
+  }
+
+  /**
+   * Gets the maximum interval between two samples, which is integrated.
+   *
+   * @return The maximum gap.
+   */
+  public synchronized Duration getMaxGap() {
+    return Duration.ofNanos(maxGapNanos);
+  }
+
+  /**
+   * Sets the maximum interval between two samples, which is integrated. It should be a few poll intervals. The default
+   * is 1 minute.
+   *
+   * @param maxGap The maximum gap.
+   * @throws IllegalArgumentException if the gap is not positive.
+   */
+  public synchronized void setMaxGap(final Duration maxGap) {
+    if (maxGap.isNegative() || maxGap.isZero()) {
+      throw new IllegalArgumentException("maxGap must be positive, but was " + maxGap);
+    }
+    maxGapNanos = maxGap.toNanos();
+  }
+
+  @Override
+  public void onMessage(final Response response) {
+    if (response instanceof final ActualArrayBattery r) {
+      addSample(Channel.ARRAY, TelemetrySample.nowNanos(), r.array().powerInW());
+    } else if (response instanceof final ActualLoadTemperature r) {
+      addSample(Channel.LOAD, TelemetrySample.nowNanos(), r.load().powerInW());
+    } else if (response instanceof final ArrayEnergyStatistics r) {
+      reconcile(Channel.ARRAY, r.totalInkWh() * 1000.0);
+    } else if (response instanceof final LoadEnergyStatistics r) {
+      reconcile(Channel.LOAD, r.totalInkWh() * 1000.0);
+    }
+  }
+
+  /**
+   * Adds a power sample and integrates the interval since the previous sample. A sample not after the previous one is
+   * ignored.
+   *
+   * @param channel The channel.
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   * @param powerInW The power in W.
+   */
+  public synchronized void addSample(final Channel channel, final long timestampNanos, final double powerInW) {
+    final int c = channel.ordinal();
+    if (Double.isNaN(powerInW) || (Long.MIN_VALUE != lastNanos[c] && timestampNanos <= lastNanos[c])) {
+      return;
+    }
+    if (Long.MIN_VALUE != lastNanos[c]) {
+      final long dt = timestampNanos - lastNanos[c];
+      if (dt <= maxGapNanos) {
+        totalWh[c] += (lastPowerW[c] + powerInW) / 2 * dt / NANOS_PER_HOUR;
+      } else {
+        gapCount[c]++;
+        LOG.debug("not integrating gap of {} ns of {}", dt, channel);
+      }
+    }
+    lastNanos[c] = timestampNanos;
+    lastPowerW[c] = powerInW;
+  }
+
+  /**
+   * Reconciles the estimate with the energy counter of the device. The first reconciliation sets the estimate to the
+   * counter. Afterwards, an estimate below the counter or beyond its step is moved to the nearest bound of the step.
+   *
+   * @param channel The channel.
+   * @param deviceTotalWh The total energy counted by the device in Wh.
+   */
+  public synchronized void reconcile(final Channel channel, final double deviceTotalWh) {
+    final int c = channel.ordinal();
+    final double estimate = isReconciled[c] ? totalWh[c] : deviceTotalWh;
+    final double reconciled = Math.min(Math.max(estimate, deviceTotalWh), deviceTotalWh + DEVICE_RESOLUTION_WH);
+    lastCorrectionWh[c] = isReconciled[c] ? reconciled - totalWh[c] : 0;
+    if (DEVICE_RESOLUTION_WH < Math.abs(lastCorrectionWh[c])) {
+      LOG.info("corrected {} energy by {} Wh", channel, lastCorrectionWh[c]);
+    }
+    totalWh[c] = reconciled;
+    isReconciled[c] = true;
+  }
+
+  /**
+   * Gets the estimated total energy, which is the energy counter of the device with a finer resolution after the first
+   * reconciliation, or the integrated energy before.
+   *
+   * @param channel The channel.
+   * @return The energy in Wh.
+   */
+  public synchronized double getTotalWh(final Channel channel) {
+    return totalWh[channel.ordinal()];
+  }
+
+  /**
+   * Checks, if the estimate has been reconciled with the energy counter of the device.
+   *
+   * @param channel The channel.
+   * @return True, if an energy statistic has been received.
+   */
+  public synchronized boolean isReconciled(final Channel channel) {
+    return isReconciled[channel.ordinal()];
+  }
+
+  /**
+   * Gets the correction of the last reconciliation, which shows the accuracy of the integration.
+   *
+   * @param channel The channel.
+   * @return The energy in Wh added to the estimate, which is negative, if the estimate was too high.
+   */
+  public synchronized double getLastCorrectionWh(final Channel channel) {
+    return lastCorrectionWh[channel.ordinal()];
+  }
+
+  /**
+   * Gets the amount of intervals longer than the maximum gap, which have not been integrated since the creation.
+   *
+   * @param channel The channel.
+   * @return The amount of gaps.
+   */
+  public synchronized long getGapCount(final Channel channel) {
+    return gapCount[channel.ordinal()];
+  }
+
+}
@@ -0,0 +1,95 @@
+package io.github.openhelios.epever.tracer.history;
+
+import io.github.openhelios.epever.tracer.protocol.Register;
+import io.github.openhelios.epever.tracer.protocol.Unit;
+
+/**
+ * The fields of a record in a {@link TimeSeriesStore}, which are the values of {@link
+ * io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery}, {@link
+ * io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature} and {@link
+ * io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature}. The ordinal is the index of
+ * the field in a record, so new fields must be appended.
+ */
+public enum Field {
+
+  /** Array voltage in V. */
+  ARRAY_VOLTAGE(Register.ARRAY_ACTUAL_VOLTAGE),
+
+  /** Array current in A. */
+  ARRAY_CURRENT(Register.ARRAY_ACTUAL_CURRENT),
+
+  /** Array power in W. */
+  ARRAY_POWER(Register.ARRAY_ACTUAL_POWER_LOW),
+
+  /** Battery voltage in V. */
+  BATTERY_VOLTAGE(Register.BATTERY_ACTUAL_VOLTAGE),
+
+  /** Battery charging current in A. */
+  BATTERY_CURRENT(Register.BATTERY_ACTUAL_CURRENT),
+
+  /** Battery charging power in W. */
+  BATTERY_POWER(Register.BATTERY_ACTUAL_POWER_LOW),
+
+  /** Load voltage in V. */
+  LOAD_VOLTAGE(Register.LOAD_ACTUAL_VOLTAGE),
+
+  /** Load current in A. */
+  LOAD_CURRENT(Register.LOAD_ACTUAL_CURRENT),
+
+  /** Load power in W. */
+  LOAD_POWER(Register.LOAD_ACTUAL_POWER_LOW),
+
+  /** Battery temperature in °C. */
+  BATTERY_TEMPERATURE(Register.BATTERY_ACTUAL_TEMPERATURE),
+
+  /** Inside temperature in °C. */
+  INSIDE_TEMPERATURE(Register.INSIDE_ACTUAL_TEMPERATURE),
+
+  /** Power components temperature in °C. */
+  POWER_COMPONENTS_TEMPERATURE(Register.POWER_COMPONENTS_TEMPERATURE),
+
+  /** Battery state of charge in %. */
+  BATTERY_SOC(Register.BATTERY_ACTUAL_SOC),
+
+  /** Remote battery temperature in °C. */
+  REMOTE_BATTERY_TEMPERATURE(Register.REMOTE_BATTERY_ACTUAL_TEMPERATURE),
+
+  ;
+
+  /** The amount of fields. */
+  public static final int COUNT = values().length;
+
+  private final Register register;
+
+  Field(final Register register) {
+    this.register = register;
+  }
+
+  /**
+   * The register of the field, which is the low register for an unsigned integer with 32 bits.
+   *
+   * @return The register.
+   */
+  public Register register() {
+    return register;
+  }
+
+  /**
+   * The unit of the field.
+   *
+   * @return The unit of the register.
+   */
+  public Unit unit() {
+    return register.unit();
+  }
+
+  /**
+   * The bit of this field in the mask of present fields.
+   *
+   * @return The bit mask with only the bit of this field set.
+   */
+  public int bit() {
+    return 1 << ordinal();
+  }
+
+}
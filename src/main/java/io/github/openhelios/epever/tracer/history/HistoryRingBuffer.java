@@ -0,0 +1,144 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.github.openhelios.epever.tracer.history.TimeSeriesStore.RecordVisitor;
+
+/**
+ * A bounded ring buffer of the most recent records in pre-allocated primitive slots, e.g. the last minutes of one
+ * device for a user interface. It is fed as {@link RecordVisitor}, e.g. by a {@link TimeSeriesRecorder}, and overwrites
+ * the oldest record, when it is full. Each slot is protected by a sequence lock: readers copy a slot optimistically and
+ * discard the copy, if the slot has been overwritten meanwhile, so readers never block the writer and do not allocate
+ * memory.
+ */
+public final class HistoryRingBuffer implements RecordVisitor {
+
+  private final int capacity;
+
+  private final long[] timestamps;
+
+  private final int[] masks;
+
+  private final float[] values;
+
+  /** The version of each slot: 2 * sequence + 1 while a record is written, and 2 * sequence + 2 afterwards. */
+  private final AtomicLongArray versions;
+
+  private volatile long writeCount;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity The maximum amount of records, e.g. 600 for the last 10 minutes at a rate of 1 Hz.
+   * @throws IllegalArgumentException if the capacity is not positive.
+   */
+  public HistoryRingBuffer(final int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+    }
+    this.capacity = capacity;
+    timestamps = new long[capacity];
+    masks = new int[capacity];
+    values = new float[capacity * Field.COUNT];
+    versions = new AtomicLongArray(capacity);
+  }
+
+  /**
+   * The maximum amount of records.
+   *
+   * @return The capacity.
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * The amount of records written since the creation.
+   *
+   * @return The write count, which is the sequence of the next record.
+   */
+  public long getWriteCount() {
+    return writeCount;
+  }
+
+  /**
+   * Writes a record into the next slot. There must be only one writer at a time, which is ensured by this method.
+   *
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   * @param mask The bit mask of the present fields, see {@link Field#bit()}.
+   * @param record The value of each field indexed by {@link Field#ordinal()}.
+   */
+  @Override
+  public synchronized void visit(final long timestampNanos, final int mask, final float[] record) {
+    final long sequence = writeCount;
+    final int slot = (int) (sequence % capacity);
+    versions.setOpaque(slot, 2 * sequence + 1);
+    VarHandle.storeStoreFence();
+    timestamps[slot] = timestampNanos;
+    masks[slot] = mask;
+    final int offset = slot * Field.COUNT;
+    for (int f = 0; f < Field.COUNT; f++) {
+      values[offset + f] = (mask >>> f & 1) != 0 ? record[f] : Float.NaN;
+    }
+    versions.setRelease(slot, 2 * sequence + 2);
+    writeCount = sequence + 1;
+  }
+
+  /**
+   * Copies the records with a timestamp not before the given time, oldest first. Records overwritten while copying are
+   * skipped. This method can be called by several threads concurrently with the writer.
+   *
+   * @param fromNanos The inclusive begin in nanoseconds since 1970-01-01T00:00:00Z.
+   * @param timestampsOut The array getting the timestamp of each copied record; its length limits the amount of
+   *          records.
+   * @param masksOut The array getting the mask of each copied record with at least the length of the timestamps.
+   * @param valuesOut The array getting the values of each copied record with {@link Field#COUNT} elements per record.
+   * @return The amount of copied records.
+   */
+  public int readSince(final long fromNanos, final long[] timestampsOut, final int[] masksOut,
+      final float[] valuesOut) {
+    final long end = writeCount;
+    int n = 0;
+    for (long sequence = Math.max(0, end - capacity); sequence < end && n < timestampsOut.length; sequence++) {
+      final int slot = (int) (sequence % capacity);
+      final long version = versions.getAcquire(slot);
+      if (version != 2 * sequence + 2) {
+        continue; // being overwritten or already overwritten by a newer record
+      }
+      timestampsOut[n] = timestamps[slot];
+      masksOut[n] = masks[slot];
+      System.arraycopy(values, slot * Field.COUNT, valuesOut, n * Field.COUNT, Field.COUNT);
+      VarHandle.loadLoadFence();
+      if (version == versions.getOpaque(slot) && fromNanos <= timestampsOut[n]) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Copies the most recent record.
+   *
+   * @param valuesOut The array getting the value of each field indexed by {@link Field#ordinal()}.
+   * @return The timestamp of the copied record, or {@link Long#MIN_VALUE}, if there is no record.
+   */
+  public long readLatest(final float[] valuesOut) {
+    while (true) {
+      final long end = writeCount;
+      if (0 == end) {
+        return Long.MIN_VALUE;
+      }
+      final int slot = (int) ((end - 1) % capacity);
+      final long version = versions.getAcquire(slot);
+      final long timestampNanos = timestamps[slot];
+      System.arraycopy(values, slot * Field.COUNT, valuesOut, 0, Field.COUNT);
+      VarHandle.loadLoadFence();
+      if (version == 2 * end && version == versions.getOpaque(slot)) {
+        return timestampNanos;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+}
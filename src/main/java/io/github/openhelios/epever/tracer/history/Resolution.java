@@ -0,0 +1,62 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.time.Duration;
+
+/**
+ * The resolutions of the rollups created by a {@link RollupEngine} in ascending order. The buckets are aligned to the
+ * epoch, so a day is a day in UTC.
+ */
+public enum Resolution {
+
+  /** Buckets of one second. */
+  SECOND(Duration.ofSeconds(1)),
+
+  /** Buckets of one minute. */
+  MINUTE(Duration.ofMinutes(1)),
+
+  /** Buckets of one hour. */
+  HOUR(Duration.ofHours(1)),
+
+  /** Buckets of one day. */
+  DAY(Duration.ofDays(1)),
+
+  ;
+
+  private final Duration duration;
+
+  private final long nanos;
+
+  Resolution(final Duration duration) {
+    this.duration = duration;
+    nanos = duration.toNanos();
+  }
+
+  /**
+   * The length of a bucket.
+   *
+   * @return The duration.
+   */
+  public Duration duration() {
+    return duration;
+  }
+
+  /**
+   * The length of a bucket.
+   *
+   * @return The duration in nanoseconds.
+   */
+  public long nanos() {
+    return nanos;
+  }
+
+  /**
+   * Computes the begin of the bucket containing the given time.
+   *
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   * @return The begin of the bucket in nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long bucketStart(final long timestampNanos) {
+    return Math.floorDiv(timestampNanos, nanos) * nanos;
+  }
+
+}
@@ -0,0 +1,115 @@
+package io.github.openhelios.epever.tracer.history;
+
+/**
+ * The aggregates of all fields in one closed bucket created by a {@link RollupEngine}.
+ */
+public final class Rollup {
+
+  private final Resolution resolution;
+
+  private final long startNanos;
+
+  private final float[] min;
+
+  private final float[] max;
+
+  private final double[] sum;
+
+  private final float[] last;
+
+  private final int[] count;
+
+  Rollup(final Resolution resolution, final long startNanos, final float[] min, final float[] max, final double[] sum,
+      final float[] last, final int[] count) {
+    this.resolution = resolution;
+    this.startNanos = startNanos;
+    this.min = min.clone();
+    this.max = max.clone();
+    this.sum = sum.clone();
+    this.last = last.clone();
+    this.count = count.clone();
+  }
+
+  /**
+   * The resolution of the bucket.
+   *
+   * @return The resolution.
+   */
+  public Resolution getResolution() {
+    return resolution;
+  }
+
+  /**
+   * The begin of the bucket.
+   *
+   * @return The inclusive begin in nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  /**
+   * The end of the bucket.
+   *
+   * @return The exclusive end in nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getEndNanos() {
+    return startNanos + resolution.nanos();
+  }
+
+  /**
+   * The amount of values of the given field in the bucket.
+   *
+   * @param field The field.
+   * @return The amount of values; 0 if the field has not been present.
+   */
+  public int count(final Field field) {
+    return count[field.ordinal()];
+  }
+
+  /**
+   * The minimum of the given field.
+   *
+   * @param field The field.
+   * @return The minimum, or {@link Float#NaN}, if the field has not been present.
+   */
+  public float min(final Field field) {
+    return 0 == count[field.ordinal()] ? Float.NaN : min[field.ordinal()];
+  }
+
+  /**
+   * The maximum of the given field.
+   *
+   * @param field The field.
+   * @return The maximum, or {@link Float#NaN}, if the field has not been present.
+   */
+  public float max(final Field field) {
+    return 0 == count[field.ordinal()] ? Float.NaN : max[field.ordinal()];
+  }
+
+  /**
+   * The average of the given field.
+   *
+   * @param field The field.
+   * @return The average, or {@link Double#NaN}, if the field has not been present.
+   */
+  public double avg(final Field field) {
+    return 0 == count[field.ordinal()] ? Double.NaN : sum[field.ordinal()] / count[field.ordinal()];
+  }
+
+  /**
+   * The last value of the given field.
+   *
+   * @param field The field.
+   * @return The last value, or {@link Float#NaN}, if the field has not been present.
+   */
+  public float last(final Field field) {
+    return 0 == count[field.ordinal()] ? Float.NaN : last[field.ordinal()];
+  }
+
+  @Override
+  public String toString() {
+    return "Rollup[" + resolution + " " + startNanos + "]";
+  }
+
+}
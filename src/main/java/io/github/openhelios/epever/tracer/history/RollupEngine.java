@@ -0,0 +1,179 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.history.TimeSeriesStore.RecordVisitor;
+
+/**
+ * Streaming aggregation of records into min, max, average and last value per field at several resolutions. Each
+ * resolution keeps one open bucket with constant state. A record is added to the bucket of the finest resolution;
+ * when a bucket is closed, it is emitted to the sink and merged into the bucket of the next coarser resolution. So the
+ * coarse rollups are computed from the fine rollups without keeping the records. The engine is a {@link RecordVisitor},
+ * so it can be fed by a {@link TimeSeriesRecorder} or by a {@link TimeSeriesStore#scan(long, long, RecordVisitor)
+ * scan}. This class is thread-safe.
+ */
+public final class RollupEngine implements RecordVisitor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RollupEngine.class);
+
+  private final RollupSink sink;
+
+  private final Bucket[] buckets;
+
+  /**
+   * The state of one open bucket.
+   */
+  private static final class Bucket {
+
+    private final Resolution resolution;
+
+    private final float[] min = new float[Field.COUNT];
+
+    private final float[] max = new float[Field.COUNT];
+
+    private final double[] sum = new double[Field.COUNT];
+
+    private final float[] last = new float[Field.COUNT];
+
+    private final int[] count = new int[Field.COUNT];
+
+    private long startNanos;
+
+    private boolean isOpen;
+
+    Bucket(final Resolution resolution) {
+      this.resolution = resolution;
+    }
+
+    void open(final long timestampNanos) {
+      startNanos = resolution.bucketStart(timestampNanos);
+      Arrays.fill(count, 0);
+      Arrays.fill(sum, 0);
+      isOpen = true;
+    }
+
+    void add(final int field, final float value) {
+      if (0 == count[field]) {
+        min[field] = value;
+        max[field] = value;
+      } else {
+        min[field] = Math.min(min[field], value);
+        max[field] = Math.max(max[field], value);
+      }
+      sum[field] += value;
+      last[field] = value;
+      count[field]++;
+    }
+
+    void merge(final Bucket bucket) {
+      for (int f = 0; f < Field.COUNT; f++) {
+        if (0 == bucket.count[f]) {
+          continue;
+        }
+        if (0 == count[f]) {
+          min[f] = bucket.min[f];
+          max[f] = bucket.max[f];
+        } else {
+          min[f] = Math.min(min[f], bucket.min[f]);
+          max[f] = Math.max(max[f], bucket.max[f]);
+        }
+        sum[f] += bucket.sum[f];
+        last[f] = bucket.last[f];
+        count[f] += bucket.count[f];
+      }
+    }
+
+    Rollup toRollup() {
+      return new Rollup(resolution, startNanos, min, max, sum, last, count);
+    }
+
+  }
+
+  /**
+   * Creates an engine for all resolutions.
+   *
+   * @param sink The sink receiving the closed buckets.
+   */
+  public RollupEngine(final RollupSink sink) {
+    this(sink, EnumSet.allOf(Resolution.class));
+  }
+
+  /**
+   * Creates an engine for the given resolutions.
+   *
+   * @param sink The sink receiving the closed buckets.
+   * @param resolutions The resolutions.
+   * @throws IllegalArgumentException if no resolution is given.
+   */
+  public RollupEngine(final RollupSink sink, final Set<Resolution> resolutions) {
+    if (resolutions.isEmpty()) {
+      throw new IllegalArgumentException("at least one resolution is required");
+    }
+    this.sink = sink;
+    buckets = EnumSet.copyOf(resolutions).stream().map(Bucket::new).toArray(Bucket[]::new);
+  }
+
+  /**
+   * Adds a record. Records older than the open bucket of the finest resolution are ignored.
+   *
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   * @param mask The bit mask of the present fields, see {@link Field#bit()}.
+   * @param values The value of each field indexed by {@link Field#ordinal()}.
+   */
+  @Override
+  public synchronized void visit(final long timestampNanos, final int mask, final float[] values) {
+    final Bucket first = buckets[0];
+    if (first.isOpen && timestampNanos < first.startNanos) {
+      LOG.debug("ignoring record at {} before open bucket {}", timestampNanos, first.startNanos);
+      return;
+    }
+    for (int i = 0; i < buckets.length; i++) {
+      final Bucket bucket = buckets[i];
+      if (bucket.isOpen && bucket.resolution.bucketStart(timestampNanos) != bucket.startNanos) {
+        close(i);
+      }
+    }
+    if (!first.isOpen) {
+      first.open(timestampNanos);
+    }
+    for (int f = 0; f < Field.COUNT; f++) {
+      if ((mask >>> f & 1) != 0 && !Float.isNaN(values[f])) {
+        first.add(f, values[f]);
+      }
+    }
+  }
+
+  private void close(final int index) {
+    final Bucket bucket = buckets[index];
+    bucket.isOpen = false;
+    sink.onRollup(bucket.toRollup());
+    if (index + 1 < buckets.length) {
+      final Bucket next = buckets[index + 1];
+      if (next.isOpen && next.resolution.bucketStart(bucket.startNanos) != next.startNanos) {
+        close(index + 1);
+      }
+      if (!next.isOpen) {
+        next.open(bucket.startNanos);
+      }
+      next.merge(bucket);
+    }
+  }
+
+  /**
+   * Closes and emits all open buckets, e.g. before shutting down. The emitted buckets are not complete, if further
+   * records belonging to them would have been added.
+   */
+  public synchronized void flush() {
+    for (int i = 0; i < buckets.length; i++) {
+      if (buckets[i].isOpen) {
+        close(i);
+      }
+    }
+  }
+
+}
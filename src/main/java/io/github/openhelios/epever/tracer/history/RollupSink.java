@@ -0,0 +1,17 @@
+package io.github.openhelios.epever.tracer.history;
+
+/**
+ * Receives the closed buckets of a {@link RollupEngine}.
+ */
+@FunctionalInterface
+public interface RollupSink {
+
+  /**
+   * A bucket has been closed. The buckets of one resolution are emitted in ascending order, and a bucket is emitted
+   * before the bucket of the next coarser resolution containing it.
+   *
+   * @param rollup The aggregates of the closed bucket.
+   */
+  void onRollup(Rollup rollup);
+
+}
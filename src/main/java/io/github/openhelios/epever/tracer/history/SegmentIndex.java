@@ -0,0 +1,289 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The sparse time index of one segment of a {@link TimeSeriesStore}: the records are divided into blocks of
+ * {@value #BLOCK_RECORDS} records, and each block has its time range and the count, minimum, maximum and sum of each
+ * field. An aggregate over blocks completely inside the queried range is computed from the summaries, so only the
+ * records of the blocks at the borders of the range are decoded. If the timestamps are ascending, the first block of a
+ * range is found by a binary search. The index of a full segment is stored in a file next to the segment.
+ */
+final class SegmentIndex {
+
+  /** The amount of records summarized by one block. */
+  static final int BLOCK_RECORDS = 1024;
+
+  /** The file name extension of an index. */
+  static final String INDEX_SUFFIX = ".idx";
+
+  private static final int MAGIC = 0x45505449;
+
+  private static final short VERSION = 1;
+
+  /** The size of the header of an index file in bytes. */
+  private static final int FILE_HEADER_SIZE = 3 * Integer.BYTES + 2 * Short.BYTES + 1;
+
+  /** The size of one block in an index file in bytes. */
+  private static final int FILE_BLOCK_SIZE =
+      2 * Long.BYTES + Field.COUNT * (Integer.BYTES + 2 * Float.BYTES + Double.BYTES);
+
+  private int records;
+
+  private int blocks;
+
+  private boolean isAscending = true;
+
+  private long minTimestampNanos = Long.MAX_VALUE;
+
+  private long maxTimestampNanos = Long.MIN_VALUE;
+
+  private long[] minNanos = new long[16];
+
+  private long[] maxNanos = new long[16];
+
+  private int[] counts = new int[16 * Field.COUNT];
+
+  private float[] mins = new float[16 * Field.COUNT];
+
+  private float[] maxs = new float[16 * Field.COUNT];
+
+  private double[] sums = new double[16 * Field.COUNT];
+
+  /**
+   * Creates the index of the given records of a segment.
+   *
+   * @param buffer The segment.
+   * @param records The amount of valid records.
+   * @return The created index.
+   */
+  static SegmentIndex build(final ByteBuffer buffer, final int records) {
+    final SegmentIndex index = new SegmentIndex();
+    final float[] values = new float[Field.COUNT];
+    for (int i = 0; i < records; i++) {
+      final int offset = TimeSeriesStore.HEADER_SIZE + i * TimeSeriesStore.RECORD_SIZE;
+      for (int f = 0; f < Field.COUNT; f++) {
+        values[f] = buffer.getFloat(offset + TimeSeriesStore.VALUES_OFFSET + f * Float.BYTES);
+      }
+      index.add(buffer.getLong(offset), buffer.getInt(offset + TimeSeriesStore.MASK_OFFSET), values);
+    }
+    return index;
+  }
+
+  /**
+   * The amount of indexed records.
+   *
+   * @return The amount of records.
+   */
+  int records() {
+    return records;
+  }
+
+  /**
+   * Adds the next record of the segment.
+   *
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   * @param mask The bit mask of the present fields.
+   * @param values The value of each field.
+   */
+  void add(final long timestampNanos, final int mask, final float[] values) {
+    final int b = records / BLOCK_RECORDS;
+    if (b == blocks) {
+      if (blocks == minNanos.length) {
+        grow();
+      }
+      isAscending &= 0 == b || maxNanos[b - 1] <= timestampNanos;
+      minNanos[b] = timestampNanos;
+      maxNanos[b] = timestampNanos;
+      blocks++;
+    } else {
+      isAscending &= maxNanos[b] <= timestampNanos;
+      minNanos[b] = Math.min(minNanos[b], timestampNanos);
+      maxNanos[b] = Math.max(maxNanos[b], timestampNanos);
+    }
+    minTimestampNanos = Math.min(minTimestampNanos, timestampNanos);
+    maxTimestampNanos = Math.max(maxTimestampNanos, timestampNanos);
+    for (int f = 0; f < Field.COUNT; f++) {
+      final float value = values[f];
+      if ((mask >>> f & 1) == 0 || Float.isNaN(value)) {
+        continue;
+      }
+      final int i = b * Field.COUNT + f;
+      if (0 == counts[i]) {
+        mins[i] = value;
+        maxs[i] = value;
+      } else {
+        mins[i] = Math.min(mins[i], value);
+        maxs[i] = Math.max(maxs[i], value);
+      }
+      sums[i] += value;
+      counts[i]++;
+    }
+    records++;
+  }
+
+  private void grow() {
+    final int n = 2 * minNanos.length;
+    minNanos = Arrays.copyOf(minNanos, n);
+    maxNanos = Arrays.copyOf(maxNanos, n);
+    counts = Arrays.copyOf(counts, n * Field.COUNT);
+    mins = Arrays.copyOf(mins, n * Field.COUNT);
+    maxs = Arrays.copyOf(maxs, n * Field.COUNT);
+    sums = Arrays.copyOf(sums, n * Field.COUNT);
+  }
+
+  private int firstBlock(final long fromNanos) {
+    if (!isAscending) {
+      return 0;
+    }
+    int low = 0;
+    int high = blocks;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (maxNanos[mid] < fromNanos) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Adds the values of the given field in the time range of the aggregate.
+   *
+   * @param buffer The segment to decode the records of partially covered blocks.
+   * @param aggregate The aggregate.
+   */
+  void aggregate(final ByteBuffer buffer, final Aggregate aggregate) {
+    final long from = aggregate.getStartNanos();
+    final long to = aggregate.getEndNanos();
+    final int f = aggregate.getField().ordinal();
+    for (int b = firstBlock(from); b < blocks; b++) {
+      if (to <= minNanos[b]) {
+        if (isAscending) {
+          break;
+        }
+        continue;
+      }
+      if (maxNanos[b] < from) {
+        continue;
+      }
+      if (from <= minNanos[b] && maxNanos[b] < to) {
+        final int i = b * Field.COUNT + f;
+        aggregate.merge(counts[i], mins[i], maxs[i], sums[i]);
+        continue;
+      }
+      final int end = Math.min(records, (b + 1) * BLOCK_RECORDS);
+      for (int r = b * BLOCK_RECORDS; r < end; r++) {
+        final int offset = TimeSeriesStore.HEADER_SIZE + r * TimeSeriesStore.RECORD_SIZE;
+        final long timestampNanos = buffer.getLong(offset);
+        if (from <= timestampNanos && timestampNanos < to
+            && (buffer.getInt(offset + TimeSeriesStore.MASK_OFFSET) >>> f & 1) != 0) {
+          final float value = buffer.getFloat(offset + TimeSeriesStore.VALUES_OFFSET + f * Float.BYTES);
+          if (!Float.isNaN(value)) {
+            aggregate.add(value);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks, if a record of the segment may be in the given time range.
+   *
+   * @param fromNanos The inclusive begin.
+   * @param toNanos The exclusive end.
+   * @return False, if no record is in the range.
+   */
+  boolean overlaps(final long fromNanos, final long toNanos) {
+    return minTimestampNanos < toNanos && fromNanos <= maxTimestampNanos;
+  }
+
+  /**
+   * Writes the index into a file, which is forced to the storage device before it is replaced atomically.
+   *
+   * @param path The path of the index file.
+   * @throws IOException if writing failed.
+   */
+  void write(final Path path) throws IOException {
+    final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeShort(Field.COUNT);
+      out.writeInt(BLOCK_RECORDS);
+      out.writeInt(records);
+      out.writeBoolean(isAscending);
+      for (int b = 0; b < blocks; b++) {
+        out.writeLong(minNanos[b]);
+        out.writeLong(maxNanos[b]);
+        for (int i = b * Field.COUNT; i < (b + 1) * Field.COUNT; i++) {
+          out.writeInt(counts[i]);
+          out.writeFloat(mins[i]);
+          out.writeFloat(maxs[i]);
+          out.writeDouble(sums[i]);
+        }
+      }
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads an index from a file written by {@link #write(Path)}.
+   *
+   * @param path The path of the index file.
+   * @return The read index.
+   * @throws IOException if reading failed or the file is no index file of this version.
+   */
+  static SegmentIndex read(final Path path) throws IOException {
+    final long size = Files.size(path);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (MAGIC != in.readInt() || VERSION != in.readShort() || Field.COUNT != in.readShort()
+          || BLOCK_RECORDS != in.readInt()) {
+        throw new IOException(path + " is no index file of version " + VERSION);
+      }
+      final SegmentIndex index = new SegmentIndex();
+      index.records = in.readInt();
+      final long n = ((long) index.records + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+      if (index.records < 0 || size != FILE_HEADER_SIZE + n * FILE_BLOCK_SIZE) {
+        throw new IOException(path + " of " + size + " bytes does not match its amount of records " + index.records);
+      }
+      index.isAscending = in.readBoolean();
+      while (index.minNanos.length < n) {
+        index.grow();
+      }
+      for (int b = 0; b < n; b++) {
+        index.minNanos[b] = in.readLong();
+        index.maxNanos[b] = in.readLong();
+        index.minTimestampNanos = Math.min(index.minTimestampNanos, index.minNanos[b]);
+        index.maxTimestampNanos = Math.max(index.maxTimestampNanos, index.maxNanos[b]);
+        for (int i = b * Field.COUNT; i < (b + 1) * Field.COUNT; i++) {
+          index.counts[i] = in.readInt();
+          index.mins[i] = in.readFloat();
+          index.maxs[i] = in.readFloat();
+          index.sums[i] = in.readDouble();
+        }
+      }
+      index.blocks = (int) n;
+      return index;
+    }
+  }
+
+}
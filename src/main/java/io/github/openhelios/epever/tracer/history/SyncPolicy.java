@@ -0,0 +1,19 @@
+package io.github.openhelios.epever.tracer.history;
+
+/**
+ * Defines, when the appended records of a {@link TimeSeriesStore} are forced to the storage device.
+ */
+public enum SyncPolicy {
+
+  /** The operating system writes the records back at any time, which is the fastest, but records may get lost. */
+  NONE,
+
+  /** The records are forced after the {@link TimeSeriesStore#setSyncInterval(java.time.Duration) sync interval}. */
+  PERIODIC,
+
+  /** Each record is forced before the append returns, which is the slowest, but no record gets lost. */
+  EVERY_RECORD,
+
+  ;
+
+}
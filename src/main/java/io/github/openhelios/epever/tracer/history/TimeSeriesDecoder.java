@@ -0,0 +1,122 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.util.Arrays;
+
+import io.github.openhelios.epever.tracer.history.TimeSeriesStore.RecordVisitor;
+
+/**
+ * Streaming decoder of a block created by {@link TimeSeriesEncoder}. This class is not thread-safe.
+ */
+public final class TimeSeriesDecoder {
+
+  private final BitReader in;
+
+  private final int count;
+
+  private final long[] scaled = new long[Field.COUNT];
+
+  private final float[] values = new float[Field.COUNT];
+
+  private int index;
+
+  private long timestampNanos;
+
+  private long delta;
+
+  private int mask;
+
+  /**
+   * Constructor.
+   *
+   * @param block The block.
+   * @throws IllegalArgumentException if the block is too short.
+   */
+  public TimeSeriesDecoder(final byte[] block) {
+    if (block.length < Integer.BYTES) {
+      throw new IllegalArgumentException("block too short: " + block.length);
+    }
+    count = (block[0] & 0xFF) << 24 | (block[1] & 0xFF) << 16 | (block[2] & 0xFF) << 8 | block[3] & 0xFF;
+    in = new BitReader(block, Integer.BYTES, block.length - Integer.BYTES);
+  }
+
+  /**
+   * The amount of records in the block.
+   *
+   * @return The amount of records.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Checks, if there are further records.
+   *
+   * @return True, if {@link #next(RecordVisitor)} can be called.
+   */
+  public boolean hasNext() {
+    return index < count;
+  }
+
+  private int readPrefix(final int buckets) {
+    int bucket = 0;
+    while (bucket < buckets - 1 && in.readBit()) {
+      bucket++;
+    }
+    return bucket;
+  }
+
+  private long readBucketed(final int[] widths, final int bucket) {
+    return TimeSeriesEncoder.unZigZag(in.readBits(widths[bucket]));
+  }
+
+  /**
+   * Decodes the next record.
+   *
+   * @param visitor The visitor getting the record. The values of fields, which are not present, are {@link Float#NaN},
+   *          and the array is reused for the next record.
+   * @throws IllegalStateException if there is no further record or the block is corrupt.
+   */
+  public void next(final RecordVisitor visitor) {
+    if (!hasNext()) {
+      throw new IllegalStateException("no further record");
+    }
+    if (0 == index) {
+      timestampNanos = in.readBits(64);
+    } else {
+      final int[] widths = TimeSeriesEncoder.TIMESTAMP_WIDTHS;
+      delta += readBucketed(widths, readPrefix(widths.length));
+      timestampNanos += delta;
+    }
+    if (in.readBit()) {
+      mask = (int) in.readBits(Field.COUNT);
+    }
+    Arrays.fill(values, Float.NaN);
+    final int[] widths = TimeSeriesEncoder.VALUE_WIDTHS;
+    for (int f = 0; f < Field.COUNT; f++) {
+      if ((mask >>> f & 1) != 0) {
+        final int bucket = readPrefix(widths.length);
+        if (bucket == widths.length - 1) {
+          values[f] = Float.intBitsToFloat((int) in.readBits(32));
+        } else {
+          scaled[f] += readBucketed(widths, bucket);
+          values[f] = (float) scaled[f] / TimeSeriesEncoder.divisor(f);
+        }
+      }
+    }
+    index++;
+    visitor.visit(timestampNanos, mask, values);
+  }
+
+  /**
+   * Decodes all remaining records.
+   *
+   * @param visitor The visitor getting the records.
+   * @throws IllegalStateException if the block is corrupt.
+   */
+  public void forEachRemaining(final RecordVisitor visitor) {
+    while (hasNext()) {
+      next(visitor);
+    }
+  }
+
+}
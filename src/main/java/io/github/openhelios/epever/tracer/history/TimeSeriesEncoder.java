@@ -0,0 +1,162 @@
+package io.github.openhelios.epever.tracer.history;
+
+import io.github.openhelios.epever.tracer.history.TimeSeriesStore.RecordVisitor;
+
+/**
+ * Streaming encoder compressing records into a block, which is decoded by {@link TimeSeriesDecoder}. The encoding is
+ * lossless and in the style of Gorilla: the timestamps are encoded as delta of deltas, which takes one bit for a
+ * constant poll rate. The values are encoded as delta of the integers scaled by the {@link Field#register() register}
+ * scaling, because the values of the devices are steps of 0.01, so a slowly changing value takes a few bits. A value,
+ * which is not exactly such a step, is stored as raw float. The fields of a record are only encoded, if they are
+ * present in its mask, and an unchanged mask takes one bit. This class is not thread-safe.
+ */
+public final class TimeSeriesEncoder implements RecordVisitor {
+
+  /** The bit widths of the buckets for the delta of deltas of the timestamps after the prefix bits. */
+  static final int[] TIMESTAMP_WIDTHS = { 0, 7, 14, 24, 34, 64 };
+
+  /** The bit widths of the buckets for the delta of the scaled values; the last prefix is for a raw float. */
+  static final int[] VALUE_WIDTHS = { 0, 7, 12, 26, 32 };
+
+  /** The maximum absolute scaled value, which can be converted to float without loss. */
+  static final long MAX_SCALED = 1 << 24;
+
+  private static final int[] DIVISORS = new int[Field.COUNT];
+
+  static {
+    for (final Field field : Field.values()) {
+      DIVISORS[field.ordinal()] = Math.round(1 / field.register().scale());
+    }
+  }
+
+  private final BitWriter out = new BitWriter();
+
+  private final long[] scaled = new long[Field.COUNT];
+
+  private int count;
+
+  private long timestampNanos;
+
+  private long delta;
+
+  private int mask;
+
+  /**
+   * Constructor for an empty block.
+   */
+  public TimeSeriesEncoder() {
+    // the timestamp of the first record is written in full
+  }
+
+  static int divisor(final int field) {
+    return DIVISORS[field];
+  }
+
+  static long zigZag(final long value) {
+    return value << 1 ^ value >> 63;
+  }
+
+  static long unZigZag(final long value) {
+    return value >>> 1 ^ -(value & 1);
+  }
+
+  private boolean writeBucketed(final long value, final int[] widths, final int buckets) {
+    final long zigZag = zigZag(value);
+    for (int i = 0; i < buckets; i++) {
+      if (64 == widths[i] || zigZag >>> widths[i] == 0) {
+        writePrefix(i, widths.length);
+        out.writeBits(zigZag, widths[i]);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writePrefix(final int bucket, final int buckets) {
+    out.writeBits(-1L, bucket);
+    if (bucket < buckets - 1) {
+      out.writeBit(false);
+    }
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param t The nanoseconds since 1970-01-01T00:00:00Z.
+   * @param m The bit mask of the present fields, see {@link Field#bit()}.
+   * @param values The value of each field indexed by {@link Field#ordinal()}.
+   */
+  @Override
+  public void visit(final long t, final int m, final float[] values) {
+    if (0 == count) {
+      out.writeBits(t, 64);
+    } else {
+      final long d = t - timestampNanos;
+      writeBucketed(d - delta, TIMESTAMP_WIDTHS, TIMESTAMP_WIDTHS.length);
+      delta = d;
+    }
+    timestampNanos = t;
+    if (m == mask) {
+      out.writeBit(false);
+    } else {
+      out.writeBit(true);
+      out.writeBits(m, Field.COUNT);
+      mask = m;
+    }
+    for (int f = 0; f < Field.COUNT; f++) {
+      if ((m >>> f & 1) != 0) {
+        writeValue(f, values[f]);
+      }
+    }
+    count++;
+  }
+
+  private void writeValue(final int field, final float value) {
+    final int divisor = DIVISORS[field];
+    final long s = Math.round((double) value * divisor);
+    if (-MAX_SCALED < s && s < MAX_SCALED
+        && Float.floatToRawIntBits(value) == Float.floatToRawIntBits((float) s / divisor)
+        && writeBucketed(s - scaled[field], VALUE_WIDTHS, VALUE_WIDTHS.length - 1)) {
+      scaled[field] = s;
+      return;
+    }
+    writePrefix(VALUE_WIDTHS.length - 1, VALUE_WIDTHS.length);
+    out.writeBits(Float.floatToRawIntBits(value), 32);
+  }
+
+  /**
+   * The amount of appended records.
+   *
+   * @return The amount of records.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * The size of the encoded block.
+   *
+   * @return The size in bytes of the block returned by {@link #toByteArray()}.
+   */
+  public int byteSize() {
+    return Integer.BYTES + (int) ((out.bitLength() + 7) >>> 3);
+  }
+
+  /**
+   * Gets the encoded block with the amount of records followed by the bit stream. Further records can be appended
+   * afterwards.
+   *
+   * @return The new block.
+   */
+  public byte[] toByteArray() {
+    final byte[] bits = out.toByteArray();
+    final byte[] block = new byte[Integer.BYTES + bits.length];
+    block[0] = (byte) (count >>> 24);
+    block[1] = (byte) (count >>> 16);
+    block[2] = (byte) (count >>> 8);
+    block[3] = (byte) count;
+    System.arraycopy(bits, 0, block, Integer.BYTES, bits.length);
+    return block;
+  }
+
+}
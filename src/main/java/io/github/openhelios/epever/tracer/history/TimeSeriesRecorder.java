@@ -0,0 +1,108 @@
+package io.github.openhelios.epever.tracer.history;
+
+import io.github.openhelios.epever.tracer.Tracer3210ANListener;
+import io.github.openhelios.epever.tracer.history.TimeSeriesStore.RecordVisitor;
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.telemetry.TelemetrySample;
+
+/**
+ * Listener appending the actual values of one device to a {@link TimeSeriesStore} or passing them to another
+ * {@link RecordVisitor}, e.g. a {@link RollupEngine}. The fields of {@link
+ * ActualArrayBattery}, {@link ActualLoadTemperature} and {@link ActualBatterySocRemoteTemperature} received in one poll
+ * are collected into one record, which is appended as soon as all three responses have been received. A poll reading
+ * only some of them is appended, when a response with already collected fields is received, or by {@link #flush()}.
+ * The timestamp of a record is the time of its first response.
+ */
+public final class TimeSeriesRecorder implements Tracer3210ANListener {
+
+  private static final int ARRAY_BATTERY_MASK = Field.ARRAY_VOLTAGE.bit() | Field.ARRAY_CURRENT.bit()
+      | Field.ARRAY_POWER.bit() | Field.BATTERY_VOLTAGE.bit() | Field.BATTERY_CURRENT.bit() | Field.BATTERY_POWER.bit();
+
+  private static final int LOAD_TEMPERATURE_MASK = Field.LOAD_VOLTAGE.bit() | Field.LOAD_CURRENT.bit()
+      | Field.LOAD_POWER.bit() | Field.BATTERY_TEMPERATURE.bit() | Field.INSIDE_TEMPERATURE.bit()
+      | Field.POWER_COMPONENTS_TEMPERATURE.bit();
+
+  private static final int SOC_REMOTE_TEMPERATURE_MASK =
+      Field.BATTERY_SOC.bit() | Field.REMOTE_BATTERY_TEMPERATURE.bit();
+
+  private static final int ALL_MASK = ARRAY_BATTERY_MASK | LOAD_TEMPERATURE_MASK | SOC_REMOTE_TEMPERATURE_MASK;
+
+  private final RecordVisitor visitor;
+
+  private final float[] values = new float[Field.COUNT];
+
+  private int mask;
+
+  private long timestampNanos;
+
+  /**
+   * Constructor.
+   *
+   * @param store The store to append the records to, which is not closed by this recorder.
+   */
+  public TimeSeriesRecorder(final TimeSeriesStore store) {
+    this(store::append);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param visitor The visitor receiving the records, e.g. a {@link RollupEngine} or several visitors combined by
+   *          {@link RecordVisitor#andThen(RecordVisitor)}.
+   */
+  public TimeSeriesRecorder(final RecordVisitor visitor) {
+    this.visitor = visitor;
+  }
+
+  @Override
+  public synchronized void onMessage(final Response response) {
+    if (response instanceof final ActualArrayBattery r) {
+      begin(ARRAY_BATTERY_MASK);
+      values[Field.ARRAY_VOLTAGE.ordinal()] = r.array().voltageInV();
+      values[Field.ARRAY_CURRENT.ordinal()] = r.array().currentInA();
+      values[Field.ARRAY_POWER.ordinal()] = (float) r.array().powerInW();
+      values[Field.BATTERY_VOLTAGE.ordinal()] = r.battery().voltageInV();
+      values[Field.BATTERY_CURRENT.ordinal()] = r.battery().currentInA();
+      values[Field.BATTERY_POWER.ordinal()] = (float) r.battery().powerInW();
+    } else if (response instanceof final ActualLoadTemperature r) {
+      begin(LOAD_TEMPERATURE_MASK);
+      values[Field.LOAD_VOLTAGE.ordinal()] = r.load().voltageInV();
+      values[Field.LOAD_CURRENT.ordinal()] = r.load().currentInA();
+      values[Field.LOAD_POWER.ordinal()] = (float) r.load().powerInW();
+      values[Field.BATTERY_TEMPERATURE.ordinal()] = r.batteryTemperatureInC();
+      values[Field.INSIDE_TEMPERATURE.ordinal()] = r.insideTemperatureInC();
+      values[Field.POWER_COMPONENTS_TEMPERATURE.ordinal()] = r.powerComponentsTemperatureInC();
+    } else if (response instanceof final ActualBatterySocRemoteTemperature r) {
+      begin(SOC_REMOTE_TEMPERATURE_MASK);
+      values[Field.BATTERY_SOC.ordinal()] = r.socInPercent();
+      values[Field.REMOTE_BATTERY_TEMPERATURE.ordinal()] = r.remoteTemperatureInC();
+    }
+    if (ALL_MASK == mask) {
+      flush();
+    }
+  }
+
+  private void begin(final int fields) {
+    if (0 != (mask & fields)) {
+      flush();
+    }
+    if (0 == mask) {
+      timestampNanos = TelemetrySample.nowNanos();
+    }
+    mask |= fields;
+  }
+
+  /**
+   * Appends the collected fields as record, if any.
+   */
+  public synchronized void flush() {
+    if (0 != mask) {
+      visitor.visit(timestampNanos, mask, values);
+      mask = 0;
+    }
+  }
+
+}
@@ -0,0 +1,632 @@
+package io.github.openhelios.epever.tracer.history;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only store of fixed-width binary records in segmented, memory-mapped files. Each record holds a timestamp,
+ * a bit mask of the present {@link Field fields} and the value of each field, and it is protected by a CRC-32C.
+ * A segment file has a header and room for a fixed amount of records; a new segment is started, when the current one
+ * is full. After a crash the last segment is scanned on opening, and the appending continues after the last valid
+ * record, so a torn record is overwritten. Each segment has a sparse index with the minimum, maximum and sum of each
+ * field per block of records, which answers {@link #aggregate(Field, long, long) aggregates} without decoding most
+ * records; the index of a full segment is stored in a file with the extension {@code .idx}. This class is thread-safe.
+ */
+public final class TimeSeriesStore implements AutoCloseable {
+
+  /**
+   * Visitor for the records of a scan.
+   */
+  public interface RecordVisitor {
+
+    /**
+     * Visits one record.
+     *
+     * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+     * @param mask The bit mask of the present fields, see {@link Field#bit()}.
+     * @param values The value of each field indexed by {@link Field#ordinal()}, or {@link Float#NaN}, if it is not
+     *          present. The array is reused for the next record.
+     */
+    void visit(long timestampNanos, int mask, float[] values);
+
+    /**
+     * Combines this visitor with the given visitor.
+     *
+     * @param after The visitor visiting each record after this visitor.
+     * @return The combined visitor.
+     */
+    default RecordVisitor andThen(final RecordVisitor after) {
+      return (timestampNanos, mask, values) -> {
+        visit(timestampNanos, mask, values);
+        after.visit(timestampNanos, mask, values);
+      };
+    }
+
+  }
+
+  /** The magic number at the begin of each segment file. */
+  public static final int MAGIC = 0x45505453;
+
+  /** The version of the file format. */
+  public static final short VERSION = 1;
+
+  /** The size of the segment header in bytes. */
+  public static final int HEADER_SIZE = 64;
+
+  /** The size of a record in bytes: timestamp, mask, fields and checksum. */
+  public static final int RECORD_SIZE = Long.BYTES + Integer.BYTES + Field.COUNT * Float.BYTES + Integer.BYTES;
+
+  /** The default amount of records per segment, which are about 12 days at a rate of 1 Hz. */
+  public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+  /** The file name extension of a segment. */
+  public static final String SEGMENT_SUFFIX = ".seg";
+
+  /** The maximum amount of time ranges of one aggregate query. */
+  public static final int MAX_AGGREGATES = 1 << 20;
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesStore.class);
+
+  static final int MASK_OFFSET = Long.BYTES;
+
+  static final int VALUES_OFFSET = MASK_OFFSET + Integer.BYTES;
+
+  private static final int CHECKSUM_OFFSET = RECORD_SIZE - Integer.BYTES;
+
+  private final Path directory;
+
+  private final int segmentRecords;
+
+  private final byte[] record = new byte[RECORD_SIZE];
+
+  private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+
+  private final CRC32C crc = new CRC32C();
+
+  private SyncPolicy syncPolicy = SyncPolicy.PERIODIC;
+
+  private Duration syncInterval = Duration.ofSeconds(1);
+
+  private long lastSyncNanos = System.nanoTime();
+
+  private int sequence;
+
+  @Nullable
+  private FileChannel channel;
+
+  @Nullable
+  private MappedByteBuffer segment;
+
+  private int capacity;
+
+  private int count;
+
+  private int syncedCount;
+
+  private SegmentIndex index = new SegmentIndex();
+
+  private final Map<Integer, SegmentIndex> indexes = new HashMap<>();
+
+  /**
+   * Opens the store in the given directory with {@value #DEFAULT_SEGMENT_RECORDS} records per new segment.
+   *
+   * @param directory The directory, which is created, if it does not exist.
+   * @throws UncheckedIOException if the store could not be opened.
+   * @throws IllegalStateException if a segment is not a valid segment file.
+   */
+  public TimeSeriesStore(final Path directory) {
+    this(directory, DEFAULT_SEGMENT_RECORDS);
+  }
+
+  /**
+   * Opens the store in the given directory.
+   *
+   * @param directory The directory, which is created, if it does not exist.
+   * @param segmentRecords The amount of records per new segment.
+   * @throws IllegalArgumentException if the amount of records is not positive.
+   * @throws UncheckedIOException if the store could not be opened.
+   * @throws IllegalStateException if a segment is not a valid segment file.
+   */
+  public TimeSeriesStore(final Path directory, final int segmentRecords) {
+    if (segmentRecords < 1) {
+      throw new IllegalArgumentException("segmentRecords must be positive, but was " + segmentRecords);
+    }
+    this.directory = directory;
+    this.segmentRecords = segmentRecords;
+    try {
+      Files.createDirectories(directory);
+      final List<Path> segments = getSegments();
+      if (segments.isEmpty()) {
+        createSegment(0);
+      } else {
+        final Path last = segments.get(segments.size() - 1);
+        openSegment(last, sequenceOf(last));
+        recoverTail();
+        index = SegmentIndex.build(requireSegment(), count);
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to open store in " + directory, e);
+    }
+  }
+
+  private static int sequenceOf(final Path path) {
+    final String name = path.getFileName().toString();
+    return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private static void checkHeader(final Path path, final ByteBuffer buffer) {
+    if (buffer.capacity() < HEADER_SIZE || MAGIC != buffer.getInt(0) || VERSION != buffer.getShort(4)
+        || Field.COUNT != buffer.getShort(6) || RECORD_SIZE != buffer.getInt(8)) {
+      throw new IllegalStateException(path + " is no segment file of version " + VERSION);
+    }
+  }
+
+  private Path pathOf(final int seq) {
+    return directory.resolve(String.format("%08d%s", seq, SEGMENT_SUFFIX));
+  }
+
+  private Path indexPathOf(final int seq) {
+    return directory.resolve(String.format("%08d%s", seq, SegmentIndex.INDEX_SUFFIX));
+  }
+
+  private void createSegment(final int seq) throws IOException {
+    final FileChannel newChannel = FileChannel.open(pathOf(seq), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    final MappedByteBuffer buffer =
+        newChannel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + (long) segmentRecords * RECORD_SIZE);
+    writeHeader(buffer, segmentRecords);
+    channel = newChannel;
+    segment = buffer;
+    sequence = seq;
+    capacity = segmentRecords;
+    count = 0;
+    syncedCount = 0;
+    index = new SegmentIndex();
+  }
+
+  private static void writeHeader(final MappedByteBuffer buffer, final int records) {
+    buffer.putInt(0, MAGIC);
+    buffer.putShort(4, VERSION);
+    buffer.putShort(6, (short) Field.COUNT);
+    buffer.putInt(8, RECORD_SIZE);
+    buffer.putInt(12, records);
+    buffer.force(0, HEADER_SIZE);
+  }
+
+  private void openSegment(final Path path, final int seq) throws IOException {
+    final FileChannel newChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    final long size = newChannel.size();
+    final MappedByteBuffer buffer;
+    if (size < HEADER_SIZE) {
+      // crashed after creating the segment, but before it has been mapped
+      LOG.warn("reinitializing incomplete segment {} of {} bytes", path, size);
+      buffer = newChannel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + (long) segmentRecords * RECORD_SIZE);
+      buffer.put(0, new byte[HEADER_SIZE]);
+      writeHeader(buffer, segmentRecords);
+    } else {
+      buffer = newChannel.map(MapMode.READ_WRITE, 0, size);
+      if (HEADER_SIZE < buffer.capacity() && 0 == buffer.getInt(0)) {
+        // crashed after creating the segment, but before its header has been written back
+        writeHeader(buffer, (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE);
+      }
+    }
+    checkHeader(path, buffer);
+    channel = newChannel;
+    segment = buffer;
+    sequence = seq;
+    capacity = recordsOf(buffer);
+  }
+
+  private void recoverTail() {
+    final MappedByteBuffer buffer = requireSegment();
+    count = countValid(buffer, capacity);
+    syncedCount = count;
+    // the records after a torn record may still be valid, so they are discarded up to the last non-zero record
+    int end = capacity;
+    while (count < end && isZero(buffer, HEADER_SIZE + (end - 1) * RECORD_SIZE)) {
+      end--;
+    }
+    if (count < end) {
+      LOG.warn("discarding torn records {} to {} in {}", count, end - 1, pathOf(sequence));
+      final byte[] zero = new byte[RECORD_SIZE];
+      for (int i = count; i < end; i++) {
+        buffer.put(HEADER_SIZE + i * RECORD_SIZE, zero);
+      }
+      buffer.force(HEADER_SIZE + count * RECORD_SIZE, (end - count) * RECORD_SIZE);
+    }
+  }
+
+  private static boolean isZero(final ByteBuffer buffer, final int offset) {
+    for (int i = 0; i < RECORD_SIZE; i++) {
+      if (0 != buffer.get(offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int countValid(final ByteBuffer buffer, final int maxRecords) {
+    int i = 0;
+    while (i < maxRecords && isValid(buffer, HEADER_SIZE + i * RECORD_SIZE)) {
+      i++;
+    }
+    return i;
+  }
+
+  private boolean isValid(final ByteBuffer buffer, final int offset) {
+    buffer.get(offset, record);
+    crc.reset();
+    crc.update(record, 0, CHECKSUM_OFFSET);
+    return (int) crc.getValue() == recordBuffer.getInt(CHECKSUM_OFFSET);
+  }
+
+  private MappedByteBuffer requireSegment() {
+    final MappedByteBuffer buffer = segment;
+    if (null == buffer) {
+      throw new IllegalStateException("store in " + directory + " is closed");
+    }
+    return buffer;
+  }
+
+  /**
+   * The directory of the segment files.
+   *
+   * @return The directory.
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets the segment files in the order of their creation.
+   *
+   * @return The paths of the segment files.
+   * @throws IOException if the directory could not be listed.
+   */
+  public List<Path> getSegments() throws IOException {
+    try (Stream<Path> stream = Files.list(directory)) {
+      return stream.filter(path -> path.getFileName().toString().matches("\\d{8}\\" + SEGMENT_SUFFIX)).sorted()
+          .toList();
+    }
+  }
+
+  /**
+   * Gets the policy to force the appended records to the storage device.
+   *
+   * @return The sync policy.
+   */
+  public synchronized SyncPolicy getSyncPolicy() {
+    return syncPolicy;
+  }
+
+  /**
+   * Sets the policy to force the appended records to the storage device. The default is {@link SyncPolicy#PERIODIC}.
+   *
+   * @param syncPolicy The sync policy.
+   */
+  public synchronized void setSyncPolicy(final SyncPolicy syncPolicy) {
+    this.syncPolicy = syncPolicy;
+  }
+
+  /**
+   * Gets the interval to force the appended records for {@link SyncPolicy#PERIODIC}.
+   *
+   * @return The sync interval.
+   */
+  public synchronized Duration getSyncInterval() {
+    return syncInterval;
+  }
+
+  /**
+   * Sets the interval to force the appended records for {@link SyncPolicy#PERIODIC}. The default is 1 s.
+   *
+   * @param syncInterval The sync interval.
+   */
+  public synchronized void setSyncInterval(final Duration syncInterval) {
+    this.syncInterval = syncInterval;
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   * @param mask The bit mask of the present fields, see {@link Field#bit()}.
+   * @param values The value of each field indexed by {@link Field#ordinal()}; the values of fields not present in the
+   *          mask are ignored.
+   * @throws IllegalStateException if the store is closed.
+   * @throws UncheckedIOException if a new segment could not be created.
+   */
+  public synchronized void append(final long timestampNanos, final int mask, final float[] values) {
+    requireSegment();
+    if (count == capacity) {
+      rollOver();
+    }
+    recordBuffer.putLong(0, timestampNanos);
+    recordBuffer.putInt(MASK_OFFSET, mask);
+    for (int i = 0; i < Field.COUNT; i++) {
+      recordBuffer.putFloat(VALUES_OFFSET + i * Float.BYTES, (mask >>> i & 1) != 0 ? values[i] : Float.NaN);
+    }
+    crc.reset();
+    crc.update(record, 0, CHECKSUM_OFFSET);
+    recordBuffer.putInt(CHECKSUM_OFFSET, (int) crc.getValue());
+    final MappedByteBuffer buffer = requireSegment();
+    buffer.put(HEADER_SIZE + count * RECORD_SIZE, record);
+    index.add(timestampNanos, mask, values);
+    count++;
+    switch (syncPolicy) {
+      case EVERY_RECORD -> sync();
+      case PERIODIC -> {
+        if (System.nanoTime() - lastSyncNanos >= syncInterval.toNanos()) {
+          sync();
+        }
+      }
+      case NONE -> {
+        // the operating system writes back the pages
+      }
+    }
+  }
+
+  /**
+   * Forces all appended records to the storage device.
+   *
+   * @throws IllegalStateException if the store is closed.
+   */
+  public synchronized void sync() {
+    final MappedByteBuffer buffer = requireSegment();
+    if (syncedCount < count) {
+      buffer.force(HEADER_SIZE + syncedCount * RECORD_SIZE, (count - syncedCount) * RECORD_SIZE);
+      syncedCount = count;
+    }
+    lastSyncNanos = System.nanoTime();
+  }
+
+  private void rollOver() {
+    sync();
+    indexes.put(sequence, index);
+    try {
+      index.write(indexPathOf(sequence));
+    } catch (final IOException e) {
+      LOG.warn("failed to write index of {}, which will be rebuilt", pathOf(sequence), e);
+    }
+    closeSegment();
+    try {
+      createSegment(sequence + 1);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to create segment " + pathOf(sequence + 1), e);
+    }
+    LOG.debug("rolled over to {}", pathOf(sequence));
+  }
+
+  private void closeSegment() {
+    final FileChannel c = channel;
+    channel = null;
+    segment = null;
+    if (null != c) {
+      try {
+        c.close();
+      } catch (final IOException e) {
+        LOG.warn("failed to close segment {}", pathOf(sequence), e);
+      }
+    }
+  }
+
+  /**
+   * Visits all valid records with a timestamp in the given range in the order of appending.
+   *
+   * @param fromNanos The inclusive begin in nanoseconds since 1970-01-01T00:00:00Z.
+   * @param toNanos The exclusive end in nanoseconds since 1970-01-01T00:00:00Z.
+   * @param visitor The visitor.
+   * @throws IllegalStateException if the store is closed.
+   * @throws UncheckedIOException if a segment could not be read.
+   */
+  public synchronized void scan(final long fromNanos, final long toNanos, final RecordVisitor visitor) {
+    final MappedByteBuffer current = requireSegment();
+    final float[] values = new float[Field.COUNT];
+    try {
+      for (final Path path : getSegments()) {
+        final int seq = sequenceOf(path);
+        if (seq == sequence) {
+          scan(current, count, fromNanos, toNanos, visitor, values);
+        } else if (seq < sequence) {
+          try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = c.map(MapMode.READ_ONLY, 0, c.size());
+            checkHeader(path, buffer);
+            scan(buffer, countValid(buffer, recordsOf(buffer)), fromNanos, toNanos, visitor, values);
+          }
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to scan store in " + directory, e);
+    }
+  }
+
+  private static void scan(final ByteBuffer buffer, final int records, final long fromNanos, final long toNanos,
+      final RecordVisitor visitor, final float[] values) {
+    for (int i = 0; i < records; i++) {
+      final int offset = HEADER_SIZE + i * RECORD_SIZE;
+      final long timestampNanos = buffer.getLong(offset);
+      if (fromNanos <= timestampNanos && timestampNanos < toNanos) {
+        for (int f = 0; f < Field.COUNT; f++) {
+          values[f] = buffer.getFloat(offset + VALUES_OFFSET + f * Float.BYTES);
+        }
+        visitor.visit(timestampNanos, buffer.getInt(offset + MASK_OFFSET), values);
+      }
+    }
+  }
+
+  /**
+   * Aggregates the values of the given field with a timestamp in the given range. The aggregates of the blocks of 1024
+   * records completely inside the range are taken from the index, so only the records at the borders of the range are
+   * decoded. A full segment outside the range is skipped by the time range of its index without opening it.
+   *
+   * @param field The field.
+   * @param fromNanos The inclusive begin in nanoseconds since 1970-01-01T00:00:00Z.
+   * @param toNanos The exclusive end in nanoseconds since 1970-01-01T00:00:00Z.
+   * @return The aggregate.
+   * @throws IllegalStateException if the store is closed.
+   * @throws UncheckedIOException if a segment could not be read.
+   */
+  public synchronized Aggregate aggregate(final Field field, final long fromNanos, final long toNanos) {
+    final Aggregate aggregate = new Aggregate(field, fromNanos, toNanos);
+    aggregate(new Aggregate[] { aggregate });
+    return aggregate;
+  }
+
+  /**
+   * Aggregates the values of the given field per step in the given range, e.g. the average power per hour of a month.
+   *
+   * @param field The field.
+   * @param fromNanos The inclusive begin of the first step in nanoseconds since 1970-01-01T00:00:00Z.
+   * @param toNanos The exclusive end of the last step in nanoseconds since 1970-01-01T00:00:00Z, which shortens the
+   *          last step.
+   * @param step The length of each time range.
+   * @return The aggregate of each step in ascending order.
+   * @throws IllegalArgumentException if the step is not positive or there are more than {@value #MAX_AGGREGATES}
+   *           steps.
+   * @throws IllegalStateException if the store is closed.
+   * @throws UncheckedIOException if a segment could not be read.
+   */
+  public synchronized List<Aggregate> aggregate(final Field field, final long fromNanos, final long toNanos,
+      final Duration step) {
+    final long stepNanos = step.toNanos();
+    if (stepNanos <= 0) {
+      throw new IllegalArgumentException("step must be positive, but was " + step);
+    }
+    if (toNanos <= fromNanos) {
+      return List.of();
+    }
+    final long n = Long.divideUnsigned(toNanos - fromNanos - 1, stepNanos) + 1;
+    if (MAX_AGGREGATES < n) {
+      throw new IllegalArgumentException(n + " steps of " + step + " exceed the maximum of " + MAX_AGGREGATES);
+    }
+    final Aggregate[] aggregates = new Aggregate[(int) n];
+    for (int i = 0; i < n; i++) {
+      final long start = fromNanos + i * stepNanos;
+      aggregates[i] = new Aggregate(field, start, n - 1 == i ? toNanos : start + stepNanos);
+    }
+    aggregate(aggregates);
+    return Arrays.asList(aggregates);
+  }
+
+  private void aggregate(final Aggregate[] aggregates) {
+    final MappedByteBuffer current = requireSegment();
+    try {
+      for (final Path path : getSegments()) {
+        final int seq = sequenceOf(path);
+        if (seq == sequence) {
+          aggregate(index, current, aggregates);
+        } else if (seq < sequence) {
+          final SegmentIndex cached = readIndex(seq);
+          if (null != cached && !overlaps(cached, aggregates)) {
+            continue; // skipped without opening the segment
+          }
+          try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = c.map(MapMode.READ_ONLY, 0, c.size());
+            checkHeader(path, buffer);
+            final SegmentIndex segmentIndex;
+            if (null == cached || recordsOf(buffer) < cached.records()) {
+              segmentIndex = buildIndex(seq, buffer);
+            } else {
+              segmentIndex = cached;
+            }
+            aggregate(segmentIndex, buffer, aggregates);
+          }
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException("failed to aggregate store in " + directory, e);
+    }
+  }
+
+  private static void aggregate(final SegmentIndex segmentIndex, final ByteBuffer buffer,
+      final Aggregate[] aggregates) {
+    for (final Aggregate aggregate : aggregates) {
+      if (segmentIndex.overlaps(aggregate.getStartNanos(), aggregate.getEndNanos())) {
+        segmentIndex.aggregate(buffer, aggregate);
+      }
+    }
+  }
+
+  private static boolean overlaps(final SegmentIndex segmentIndex, final Aggregate[] aggregates) {
+    for (final Aggregate aggregate : aggregates) {
+      if (segmentIndex.overlaps(aggregate.getStartNanos(), aggregate.getEndNanos())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int recordsOf(final ByteBuffer buffer) {
+    return Math.min(buffer.getInt(12), (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE);
+  }
+
+  @Nullable
+  private SegmentIndex readIndex(final int seq) {
+    final SegmentIndex cached = indexes.get(seq);
+    if (null != cached) {
+      return cached;
+    }
+    final Path path = indexPathOf(seq);
+    if (Files.exists(path)) {
+      try {
+        final SegmentIndex read = SegmentIndex.read(path);
+        indexes.put(seq, read);
+        return read;
+      } catch (final IOException e) {
+        LOG.warn("rebuilding invalid index {}", path, e);
+      }
+    }
+    return null;
+  }
+
+  private SegmentIndex buildIndex(final int seq, final ByteBuffer buffer) {
+    final Path path = indexPathOf(seq);
+    final SegmentIndex built = SegmentIndex.build(buffer, countValid(buffer, recordsOf(buffer)));
+    try {
+      built.write(path);
+    } catch (final IOException e) {
+      LOG.warn("failed to write index {}", path, e);
+    }
+    indexes.put(seq, built);
+    return built;
+  }
+
+  /**
+   * The amount of records in the current segment.
+   *
+   * @return The amount of appended records since the begin of the current segment.
+   */
+  public synchronized int getSegmentRecordCount() {
+    return count;
+  }
+
+  /**
+   * Forces all appended records to the storage device and closes the current segment.
+   */
+  @Override
+  public synchronized void close() {
+    if (null != segment) {
+      sync();
+      closeSegment();
+    }
+  }
+
+}
@@ -1,17 +1,52 @@
 package io.github.openhelios.epever.tracer.protocol;
 
+import java.time.Duration;
+
+import org.jspecify.annotations.Nullable;
+
 /**
- * The baud rate command.
+ * The baud rate of a serial line and the Modbus RTU timing derived from it.
  */
 public enum BaudRate {
 
-  /** 1192500 bits per second. */
-  BPS_1192500(4),
+  /** 9600 bits per second. */
+  BPS_9600(0, 9600),
+
+  /** 19200 bits per second. */
+  BPS_19200(1, 19200),
+
+  /** 38400 bits per second. */
+  BPS_38400(2, 38400),
+
+  /** 57600 bits per second. */
+  BPS_57600(3, 57600),
+
+  /** 115200 bits per second, which is the fixed baud rate of the Tracer 3210AN. */
+  BPS_115200(4, 115200),
 
   ;
 
+  /** The bits per character: 1 start bit, 8 data bits, no parity and 1 stop bit. */
+  public static final int BITS_PER_CHARACTER = 10;
+
+  /** Above this baud rate the Modbus specification uses fixed inter-character and inter-frame times. */
+  private static final int FIXED_TIMING_ABOVE_BPS = 19200;
+
+  private static final long FIXED_INTER_CHARACTER_TIMEOUT_NANOS = 750_000;
+
+  private static final long FIXED_SILENT_INTERVAL_NANOS = 1_750_000;
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
   private final byte b;
 
+  private final int bitsPerSecond;
+
+  BaudRate(final int index, final int bitsPerSecond) {
+    b = (byte) (index + 1);
+    this.bitsPerSecond = bitsPerSecond;
+  }
+
   /**
    * The byte.
    *
@@ -21,8 +56,65 @@ public enum BaudRate {
     return b;
   }
 
-  BaudRate(final int index) {
-    b = (byte) (index + 1);
+  /**
+   * The line speed.
+   *
+   * @return The bits per second.
+   */
+  public int bitsPerSecond() {
+    return bitsPerSecond;
+  }
+
+  /**
+   * The time to transmit the given amount of bytes.
+   *
+   * @param byteCount The amount of bytes.
+   * @return The transmission time.
+   */
+  public Duration transmissionTime(final int byteCount) {
+    return Duration.ofNanos(byteCount * BITS_PER_CHARACTER * NANOS_PER_SECOND / bitsPerSecond);
+  }
+
+  /**
+   * The maximum silent time between two characters of a frame (t1.5), which is 1.5 character times or 750
+   * microseconds above 19200 baud.
+   *
+   * @return The inter-character timeout.
+   */
+  public Duration interCharacterTimeout() {
+    if (FIXED_TIMING_ABOVE_BPS < bitsPerSecond) {
+      return Duration.ofNanos(FIXED_INTER_CHARACTER_TIMEOUT_NANOS);
+    }
+    return Duration.ofNanos(3 * BITS_PER_CHARACTER * NANOS_PER_SECOND / (2 * bitsPerSecond));
+  }
+
+  /**
+   * The minimum silent time between two frames (t3.5), which is 3.5 character times or 1750 microseconds above 19200
+   * baud.
+   *
+   * @return The silent interval.
+   */
+  public Duration silentInterval() {
+    if (FIXED_TIMING_ABOVE_BPS < bitsPerSecond) {
+      return Duration.ofNanos(FIXED_SILENT_INTERVAL_NANOS);
+    }
+    return Duration.ofNanos(7 * BITS_PER_CHARACTER * NANOS_PER_SECOND / (2 * bitsPerSecond));
+  }
+
+  /**
+   * Finds the baud rate with the given line speed.
+   *
+   * @param bitsPerSecond The bits per second.
+   * @return The baud rate or null, if not supported.
+   */
+  @Nullable
+  public static BaudRate findByBitsPerSecond(final int bitsPerSecond) {
+    for (final BaudRate baudRate : values()) {
+      if (baudRate.bitsPerSecond == bitsPerSecond) {
+        return baudRate;
+      }
+    }
+    return null;
   }
 
 }
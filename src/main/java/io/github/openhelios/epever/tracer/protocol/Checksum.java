@@ -1,9 +1,18 @@
 package io.github.openhelios.epever.tracer.protocol;
 
+import java.nio.ByteBuffer;
+
 import org.jspecify.annotations.Nullable;
 
 /**
- * Utility class to generate and check the checksum, which is CRC.
+ * Utility class to generate and check the checksum, which is CRC-16/Modbus. The checksum is calculated byte by byte
+ * with a lookup table and can be updated incrementally, e.g. while the bytes of a frame arrive:
+ *
+ * <pre>
+ * int crc = Checksum.INITIAL;
+ * crc = Checksum.update(crc, chunk, 0, chunkLength); // for each chunk
+ * boolean isValid = Checksum.RESIDUE == crc; // after the last chunk including the checksum
+ * </pre>
  *
  * @see <a href="https://en.wikipedia.org/wiki/Modbus#Modbus_RTU">https://en.wikipedia.org/wiki/Modbus#Modbus_RTU</a>
  */
@@ -12,19 +21,83 @@ public class Checksum {
   /** The amount of bytes used for the checksum, which is 2. */
   public static final int SIZE = 2;
 
-  private static int generate(final byte[] buffer) {
-    int crc = 0xFFFF; // highest number of uint32_t
-    for (int i = 0; i < buffer.length - 2; i++) {
-      crc ^= buffer[i] & 0xFF; // XOR each byte into CRC
+  /** The initial value of the CRC before the first byte, which is 0xFFFF. */
+  public static final int INITIAL = 0xFFFF;
+
+  /** The value of the CRC after updating it with a whole frame including its valid checksum, which is 0. */
+  public static final int RESIDUE = 0;
+
+  private static final int POLYNOMIAL = 0xA001; // 0x8005 reflected
+
+  private static final char[] TABLE = new char[256];
+
+  static {
+    for (int i = 0; i < TABLE.length; i++) {
+      int crc = i;
       for (int bit = 0; bit < 8; bit++) {
-        final boolean isLastBitSet = 0 != (crc & 1);
-        crc >>= 1; // one bit shift right
-        if (isLastBitSet) { // last bit is set
-          crc ^= 0xA001; // XOR 0xA001
-        }
+        crc = 0 != (crc & 1) ? crc >>> 1 ^ POLYNOMIAL : crc >>> 1;
       }
+      TABLE[i] = (char) crc;
     }
-    return crc; // low and high byte is swapped
+  }
+
+  /**
+   * Updates the CRC with one byte.
+   *
+   * @param crc The CRC, which is {@link #INITIAL} before the first byte.
+   * @param b The byte.
+   * @return The updated CRC.
+   */
+  public static int update(final int crc, final byte b) {
+    return crc >>> 8 ^ TABLE[(crc ^ b) & 0xFF];
+  }
+
+  /**
+   * Updates the CRC with the given bytes.
+   *
+   * @param crc The CRC, which is {@link #INITIAL} before the first byte.
+   * @param buffer The buffer.
+   * @param offset The index of the first byte.
+   * @param length The amount of bytes.
+   * @return The updated CRC.
+   */
+  public static int update(final int crc, final byte[] buffer, final int offset, final int length) {
+    int result = crc;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      result = result >>> 8 ^ TABLE[(result ^ buffer[i]) & 0xFF];
+    }
+    return result;
+  }
+
+  /**
+   * Updates the CRC with the bytes from the position up to the limit of the given buffer without changing the
+   * position.
+   *
+   * @param crc The CRC, which is {@link #INITIAL} before the first byte.
+   * @param buffer The buffer, which may be a direct buffer.
+   * @return The updated CRC.
+   */
+  public static int update(final int crc, final ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      return update(crc, buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+    int result = crc;
+    for (int i = buffer.position(), end = buffer.limit(); i < end; i++) {
+      result = result >>> 8 ^ TABLE[(result ^ buffer.get(i)) & 0xFF];
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the CRC of the given bytes.
+   *
+   * @param buffer The buffer.
+   * @param offset The index of the first byte.
+   * @param length The amount of bytes.
+   * @return The CRC with the low byte in the lower 8 bits, which is sent first.
+   */
+  public static int generate(final byte[] buffer, final int offset, final int length) {
+    return update(INITIAL, buffer, offset, length);
   }
 
   /**
@@ -33,9 +106,34 @@ public class Checksum {
    * @param bytes The message.
    */
   public static void write(final byte[] bytes) {
-    final int crc = generate(bytes);
-    bytes[bytes.length - 2] = (byte) (crc & 0xFF);
-    bytes[bytes.length - 1] = (byte) (crc >> 8);
+    write(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Generates a checksum for the message inside the given buffer and writes it into the last two bytes of the message.
+   *
+   * @param buffer The buffer.
+   * @param offset The index of the first byte of the message.
+   * @param length The size of the message including the checksum.
+   */
+  public static void write(final byte[] buffer, final int offset, final int length) {
+    final int end = offset + length;
+    final int crc = generate(buffer, offset, length - SIZE);
+    buffer[end - 2] = (byte) (crc & 0xFF);
+    buffer[end - 1] = (byte) (crc >> 8);
+  }
+
+  /**
+   * Generates a checksum for the message from the position up to the limit of the given buffer and writes it into
+   * the last two bytes of the message without changing the position.
+   *
+   * @param message The message including space for the checksum.
+   */
+  public static void write(final ByteBuffer message) {
+    final int end = message.limit();
+    final int crc = update(INITIAL, message.duplicate().limit(end - SIZE));
+    message.put(end - 2, (byte) (crc & 0xFF));
+    message.put(end - 1, (byte) (crc >> 8));
   }
 
   /**
@@ -46,7 +144,7 @@ public class Checksum {
    */
   @Nullable
   public static String check(final byte[] bytes) {
-    final int generatedCRC = generate(bytes);
+    final int generatedCRC = generate(bytes, 0, bytes.length - SIZE);
     final int crc = (bytes[bytes.length - 1] & 0xFF) << 8 | bytes[bytes.length - 2] & 0xFF;
     if (crc != generatedCRC) {
       return "expected checksum " + Data.hexUInt32(generatedCRC) + ", but was " + Data.hexUInt32(crc) + " in "
@@ -55,6 +153,28 @@ public class Checksum {
     return null;
   }
 
+  /**
+   * Verifies the checksum of the message inside the given buffer.
+   *
+   * @param buffer The buffer.
+   * @param offset The index of the first byte of the message.
+   * @param length The size of the message including the checksum.
+   * @return True, if the checksum in the last two bytes of the message is valid.
+   */
+  public static boolean isValid(final byte[] buffer, final int offset, final int length) {
+    return length >= SIZE && RESIDUE == update(INITIAL, buffer, offset, length);
+  }
+
+  /**
+   * Verifies the checksum of the message from the position up to the limit of the given buffer.
+   *
+   * @param message The message including the checksum.
+   * @return True, if the checksum in the last two bytes of the message is valid.
+   */
+  public static boolean isValid(final ByteBuffer message) {
+    return message.remaining() >= SIZE && RESIDUE == update(INITIAL, message);
+  }
+
   private Checksum() {
     // hide
   }
@@ -1,39 +1,135 @@
 package io.github.openhelios.epever.tracer.protocol;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jspecify.annotations.Nullable;
+
 import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
 import io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature;
 import io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature;
 import io.github.openhelios.epever.tracer.protocol.response.BatteryChargingDischargingStatus;
 import io.github.openhelios.epever.tracer.protocol.response.BatteryConfig;
 import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.BitValues;
 import io.github.openhelios.epever.tracer.protocol.response.Clock;
 import io.github.openhelios.epever.tracer.protocol.response.Ok;
 import io.github.openhelios.epever.tracer.protocol.response.RatedArrayBatteryChargingMode;
 import io.github.openhelios.epever.tracer.protocol.response.RatedLoad;
+import io.github.openhelios.epever.tracer.protocol.response.RegisterValues;
 import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.protocol.response.ResponseDecoder;
+import io.github.openhelios.epever.tracer.protocol.response.ResponseDecoders;
 import io.github.openhelios.epever.tracer.protocol.response.statistic.ArrayEnergyStatistics;
 import io.github.openhelios.epever.tracer.protocol.response.statistic.DayMinMaxVoltageStatistics;
 import io.github.openhelios.epever.tracer.protocol.response.statistic.LoadEnergyStatistics;
 
 /**
- * Command to set a value, which can be send to the DPS-150.
+ * Command to set a value, which can be send to the Tracer 3210AN. Commands are immutable, so the factories of constant
+ * commands return shared instances with a frame encoded once.
+ *
+ * @param <T> The type of the expected response.
  */
-public class Command implements Message {
+public class Command<T extends Response> implements Message {
+
+  /** The maximum amount of registers, which can be read by one command. */
+  public static final int MAX_READ_REGISTERS = 125;
+
+  /** The maximum amount of coils or discrete inputs, which can be read by one command. */
+  public static final int MAX_READ_BITS = 2000;
+
+  private static final Command<RatedArrayBatteryChargingMode> RATED_ARRAY_BATTERY_CHARGING_MODE =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.ARRAY_RATED_VOLTAGE, Register.CHARGING_MODE,
+          RatedArrayBatteryChargingMode.class);
+
+  private static final Command<RatedLoad> RATED_LOAD =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.LOAD_RATED_CURRENT, RatedLoad.class);
+
+  private static final Command<ActualArrayBattery> ACTUAL_ARRAY_BATTERY =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.ARRAY_ACTUAL_VOLTAGE,
+          Register.BATTERY_ACTUAL_POWER_HIGH, ActualArrayBattery.class);
+
+  private static final Command<ActualLoadTemperature> ACTUAL_LOAD_TEMPERATURE =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.LOAD_ACTUAL_VOLTAGE,
+          Register.POWER_COMPONENTS_TEMPERATURE, ActualLoadTemperature.class);
+
+  private static final Command<ActualBatterySocRemoteTemperature> ACTUAL_BATTERY_SOC_REMOTE_TEMPERATURE =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_ACTUAL_SOC,
+          Register.REMOTE_BATTERY_ACTUAL_TEMPERATURE, ActualBatterySocRemoteTemperature.class);
+
+  private static final Command<BatterySystem> BATTERY_SYSTEM =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_SYSTEM_VOLTAGE, BatterySystem.class);
+
+  private static final Command<BatteryChargingDischargingStatus> BATTERY_CHARGING_DISCHARGING_STATUS =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_STATUS, Register.DISCHARGING_STATUS,
+          BatteryChargingDischargingStatus.class);
+
+  private static final Command<BatteryConfig> BATTERY_CONFIG =
+      new Command<>(FunctionId.READ_HOLDING_REGISTER, Register.BATTERY_TYPE, Register.DISCHARGING_LIMIT_VOLTAGE,
+          BatteryConfig.class);
+
+  private static final Command<Clock> CLOCK =
+      new Command<>(FunctionId.READ_HOLDING_REGISTER, Register.CLOCK_SECONDS_MINUTES, Register.CLOCK_MONTH_YEAR,
+          Clock.class);
+
+  private static final Command<DayMinMaxVoltageStatistics> DAY_MIN_MAX_VOLTAGE_STATISTICS =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.DAY_MAX_ARRAY_VOLTAGE,
+          Register.DAY_MIN_BATTERY_VOLTAGE, DayMinMaxVoltageStatistics.class);
+
+  private static final Command<LoadEnergyStatistics> LOAD_ENERGY_STATISTICS =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.DAY_LOAD_ENERGY_LOW, Register.TOTAL_LOAD_ENERGY_HIGH,
+          LoadEnergyStatistics.class);
+
+  private static final Command<ArrayEnergyStatistics> ARRAY_ENERGY_STATISTICS =
+      new Command<>(FunctionId.READ_INPUT_REGISTER, Register.DAY_ARRAY_ENERGY_LOW,
+          Register.TOTAL_ARRAY_ENERGY_HIGH, ArrayEnergyStatistics.class);
+
+  private static final Command<Ok> LOAD_ON = new Command<>(FunctionId.WRITE_COIL, Register.LOAD_ON, true, Ok.class);
+
+  private static final Command<Ok> LOAD_OFF = new Command<>(FunctionId.WRITE_COIL, Register.LOAD_ON, false, Ok.class);
+
+  private static final List<Command<BitValues>> COILS =
+      readDefinedBits(FunctionId.READ_COILS, Register.CHARGING_ON, Register.FORCE_LOAD_ON);
+
+  private static final List<Command<BitValues>> DISCRETE_INPUTS =
+      readDefinedBits(FunctionId.READ_DISCRETE_INPUTS, Register.OVER_INSIDE_TEMPERATURE, Register.IS_NIGHT);
+
+  private static final List<Command<?>> INTERNED = intern(List.of(RATED_ARRAY_BATTERY_CHARGING_MODE, RATED_LOAD,
+      ACTUAL_ARRAY_BATTERY, ACTUAL_LOAD_TEMPERATURE, ACTUAL_BATTERY_SOC_REMOTE_TEMPERATURE, BATTERY_SYSTEM,
+      BATTERY_CHARGING_DISCHARGING_STATUS, BATTERY_CONFIG, CLOCK, DAY_MIN_MAX_VOLTAGE_STATISTICS,
+      LOAD_ENERGY_STATISTICS, ARRAY_ENERGY_STATISTICS, LOAD_ON, LOAD_OFF), COILS, DISCRETE_INPUTS);
 
   private final byte[] bytes;
 
-  private final Class<? extends Response> responseType;
+  private final ByteBuffer frame;
+
+  private final Command<T> origin;
+
+  private final FunctionId functionId;
+
+  private final int count;
+
+  private final Class<T> responseType;
+
+  private final ResponseDecoder<T> decoder;
+
+  @Nullable
+  private volatile AtomicReferenceArray<@Nullable Command<T>> copies;
 
   /**
    * Constructor for a command.
    *
    * @param functionId The function ID.
-   * @param register The register address.
+   * @param address The register address of type uint16_t.
    * @param responseType The expected response type.
+   * @param decoder The decoder of the expected response.
    * @param data The pay load with an even number of bytes.
    */
-  private Command(final FunctionId functionId, final Register register, final Class<? extends Response> responseType,
-      final byte... data) {
+  private Command(final FunctionId functionId, final int address, final Class<T> responseType,
+      final ResponseDecoder<T> decoder, final byte... data) {
     if (0 == data.length) {
       throw new IllegalArgumentException("expected at least two bytes, but size is 0");
     }
@@ -44,8 +140,8 @@ public class Command implements Message {
     bytes = new byte[Index.DATA_HIGH.get() + (hasSize ? 3 : 0) + data.length + Checksum.SIZE];
     bytes[Index.DEVICE_ID.get()] = DEFAULT_DEVICE_ID;
     bytes[Index.FUNCTION_ID.get()] = functionId.get();
-    bytes[Index.ADDRESS_HIGH.get()] = register.high();
-    bytes[Index.ADDRESS_LOW.get()] = register.low();
+    bytes[Index.ADDRESS_HIGH.get()] = (byte) (address >> 8);
+    bytes[Index.ADDRESS_LOW.get()] = (byte) (address & 0xFF);
     int index = Index.DATA_HIGH.get();
     if (hasSize) {
       final int registerCount = data.length / 2;
@@ -57,7 +153,43 @@ public class Command implements Message {
       bytes[index++] = d;
     }
     Checksum.write(bytes);
+    frame = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    origin = this;
+    this.functionId = functionId;
+    count = hasSize ? data.length / 2 : Data.uint16(data, 0);
     this.responseType = responseType;
+    this.decoder = decoder;
+  }
+
+  /**
+   * Constructor for a command with the decoder registered for the response type.
+   *
+   * @param functionId The function ID.
+   * @param register The register address.
+   * @param responseType The expected response type.
+   * @param data The pay load with an even number of bytes.
+   */
+  private Command(final FunctionId functionId, final Register register, final Class<T> responseType,
+      final byte... data) {
+    this(functionId, register.address(), responseType, ResponseDecoders.get(responseType), data);
+  }
+
+  /**
+   * Constructor for a copy of the given command addressed to another device.
+   *
+   * @param command The command to be copied.
+   * @param deviceId The device ID of the copy.
+   */
+  private Command(final Command<T> command, final int deviceId) {
+    bytes = command.bytes.clone();
+    bytes[Index.DEVICE_ID.get()] = (byte) deviceId;
+    Checksum.write(bytes);
+    frame = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    origin = command;
+    functionId = command.functionId;
+    count = command.count;
+    responseType = command.responseType;
+    decoder = command.decoder;
   }
 
   /**
@@ -68,7 +200,7 @@ public class Command implements Message {
    * @param responseType The expected response type.
    * @param dataUInt16 The register count of type uint16_t.
    */
-  private Command(final FunctionId functionId, final Register register, final Class<? extends Response> responseType,
+  private Command(final FunctionId functionId, final Register register, final Class<T> responseType,
       final int dataUInt16) {
     this(functionId, register, responseType, (byte) (dataUInt16 >> 8), (byte) (dataUInt16 & 0xFF));
   }
@@ -82,7 +214,7 @@ public class Command implements Message {
    * @param responseType The expected response type.
    */
   private Command(final FunctionId functionId, final Register registerAddress, final boolean isEnabled,
-      final Class<? extends Response> responseType) {
+      final Class<T> responseType) {
     this(functionId, registerAddress, responseType, isEnabled ? 0xFF00 : 0x0000);
   }
 
@@ -93,7 +225,7 @@ public class Command implements Message {
    * @param registerAddress The register address of type uint16_t.
    */
   private Command(final FunctionId functionId, final Register registerAddress,
-      final Class<? extends Response> responseType) {
+      final Class<T> responseType) {
     this(functionId, registerAddress, responseType, 1);
   }
 
@@ -105,32 +237,328 @@ public class Command implements Message {
    * @param endRegisterAddress The end register address of type uint16_t.
    */
   private Command(final FunctionId functionId, final Register beginRegisterAddress, final Register endRegisterAddress,
-      final Class<? extends Response> responseType) {
+      final Class<T> responseType) {
     this(functionId, beginRegisterAddress, responseType, beginRegisterAddress.sizeUpTo(endRegisterAddress));
   }
 
+  /**
+   * Returns a copy of the frame, because commands are immutable and shared.
+   *
+   * @return The bytes of the frame including the checksum.
+   */
   @Override
   public byte[] get() {
-    return bytes;
+    return bytes.clone();
+  }
+
+  /**
+   * The encoded frame, which is computed once on creation.
+   *
+   * @return A read-only view of the frame including the checksum.
+   */
+  public ByteBuffer frame() {
+    return frame.duplicate();
+  }
+
+  /**
+   * The size of the frame.
+   *
+   * @return The amount of bytes including the checksum.
+   */
+  public int size() {
+    return bytes.length;
   }
 
   /**
-   * The start register address.
+   * The expected response type.
    *
-   * @return The start register address.
+   * @return The expected response type.
    */
-  public Class<? extends Response> getResponseType() {
+  public Class<T> getResponseType() {
     return responseType;
   }
 
+  /**
+   * Creates the expected response from the given frame by the decoder bound to the response type.
+   *
+   * @param frame The frame from the position up to the limit, which must {@link #matches(ByteBuffer) match} this
+   *          command.
+   * @return The created response.
+   */
+  public T decode(final ByteBuffer frame) {
+    return decoder.decode(frame);
+  }
+
+  /**
+   * The ID of the addressed device.
+   *
+   * @return The device ID.
+   */
+  public int getDeviceId() {
+    return Data.uint8(bytes, Index.DEVICE_ID.get());
+  }
+
+  /**
+   * Creates a copy of this command addressed to the device with the given ID, which is needed for several devices
+   * connected to one RS-485 bus.
+   *
+   * @param deviceId The device ID in the range from {@value #MIN_DEVICE_ID} to {@value #MAX_DEVICE_ID}.
+   * @return This command, if it is already addressed to the given device, otherwise the copy, which is created once.
+   */
+  public Command<T> withDeviceId(final int deviceId) {
+    if (getDeviceId() == deviceId) {
+      return this;
+    }
+    if (origin != this) {
+      return origin.withDeviceId(deviceId);
+    }
+    if (deviceId < MIN_DEVICE_ID || MAX_DEVICE_ID < deviceId) {
+      throw new IllegalArgumentException(
+          "expected device ID in range " + MIN_DEVICE_ID + " to " + MAX_DEVICE_ID + ", but was " + deviceId);
+    }
+    AtomicReferenceArray<@Nullable Command<T>> c = copies;
+    if (null == c) {
+      synchronized (this) {
+        c = copies;
+        if (null == c) {
+          c = new AtomicReferenceArray<>(MAX_DEVICE_ID + 1);
+          copies = c;
+        }
+      }
+    }
+    @Nullable
+    final Command<T> copy = c.get(deviceId);
+    if (null != copy) {
+      return copy;
+    }
+    final Command<T> created = new Command<>(this, deviceId);
+    return c.compareAndSet(deviceId, null, created) ? created : c.get(deviceId);
+  }
+
+  /**
+   * The first register address.
+   *
+   * @return The register address of type uint16_t.
+   */
+  public int getAddress() {
+    return Data.uint16(bytes, Index.ADDRESS_HIGH.get());
+  }
+
+  /**
+   * The amount of read or written registers, or the value for a single coil.
+   *
+   * @return The register count.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * The function ID.
+   *
+   * @return The function ID of this command.
+   */
+  public FunctionId getFunctionId() {
+    return functionId;
+  }
+
+  /**
+   * The size of a successful response to this command including the checksum, which is derived from the register
+   * count for read commands.
+   *
+   * @return The expected response size in bytes.
+   */
+  public int expectedResponseSize() {
+    return switch (functionId) {
+      case READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> Index.DATA.get() + 2 * count + Checksum.SIZE;
+      case READ_COILS, READ_DISCRETE_INPUTS -> Index.DATA.get() + (count + 7) / 8 + Checksum.SIZE;
+      default -> Index.DATA_HIGH.get() + 2 + Checksum.SIZE;
+    };
+  }
+
+  /**
+   * Checks, if the given received message can be the response to this command. The device ID and the function ID must
+   * be equal and the data size of a read response must fit to the requested register count.
+   *
+   * @param message The received message.
+   * @return True, if the message can be the response to this command.
+   */
+  public boolean matches(final byte[] message) {
+    return matches(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Checks, if the given received message can be the response to this command. The device ID and the function ID must
+   * be equal and the data size of a read response must fit to the requested register count.
+   *
+   * @param message The received message from the position up to the limit.
+   * @return True, if the message can be the response to this command.
+   */
+  public boolean matches(final ByteBuffer message) {
+    if (message.remaining() <= Index.DATA_SIZE.get()
+        || bytes[Index.DEVICE_ID.get()] != Data.int8(message, Index.DEVICE_ID.get())) {
+      return false;
+    }
+    final byte id = Data.int8(message, Index.FUNCTION_ID.get());
+    if (FunctionId.hasErrorBit(id)) {
+      return functionId == FunctionId.getByIdIgnoringErrorBit(id);
+    }
+    if (functionId.get() != id) {
+      return false;
+    }
+    return switch (functionId) {
+      case READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> 2 * count == Data.uint8(message, Index.DATA_SIZE.get());
+      case READ_COILS, READ_DISCRETE_INPUTS -> (count + 7) / 8 == Data.uint8(message, Index.DATA_SIZE.get());
+      default -> true;
+    };
+  }
+
+  /**
+   * Finds the command for the given sent frame, e.g. to decode the responses of a captured communication. The typed
+   * commands of this class are found by their bytes; other reads are parsed as {@link #read(FunctionId, int, int)}.
+   *
+   * @param frame The sent frame including the checksum.
+   * @return The command, or {@code null}, if the frame is no known command.
+   */
+  @Nullable
+  public static Command<?> parse(final byte[] frame) {
+    if (frame.length < Index.DATA_LOW.get() + 1 + Checksum.SIZE || !Checksum.isValid(frame, 0, frame.length)) {
+      return null;
+    }
+    final int deviceId = Data.uint8(frame, Index.DEVICE_ID.get());
+    if (deviceId < MIN_DEVICE_ID || MAX_DEVICE_ID < deviceId) {
+      return null;
+    }
+    for (final Command<?> command : INTERNED) {
+      final Command<?> candidate = command.withDeviceId(deviceId);
+      if (Arrays.equals(candidate.bytes, frame)) {
+        return candidate;
+      }
+    }
+    final FunctionId functionId = FunctionId.findById(frame[Index.FUNCTION_ID.get()]);
+    if (null == functionId || Index.DATA_LOW.get() + 1 + Checksum.SIZE != frame.length) {
+      return null;
+    }
+    return switch (functionId) {
+      case READ_COILS, READ_DISCRETE_INPUTS, READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> {
+        try {
+          yield read(functionId, Data.uint16(frame, Index.ADDRESS_HIGH.get()),
+              Data.uint16(frame, Index.DATA_HIGH.get())).withDeviceId(deviceId);
+        } catch (final IllegalArgumentException e) {
+          yield null; // invalid range
+        }
+      }
+      default -> null;
+    };
+  }
+
+  /**
+   * Command to read a contiguous range of registers, coils or discrete inputs into {@link RegisterValues}.
+   *
+   * @param functionId The read function ID.
+   * @param address The first address of type uint16_t.
+   * @param count The amount of registers up to {@value #MAX_READ_REGISTERS}, or coils or discrete inputs up to
+   *          {@value #MAX_READ_BITS}.
+   * @return The created command.
+   * @throws IllegalArgumentException if the function ID is no read function or the range is invalid.
+   */
+  public static Command<RegisterValues> read(final FunctionId functionId, final int address, final int count) {
+    final int max = switch (functionId) {
+      case READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> MAX_READ_REGISTERS;
+      case READ_COILS, READ_DISCRETE_INPUTS -> MAX_READ_BITS;
+      default -> throw new IllegalArgumentException("expected read function ID, but was " + functionId);
+    };
+    checkRange(functionId, address, count, max);
+    return new Command<>(functionId, address, RegisterValues.class,
+        frame -> new RegisterValues(functionId, address, count, frame), (byte) (count >> 8), (byte) (count & 0xFF));
+  }
+
+  /**
+   * Command to read a contiguous range of coils or discrete inputs into the bitmask of {@link BitValues}.
+   *
+   * @param functionId The function ID {@link FunctionId#READ_COILS} or {@link FunctionId#READ_DISCRETE_INPUTS}.
+   * @param address The first address of type uint16_t.
+   * @param count The amount of coils or discrete inputs up to {@value #MAX_READ_BITS}.
+   * @return The created command.
+   * @throws IllegalArgumentException if the function ID does not read bits or the range is invalid.
+   */
+  public static Command<BitValues> readBits(final FunctionId functionId, final int address, final int count) {
+    if (FunctionId.READ_COILS != functionId && FunctionId.READ_DISCRETE_INPUTS != functionId) {
+      throw new IllegalArgumentException("expected function ID to read bits, but was " + functionId);
+    }
+    checkRange(functionId, address, count, MAX_READ_BITS);
+    return new Command<>(functionId, address, BitValues.class,
+        frame -> new BitValues(functionId, address, count, frame), (byte) (count >> 8), (byte) (count & 0xFF));
+  }
+
+  private static void checkRange(final FunctionId functionId, final int address, final int count, final int max) {
+    if (count < 1 || max < count || address < 0 || 0x10000 < address + count) {
+      throw new IllegalArgumentException(
+          "invalid range of " + count + " at " + Integer.toHexString(address) + " for " + functionId);
+    }
+  }
+
+  private static List<Command<BitValues>> readDefinedBits(final FunctionId functionId, final Register first,
+      final Register last) {
+    final boolean[] defined = new boolean[last.address() - first.address() + 1];
+    for (final Register register : Register.values()) {
+      if (register.functionId() == functionId && first.address() <= register.address()
+          && register.address() <= last.address()) {
+        defined[register.address() - first.address()] = true;
+      }
+    }
+    final List<Command<BitValues>> commands = new ArrayList<>();
+    int start = 0;
+    while (start < defined.length) {
+      int end = start;
+      while (end < defined.length && defined[end]) {
+        end++;
+      }
+      if (start < end) {
+        commands.add(readBits(functionId, first.address() + start, end - start));
+      }
+      start = end + 1;
+    }
+    return List.copyOf(commands);
+  }
+
+  @SafeVarargs
+  private static List<Command<?>> intern(final List<Command<?>> commands, final List<? extends Command<?>>... more) {
+    final List<Command<?>> interned = new ArrayList<>(commands);
+    for (final List<? extends Command<?>> list : more) {
+      interned.addAll(list);
+    }
+    return List.copyOf(interned);
+  }
+
+  /**
+   * Commands to read the coils from {@link Register#CHARGING_ON} up to {@link Register#FORCE_LOAD_ON} with one frame
+   * for each contiguous range of defined coils, so the undefined coil between is not read.
+   *
+   * @return The created commands, whose responses can be combined by {@link BitValues#combine(List)}.
+   */
+  public static List<Command<BitValues>> coils() {
+    return COILS;
+  }
+
+  /**
+   * Commands to read the discrete inputs {@link Register#OVER_INSIDE_TEMPERATURE} and {@link Register#IS_NIGHT} with
+   * one frame for each contiguous range of defined discrete inputs, so the undefined discrete inputs between are not
+   * read.
+   *
+   * @return The created commands, whose responses can be combined by {@link BitValues#combine(List)}.
+   */
+  public static List<Command<BitValues>> discreteInputs() {
+    return DISCRETE_INPUTS;
+  }
+
   /**
    * Command to request rated data with {@link RatedArrayBatteryChargingMode}.
    *
    * @return The created command.
    */
-  public static Command ratedArrayBatteryChargingMode() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.ARRAY_RATED_VOLTAGE, Register.CHARGING_MODE,
-        RatedArrayBatteryChargingMode.class);
+  public static Command<RatedArrayBatteryChargingMode> ratedArrayBatteryChargingMode() {
+    return RATED_ARRAY_BATTERY_CHARGING_MODE;
   }
 
   /**
@@ -138,8 +566,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command ratedLoad() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.LOAD_RATED_CURRENT, RatedLoad.class);
+  public static Command<RatedLoad> ratedLoad() {
+    return RATED_LOAD;
   }
 
   /**
@@ -147,9 +575,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command actualArrayBattery() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.ARRAY_ACTUAL_VOLTAGE,
-        Register.BATTERY_ACTUAL_POWER_HIGH, ActualArrayBattery.class);
+  public static Command<ActualArrayBattery> actualArrayBattery() {
+    return ACTUAL_ARRAY_BATTERY;
   }
 
   /**
@@ -157,9 +584,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command actualLoadTemperature() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.LOAD_ACTUAL_VOLTAGE,
-        Register.POWER_COMPONENTS_TEMPERATURE, ActualLoadTemperature.class);
+  public static Command<ActualLoadTemperature> actualLoadTemperature() {
+    return ACTUAL_LOAD_TEMPERATURE;
   }
 
   /**
@@ -167,9 +593,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command actualBatterySocRemoteTemperature() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_ACTUAL_SOC,
-        Register.REMOTE_BATTERY_ACTUAL_TEMPERATURE, ActualBatterySocRemoteTemperature.class);
+  public static Command<ActualBatterySocRemoteTemperature> actualBatterySocRemoteTemperature() {
+    return ACTUAL_BATTERY_SOC_REMOTE_TEMPERATURE;
   }
 
   /**
@@ -177,8 +602,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command batterySystem() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_SYSTEM_VOLTAGE, BatterySystem.class);
+  public static Command<BatterySystem> batterySystem() {
+    return BATTERY_SYSTEM;
   }
 
   /**
@@ -187,9 +612,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command batteryChargingDischargingStatus() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_STATUS, Register.DISCHARGING_STATUS,
-        BatteryChargingDischargingStatus.class);
+  public static Command<BatteryChargingDischargingStatus> batteryChargingDischargingStatus() {
+    return BATTERY_CHARGING_DISCHARGING_STATUS;
   }
 
   /**
@@ -198,9 +622,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command batteryConfig() {
-    return new Command(FunctionId.READ_HOLDING_REGISTER, Register.BATTERY_TYPE, Register.DISCHARGING_LIMIT_VOLTAGE,
-        BatteryConfig.class);
+  public static Command<BatteryConfig> batteryConfig() {
+    return BATTERY_CONFIG;
   }
 
   /**
@@ -209,9 +632,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command clock() {
-    return new Command(FunctionId.READ_HOLDING_REGISTER, Register.CLOCK_SECONDS_MINUTES, Register.CLOCK_MONTH_YEAR,
-        Clock.class);
+  public static Command<Clock> clock() {
+    return CLOCK;
   }
 
   /**
@@ -220,8 +642,8 @@ public class Command implements Message {
    * @param clock The clock.
    * @return The created command.
    */
-  public static Command setClock(final Clock clock) {
-    return new Command(FunctionId.WRITE_HOLDING_REGISTERS, Register.CLOCK_SECONDS_MINUTES, Ok.class, clock.toData());
+  public static Command<Ok> setClock(final Clock clock) {
+    return new Command<>(FunctionId.WRITE_HOLDING_REGISTERS, Register.CLOCK_SECONDS_MINUTES, Ok.class, clock.toData());
   }
 
   /**
@@ -230,8 +652,8 @@ public class Command implements Message {
    * @param isEnabled True to enable the output load.
    * @return The created command.
    */
-  public static Command loadOn(final boolean isEnabled) {
-    return new Command(FunctionId.WRITE_COIL, Register.LOAD_ON, isEnabled, Ok.class);
+  public static Command<Ok> loadOn(final boolean isEnabled) {
+    return isEnabled ? LOAD_ON : LOAD_OFF;
   }
 
   /**
@@ -240,9 +662,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command dayMinMaxVoltageStatistics() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.DAY_MAX_ARRAY_VOLTAGE, Register.DAY_MIN_BATTERY_VOLTAGE,
-        DayMinMaxVoltageStatistics.class);
+  public static Command<DayMinMaxVoltageStatistics> dayMinMaxVoltageStatistics() {
+    return DAY_MIN_MAX_VOLTAGE_STATISTICS;
   }
 
   /**
@@ -251,9 +672,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command loadEnergyStatistics() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.DAY_LOAD_ENERGY_LOW, Register.TOTAL_LOAD_ENERGY_HIGH,
-        LoadEnergyStatistics.class);
+  public static Command<LoadEnergyStatistics> loadEnergyStatistics() {
+    return LOAD_ENERGY_STATISTICS;
   }
 
   /**
@@ -262,9 +682,8 @@ public class Command implements Message {
    *
    * @return The created command.
    */
-  public static Command arrayEnergyStatistics() {
-    return new Command(FunctionId.READ_INPUT_REGISTER, Register.DAY_ARRAY_ENERGY_LOW, Register.TOTAL_ARRAY_ENERGY_HIGH,
-        ArrayEnergyStatistics.class);
+  public static Command<ArrayEnergyStatistics> arrayEnergyStatistics() {
+    return ARRAY_ENERGY_STATISTICS;
   }
 
 }
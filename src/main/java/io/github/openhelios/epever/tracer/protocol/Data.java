@@ -1,5 +1,6 @@
 package io.github.openhelios.epever.tracer.protocol;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -50,6 +51,22 @@ public class Data {
     return sb.toString();
   }
 
+  /**
+   * Converts the given range of bytes to a hexadecimal String.
+   *
+   * @param data The bytes.
+   * @param offset The index of the first byte.
+   * @param size The amount of bytes.
+   * @return The hexadecimal String.
+   */
+  public static String hex(final byte[] data, final int offset, final int size) {
+    final StringBuilder sb = new StringBuilder(size * 2);
+    for (int i = offset; i < offset + size; i++) {
+      sb.append(hex(data[i]));
+    }
+    return sb.toString();
+  }
+
   /**
    * Converts the given bytes to a hexadecimal String.
    *
@@ -145,6 +162,17 @@ public class Data {
     return uint8(bytes, index) << 8 | uint8(bytes, index + 1);
   }
 
+  /**
+   * Converts two bytes representing a signed integer with 16 bits at the given index into a Java integer.
+   *
+   * @param bytes The bytes.
+   * @param index The index.
+   * @return The Java integer.
+   */
+  public static int int16(final byte[] bytes, final int index) {
+    return (short) uint16(bytes, index);
+  }
+
   /**
    * Converts four bytes representing an unsigned integer with 32 bits at the given index into a Java integer.
    *
@@ -156,6 +184,65 @@ public class Data {
     return uint16(bytes, index) | (long) uint16(bytes, index + 2) << 16;
   }
 
+  /**
+   * Gets the byte at the given index relative to the position of the buffer.
+   *
+   * @param buffer The buffer.
+   * @param index The index relative to the position.
+   * @return The byte.
+   */
+  public static byte int8(final ByteBuffer buffer, final int index) {
+    return buffer.get(buffer.position() + index);
+  }
+
+  /**
+   * Converts a byte representing an unsigned integer with 8 bits at the given index relative to the position of the
+   * buffer into a Java integer.
+   *
+   * @param buffer The buffer.
+   * @param index The index relative to the position.
+   * @return The Java integer.
+   */
+  public static int uint8(final ByteBuffer buffer, final int index) {
+    return uint8(int8(buffer, index));
+  }
+
+  /**
+   * Converts two bytes representing an unsigned integer with 16 bits at the given index relative to the position of
+   * the buffer into a Java integer.
+   *
+   * @param buffer The buffer.
+   * @param index The index relative to the position.
+   * @return The Java integer.
+   */
+  public static int uint16(final ByteBuffer buffer, final int index) {
+    return uint8(buffer, index) << 8 | uint8(buffer, index + 1);
+  }
+
+  /**
+   * Converts two bytes representing a signed integer with 16 bits at the given index relative to the position of the
+   * buffer into a Java integer.
+   *
+   * @param buffer The buffer.
+   * @param index The index relative to the position.
+   * @return The Java integer.
+   */
+  public static int int16(final ByteBuffer buffer, final int index) {
+    return (short) uint16(buffer, index);
+  }
+
+  /**
+   * Converts four bytes representing an unsigned integer with 32 bits at the given index relative to the position of
+   * the buffer into a Java integer. The low word comes first like in the registers of the Tracer 3210AN.
+   *
+   * @param buffer The buffer.
+   * @param index The index relative to the position.
+   * @return The Java integer.
+   */
+  public static long uint32(final ByteBuffer buffer, final int index) {
+    return uint16(buffer, index) | (long) uint16(buffer, index + 2) << 16;
+  }
+
   /**
    * Converts a byte representing a C boolean at the given index into a Java boolean.
    *
@@ -0,0 +1,37 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+/**
+ * The data type of the value in a register.
+ */
+public enum DataType {
+
+  /** A coil or discrete input with the value 0 or 1. */
+  BOOL,
+
+  /** An unsigned integer with 16 bits. */
+  UINT16,
+
+  /** A signed integer with 16 bits. */
+  INT16,
+
+  /** The low 16 bits of an unsigned integer with 32 bits, whose high 16 bits are in the next register. */
+  UINT32_LOW,
+
+  /** The high 16 bits of an unsigned integer with 32 bits, whose low 16 bits are in the previous register. */
+  UINT32_HIGH,
+
+  /** Bit fields or an enumeration, which are not scaled. */
+  BITFIELD,
+
+  ;
+
+  /**
+   * Checks, if the value spans two registers.
+   *
+   * @return True for {@link #UINT32_LOW} and {@link #UINT32_HIGH}.
+   */
+  public boolean isUInt32() {
+    return UINT32_LOW == this || UINT32_HIGH == this;
+  }
+
+}
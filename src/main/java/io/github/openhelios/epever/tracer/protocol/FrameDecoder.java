@@ -0,0 +1,225 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental decoder for Modbus RTU response frames. The received bytes may contain partial frames, several frames or
+ * garbage. Incomplete frames are kept in a reusable buffer until the missing bytes arrive. Bytes, which can not be the
+ * start of a frame with a valid checksum, are skipped to resynchronise with the next frame. A complete frame with a
+ * valid checksum behind an incomplete frame marks the bytes before it as garbage, so a corrupted frame does not block
+ * the following frames.
+ */
+public class FrameDecoder {
+
+  /**
+   * Handler for each decoded frame.
+   */
+  public interface FrameHandler {
+
+    /**
+     * A complete frame with a valid checksum has been decoded. The buffer is reused after returning.
+     *
+     * @param buffer The buffer.
+     * @param offset The index of the first byte of the frame.
+     * @param length The size of the frame including the checksum.
+     */
+    void onFrame(byte[] buffer, int offset, int length);
+
+  }
+
+  /** The maximum size of a Modbus RTU frame, which is 256. */
+  public static final int MAX_FRAME_SIZE = 256;
+
+  /** The highest data size of a read response, which is 125 registers. */
+  private static final int MAX_DATA_SIZE = 250;
+
+  private static final int ERROR_FRAME_SIZE = 5;
+
+  private static final int WRITE_FRAME_SIZE = 8;
+
+  private static final Logger LOG = LoggerFactory.getLogger(FrameDecoder.class);
+
+  private final byte[] buffer = new byte[2 * MAX_FRAME_SIZE];
+
+  private final FrameHandler handler;
+
+  private int start;
+
+  private int end;
+
+  private long skippedByteCount;
+
+  /**
+   * Constructor.
+   *
+   * @param handler The handler to be called for each decoded frame.
+   */
+  public FrameDecoder(final FrameHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Decodes the given received bytes.
+   *
+   * @param data The received bytes.
+   */
+  public void accept(final byte[] data) {
+    accept(data, 0, data.length);
+  }
+
+  /**
+   * Decodes the given received bytes.
+   *
+   * @param data The received bytes.
+   * @param offset The index of the first received byte.
+   * @param length The amount of received bytes.
+   */
+  public void accept(final byte[] data, final int offset, final int length) {
+    int index = offset;
+    final int endIndex = offset + length;
+    while (index < endIndex) {
+      if (end == buffer.length) {
+        compact();
+      }
+      final int size = Math.min(buffer.length - end, endIndex - index);
+      System.arraycopy(data, index, buffer, end, size);
+      end += size;
+      index += size;
+      decode();
+    }
+  }
+
+  /**
+   * Decodes the received bytes from the position up to the limit of the given buffer, which may be a direct buffer.
+   * The position is advanced to the limit.
+   *
+   * @param data The received bytes.
+   */
+  public void accept(final ByteBuffer data) {
+    while (data.hasRemaining()) {
+      if (end == buffer.length) {
+        compact();
+      }
+      final int size = Math.min(buffer.length - end, data.remaining());
+      data.get(buffer, end, size);
+      end += size;
+      decode();
+    }
+  }
+
+  /**
+   * Discards an incomplete frame.
+   */
+  public void reset() {
+    start = 0;
+    end = 0;
+  }
+
+  /**
+   * The amount of buffered bytes of an incomplete frame.
+   *
+   * @return The amount of buffered bytes.
+   */
+  public int getPendingByteCount() {
+    return end - start;
+  }
+
+  /**
+   * The amount of bytes skipped to resynchronise, because they did not belong to a valid frame.
+   *
+   * @return The amount of skipped bytes since creation.
+   */
+  public long getSkippedByteCount() {
+    return skippedByteCount;
+  }
+
+  private void compact() {
+    System.arraycopy(buffer, start, buffer, 0, end - start);
+    end -= start;
+    start = 0;
+  }
+
+  private void decode() {
+    while (start < end) {
+      final int size = frameSize(start);
+      if (0 == size || end - start < size) {
+        // incomplete, but a complete frame behind proves the incomplete one to be garbage
+        final int next = findCompleteFrame(start + 1);
+        if (next < 0) {
+          break; // wait for more bytes
+        }
+        skip(next - start);
+      } else if (size > 0 && Checksum.isValid(buffer, start, size)) {
+        handler.onFrame(buffer, start, size);
+        start += size;
+      } else {
+        skip(1);
+      }
+    }
+    if (start == end) {
+      reset();
+    }
+  }
+
+  private void skip(final int count) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("skip {}", Data.hex(buffer, start, count));
+    }
+    skippedByteCount += count;
+    start += count;
+  }
+
+  private int findCompleteFrame(final int from) {
+    for (int i = from; i < end; i++) {
+      final int size = frameSize(i);
+      if (size > 0 && end - i >= size && Checksum.isValid(buffer, i, size)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Determines the size of the frame starting at the given index.
+   *
+   * @param start The index of the first byte of the frame.
+   * @return The frame size, 0 if more bytes are needed to determine the size or -1 if no frame can start here.
+   */
+  private int frameSize(final int start) {
+    final int deviceId = Data.uint8(buffer, start);
+    if (deviceId < Message.MIN_DEVICE_ID || Message.MAX_DEVICE_ID < deviceId) {
+      return -1;
+    }
+    if (end - start <= Index.FUNCTION_ID.get()) {
+      return 0;
+    }
+    final byte id = buffer[start + Index.FUNCTION_ID.get()];
+    if (FunctionId.hasErrorBit(id)) {
+      return FunctionId.UNKNOWN == FunctionId.getByIdIgnoringErrorBit(id) ? -1 : ERROR_FRAME_SIZE;
+    }
+    final FunctionId functionId = FunctionId.findById(id);
+    if (null == functionId) {
+      return -1;
+    }
+    return switch (functionId) {
+      case READ_COILS, READ_DISCRETE_INPUTS, READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> readFrameSize(start);
+      case WRITE_COIL, WRITE_HOLDING_REGISTERS -> WRITE_FRAME_SIZE;
+      default -> -1;
+    };
+  }
+
+  private int readFrameSize(final int start) {
+    if (end - start <= Index.DATA_SIZE.get()) {
+      return 0;
+    }
+    final int dataSize = Data.uint8(buffer, start + Index.DATA_SIZE.get());
+    if (0 == dataSize || MAX_DATA_SIZE < dataSize) {
+      return -1;
+    }
+    return Index.DATA.get() + dataSize + Checksum.SIZE;
+  }
+
+}
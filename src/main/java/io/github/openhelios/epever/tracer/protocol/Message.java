@@ -8,6 +8,12 @@ public interface Message {
   /** The default device ID, which is 1 for an EPEVER Tracer. */
   byte DEFAULT_DEVICE_ID = 1;
 
+  /** The lowest device ID, which can be addressed individually. */
+  int MIN_DEVICE_ID = 1;
+
+  /** The highest device ID, which can be addressed individually. */
+  int MAX_DEVICE_ID = 247;
+
   /**
    * Returns the message bytes.
    *
@@ -0,0 +1,107 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable sequence of commands to be sent on each poll, whose frames are encoded once into one contiguous
+ * read-only buffer. Modbus RTU allows only one outstanding request on a bus, so the frames are still sent one after
+ * another, but no frame is encoded or allocated per poll.
+ */
+public final class PollPlan {
+
+  private final List<Command<?>> commands;
+
+  private final ByteBuffer buffer;
+
+  private final int[] offsets;
+
+  private PollPlan(final List<Command<?>> commands) {
+    if (commands.isEmpty()) {
+      throw new IllegalArgumentException("expected at least one command");
+    }
+    this.commands = List.copyOf(commands);
+    offsets = new int[commands.size() + 1];
+    for (int i = 0; i < commands.size(); i++) {
+      offsets[i + 1] = offsets[i] + commands.get(i).size();
+    }
+    final ByteBuffer b = ByteBuffer.allocate(offsets[commands.size()]);
+    for (final Command<?> command : commands) {
+      b.put(command.frame());
+    }
+    buffer = b.flip().asReadOnlyBuffer();
+  }
+
+  /**
+   * Creates a plan for the given commands.
+   *
+   * @param commands The commands in the order to be sent.
+   * @return The created plan.
+   */
+  public static PollPlan of(final List<? extends Command<?>> commands) {
+    return new PollPlan(new ArrayList<>(commands));
+  }
+
+  /**
+   * Creates a plan for the given commands.
+   *
+   * @param commands The commands in the order to be sent.
+   * @return The created plan.
+   */
+  public static PollPlan of(final Command<?>... commands) {
+    return new PollPlan(List.of(commands));
+  }
+
+  /**
+   * Creates a copy of this plan with all commands addressed to the device with the given ID.
+   *
+   * @param deviceId The device ID in the range from {@value Message#MIN_DEVICE_ID} to {@value Message#MAX_DEVICE_ID}.
+   * @return The created plan.
+   */
+  public PollPlan withDeviceId(final int deviceId) {
+    final List<Command<?>> copies = new ArrayList<>(commands.size());
+    for (final Command<?> command : commands) {
+      copies.add(command.withDeviceId(deviceId));
+    }
+    return new PollPlan(copies);
+  }
+
+  /**
+   * The commands.
+   *
+   * @return The unmodifiable list of commands in the order to be sent.
+   */
+  public List<Command<?>> getCommands() {
+    return commands;
+  }
+
+  /**
+   * The amount of commands.
+   *
+   * @return The amount of commands.
+   */
+  public int size() {
+    return commands.size();
+  }
+
+  /**
+   * The encoded frames of all commands.
+   *
+   * @return A read-only view of the contiguous frames.
+   */
+  public ByteBuffer getBuffer() {
+    return buffer.duplicate();
+  }
+
+  /**
+   * The encoded frame of the command with the given index.
+   *
+   * @param index The index of the command.
+   * @return A read-only view of the frame inside the contiguous buffer.
+   */
+  public ByteBuffer frame(final int index) {
+    return buffer.duplicate().limit(offsets[index + 1]).position(offsets[index]);
+  }
+
+}
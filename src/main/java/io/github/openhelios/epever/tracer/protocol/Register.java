@@ -1,131 +1,132 @@
 package io.github.openhelios.epever.tracer.protocol;
 
 /**
- * Register address represented by high and low byte.
+ * Register address represented by high and low byte with the metadata to decode its value: the data type, the scale
+ * and the unit.
  */
 public enum Register {
 
   // *** COIL {@link FunctionId#READ_COILS} and {@link FunctionId#WRITE_COIL}.
 
   /** Charging On: 0=No, 1=Yes. */
-  CHARGING_ON(0x00),
+  CHARGING_ON(0x00, DataType.BOOL, 1, Unit.NONE),
 
   /** Manual load mode on: 0=No, 1=Yes */
-  MANUAL_LOAD_MODE_ON(0x01),
+  MANUAL_LOAD_MODE_ON(0x01, DataType.BOOL, 1, Unit.NONE),
 
   /** Load on while in manual load mode: 0=No, 1=Yes. */
-  LOAD_ON(0x02),
+  LOAD_ON(0x02, DataType.BOOL, 1, Unit.NONE),
 
   /** Default load on: 0=No, 1=Yes. */
-  DEFAULT_LOAD_ON(0x03),
+  DEFAULT_LOAD_ON(0x03, DataType.BOOL, 1, Unit.NONE),
 
   /** Test load mode on: 0=No, 1=Yes. */
-  TEST_LOAD_MODE_ON(0x05),
+  TEST_LOAD_MODE_ON(0x05, DataType.BOOL, 1, Unit.NONE),
 
   /** Force load on: 0=No, 1=Yes. */
-  FORCE_LOAD_ON(0x06),
+  FORCE_LOAD_ON(0x06, DataType.BOOL, 1, Unit.NONE),
 
   /** Restore system defaults: 0=No, 1=Yes. */
-  RESTORE_SYSTEM_DEFAULTS(0x13),
+  RESTORE_SYSTEM_DEFAULTS(0x13, DataType.BOOL, 1, Unit.NONE),
 
   /** Clear statistics with root privileges: 0=No, 1=Yes. */
-  CLEAR_STATISTICS(0x14),
+  CLEAR_STATISTICS(0x14, DataType.BOOL, 1, Unit.NONE),
 
   // *** Discrete value {@link FunctionId#READ_DISCRETE_INPUTS}.
 
   /** Inside temperature is over protection point: 0=No, 1=Yes. */
-  OVER_INSIDE_TEMPERATURE(0x2000),
+  OVER_INSIDE_TEMPERATURE(0x2000, DataType.BOOL, 1, Unit.NONE),
 
   /** Is night mode active: 0=No, 1=Yes. */
-  IS_NIGHT(0x200C),
+  IS_NIGHT(0x200C, DataType.BOOL, 1, Unit.NONE),
 
   // *** Rated data {@link FunctionId#READ_INPUT_REGISTER}.
 
   /** PV array rated voltage in 100V. */
-  ARRAY_RATED_VOLTAGE(0x3000),
+  ARRAY_RATED_VOLTAGE(0x3000, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** PV array rated current in 100A. */
-  ARRAY_RATED_CURRENT(0x3001),
+  ARRAY_RATED_CURRENT(0x3001, DataType.UINT16, 0.01f, Unit.AMPERE),
 
   /** PV array rated power in 100W low 16 bits. */
-  ARRAY_RATED_POWER_LOW(0x3002),
+  ARRAY_RATED_POWER_LOW(0x3002, DataType.UINT32_LOW, 0.01f, Unit.WATT),
 
   /** PV array rated power in 100W high 16 bits. */
-  ARRAY_RATED_POWER_HIGH(0x3003),
+  ARRAY_RATED_POWER_HIGH(0x3003, DataType.UINT32_HIGH, 0.01f, Unit.WATT),
 
   /** Battery rated voltage in 100V. */
-  BATTERY_RATED_VOLTAGE(0x3004),
+  BATTERY_RATED_VOLTAGE(0x3004, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Battery rated current in 100A. */
-  BATTERY_RATED_CURRENT(0x3005),
+  BATTERY_RATED_CURRENT(0x3005, DataType.UINT16, 0.01f, Unit.AMPERE),
 
   /** Battery rated power in 100W low 16 bits. */
-  BATTERY_RATED_POWER_LOW(0x3006),
+  BATTERY_RATED_POWER_LOW(0x3006, DataType.UINT32_LOW, 0.01f, Unit.WATT),
 
   /** Battery power in 100W high 16 bits. */
-  BATTERY_RATED_POWER_HIGH(0x3007),
+  BATTERY_RATED_POWER_HIGH(0x3007, DataType.UINT32_HIGH, 0.01f, Unit.WATT),
 
   /** Charging mode: 0=connected/disconnected, 1=PWM, 2=MPPT. */
-  CHARGING_MODE(0x3008),
+  CHARGING_MODE(0x3008, DataType.BITFIELD, 1, Unit.NONE),
 
   /** Load rated current in 100A. */
-  LOAD_RATED_CURRENT(0x300E),
+  LOAD_RATED_CURRENT(0x300E, DataType.UINT16, 0.01f, Unit.AMPERE),
 
   // *** Real time data {@link FunctionId#READ_INPUT_REGISTER}.
 
   /** PV array actual voltage in 100V. */
-  ARRAY_ACTUAL_VOLTAGE(0x3100),
+  ARRAY_ACTUAL_VOLTAGE(0x3100, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** PV array actual current in 100A. */
-  ARRAY_ACTUAL_CURRENT(0x3101),
+  ARRAY_ACTUAL_CURRENT(0x3101, DataType.UINT16, 0.01f, Unit.AMPERE),
 
   /** PV array actual power in 100W low 16 bits. */
-  ARRAY_ACTUAL_POWER_LOW(0x3102),
+  ARRAY_ACTUAL_POWER_LOW(0x3102, DataType.UINT32_LOW, 0.01f, Unit.WATT),
 
   /** PV array actual power in 100W high 16 bits. */
-  ARRAY_ACTUAL_POWER_HIGH(0x3103),
+  ARRAY_ACTUAL_POWER_HIGH(0x3103, DataType.UINT32_HIGH, 0.01f, Unit.WATT),
 
   /** Battery actual voltage in 100V. */
-  BATTERY_ACTUAL_VOLTAGE(0x3104),
+  BATTERY_ACTUAL_VOLTAGE(0x3104, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Battery actual current in 100A. */
-  BATTERY_ACTUAL_CURRENT(0x3105),
+  BATTERY_ACTUAL_CURRENT(0x3105, DataType.UINT16, 0.01f, Unit.AMPERE),
 
   /** Battery actual power in 100W low 16 bits. */
-  BATTERY_ACTUAL_POWER_LOW(0x3106),
+  BATTERY_ACTUAL_POWER_LOW(0x3106, DataType.UINT32_LOW, 0.01f, Unit.WATT),
 
   /** Battery actual power in 100W high 16 bits. */
-  BATTERY_ACTUAL_POWER_HIGH(0x3107),
+  BATTERY_ACTUAL_POWER_HIGH(0x3107, DataType.UINT32_HIGH, 0.01f, Unit.WATT),
 
   /** Load actual voltage in 100V. */
-  LOAD_ACTUAL_VOLTAGE(0x310C),
+  LOAD_ACTUAL_VOLTAGE(0x310C, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Load actual current in 100A. */
-  LOAD_ACTUAL_CURRENT(0x310D),
+  LOAD_ACTUAL_CURRENT(0x310D, DataType.UINT16, 0.01f, Unit.AMPERE),
 
   /** Load actual power in 100W low 16 bits. */
-  LOAD_ACTUAL_POWER_LOW(0x310E),
+  LOAD_ACTUAL_POWER_LOW(0x310E, DataType.UINT32_LOW, 0.01f, Unit.WATT),
 
   /** Load actual power in 100W high 16 bits. */
-  LOAD_ACTUAL_POWER_HIGH(0x310F),
+  LOAD_ACTUAL_POWER_HIGH(0x310F, DataType.UINT32_HIGH, 0.01f, Unit.WATT),
 
   /** Battery actual temperature in 100°C. */
-  BATTERY_ACTUAL_TEMPERATURE(0x3110),
+  BATTERY_ACTUAL_TEMPERATURE(0x3110, DataType.INT16, 0.01f, Unit.CELSIUS),
 
   /** Inside actual temperature in 100°C. */
-  INSIDE_ACTUAL_TEMPERATURE(0x3111),
+  INSIDE_ACTUAL_TEMPERATURE(0x3111, DataType.INT16, 0.01f, Unit.CELSIUS),
 
   /** Power components actual temperature in 100°C. */
-  POWER_COMPONENTS_TEMPERATURE(0x3112),
+  POWER_COMPONENTS_TEMPERATURE(0x3112, DataType.INT16, 0.01f, Unit.CELSIUS),
 
   /** Actual percentage of the remaining battery capacity in 100%. */
-  BATTERY_ACTUAL_SOC(0x311A),
+  BATTERY_ACTUAL_SOC(0x311A, DataType.UINT16, 1, Unit.PERCENT),
 
   /** Remote battery actual temperature in 100°C. */
-  REMOTE_BATTERY_ACTUAL_TEMPERATURE(0x311B),
+  REMOTE_BATTERY_ACTUAL_TEMPERATURE(0x311B, DataType.INT16, 0.01f, Unit.CELSIUS),
 
   /** Battery system voltage in 100V (can be 12V, 24V, 36V or 48V). */
-  BATTERY_SYSTEM_VOLTAGE(0x311D),
+  BATTERY_SYSTEM_VOLTAGE(0x311D, DataType.UINT16, 0.01f, Unit.VOLT),
 
   // *** Battery status {@link FunctionId#READ_INPUT_REGISTER}
 
@@ -137,7 +138,7 @@ public enum Register {
    * <li>15: Battery system voltage: 0=Normal, 1=Wrong identification
    * </ul>
    */
-  BATTERY_STATUS(0x3200),
+  BATTERY_STATUS(0x3200, DataType.BITFIELD, 1, Unit.NONE),
 
   /**
    * <ul>
@@ -155,7 +156,7 @@ public enum Register {
    * <li>14-15: Input voltage: 0=Normal, 1=Disconnected, 2=Over, 3=Fault
    * </ul>
    */
-  CHARGING_STATUS(0x3201),
+  CHARGING_STATUS(0x3201, DataType.BITFIELD, 1, Unit.NONE),
 
   /**
    * <ul>
@@ -173,80 +174,80 @@ public enum Register {
    * <li>14-15: Input voltage: 0=Normal, 1=low, 2=high, 3=Fault
    * </ul>
    */
-  DISCHARGING_STATUS(0x3202),
+  DISCHARGING_STATUS(0x3202, DataType.BITFIELD, 1, Unit.NONE),
 
   // *** Statistical Parameters {@link FunctionId#READ_INPUT_REGISTER}
 
   /** Todays maximum array voltage in 100V. */
-  DAY_MAX_ARRAY_VOLTAGE(0x3300),
+  DAY_MAX_ARRAY_VOLTAGE(0x3300, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Todays minimum array voltage in 100V. */
-  DAY_MIN_ARRAY_VOLTAGE(0x3301),
+  DAY_MIN_ARRAY_VOLTAGE(0x3301, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Todays maximum battery voltage in 100V. */
-  DAY_MAX_BATTERY_VOLTAGE(0x3302),
+  DAY_MAX_BATTERY_VOLTAGE(0x3302, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Todays minimum battery voltage in 100V. */
-  DAY_MIN_BATTERY_VOLTAGE(0x3303),
+  DAY_MIN_BATTERY_VOLTAGE(0x3303, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /** Todays load energy low bytes in 100kWh. */
-  DAY_LOAD_ENERGY_LOW(0x3304),
+  DAY_LOAD_ENERGY_LOW(0x3304, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Todays load energy high bytes in 100kWh. */
-  DAY_LOAD_ENERGY_HIGH(0x3305),
+  DAY_LOAD_ENERGY_HIGH(0x3305, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Month load energy low bytes in 100kWh. */
-  MONTH_LOAD_ENERGY_LOW(0x3306),
+  MONTH_LOAD_ENERGY_LOW(0x3306, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Month load energy high bytes in 100kWh. */
-  MONTH_LOAD_ENERGY_HIGH(0x3307),
+  MONTH_LOAD_ENERGY_HIGH(0x3307, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year load energy low bytes in 100kWh. */
-  YEAR_LOAD_ENERGY_LOW(0x3308),
+  YEAR_LOAD_ENERGY_LOW(0x3308, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year load energy high bytes in 100kWh. */
-  YEAR_LOAD_ENERGY_HIGH(0x3309),
+  YEAR_LOAD_ENERGY_HIGH(0x3309, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year load energy low bytes in 100kWh. */
-  TOTAL_LOAD_ENERGY_LOW(0x330A),
+  TOTAL_LOAD_ENERGY_LOW(0x330A, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year load energy high bytes in 100kWh. */
-  TOTAL_LOAD_ENERGY_HIGH(0x330B),
+  TOTAL_LOAD_ENERGY_HIGH(0x330B, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Todays array energy low bytes in 100kWh. */
-  DAY_ARRAY_ENERGY_LOW(0x330C),
+  DAY_ARRAY_ENERGY_LOW(0x330C, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Todays array energy high bytes in 100kWh. */
-  DAY_ARRAY_ENERGY_HIGH(0x330D),
+  DAY_ARRAY_ENERGY_HIGH(0x330D, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Month array energy low bytes in 100kWh. */
-  MONTH_ARRAY_ENERGY_LOW(0x330E),
+  MONTH_ARRAY_ENERGY_LOW(0x330E, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Month array energy high bytes in 100kWh. */
-  MONTH_ARRAY_ENERGY_HIGH(0x330F),
+  MONTH_ARRAY_ENERGY_HIGH(0x330F, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year array energy low bytes in 100kWh. */
-  YEAR_ARRAY_ENERGY_LOW(0x3310),
+  YEAR_ARRAY_ENERGY_LOW(0x3310, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year array energy high bytes in 100kWh. */
-  YEAR_ARRAY_ENERGY_HIGH(0x3311),
+  YEAR_ARRAY_ENERGY_HIGH(0x3311, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year array energy low bytes in 100kWh. */
-  TOTAL_ARRAY_ENERGY_LOW(0x3312),
+  TOTAL_ARRAY_ENERGY_LOW(0x3312, DataType.UINT32_LOW, 0.01f, Unit.KILOWATT_HOUR),
 
   /** Year array energy high bytes in 100kWh. */
-  TOTAL_ARRAY_ENERGY_HIGH(0x3313),
+  TOTAL_ARRAY_ENERGY_HIGH(0x3313, DataType.UINT32_HIGH, 0.01f, Unit.KILOWATT_HOUR),
 
   // *** Holding Registers {@link FunctionId#READ_HOLDING_REGISTER} and {@link FunctionId#WRITE_HOLDING_REGISTERS}
 
   /** Battery type: 0=User, 1=Sealed, 2=GEL, 3=Flooded. */
-  BATTERY_TYPE(0x9000),
+  BATTERY_TYPE(0x9000, DataType.BITFIELD, 1, Unit.NONE),
 
   /** Battery capacity in Ah. */
-  BATTERY_CAPACITY(0x9001),
+  BATTERY_CAPACITY(0x9001, DataType.UINT16, 1, Unit.AMPERE_HOUR),
 
   /** Discharging limit voltage in V. */
-  DISCHARGING_LIMIT_VOLTAGE(0x900E),
+  DISCHARGING_LIMIT_VOLTAGE(0x900E, DataType.UINT16, 0.01f, Unit.VOLT),
 
   /**
    * Clock seconds and minutes:
@@ -255,7 +256,7 @@ public enum Register {
    * <li>8-15: minutes 0-59
    * </ul>
    */
-  CLOCK_SECONDS_MINUTES(0x9013),
+  CLOCK_SECONDS_MINUTES(0x9013, DataType.BITFIELD, 1, Unit.NONE),
 
   /**
    * Clock hour and day:
@@ -264,7 +265,7 @@ public enum Register {
    * <li>8-15: day 1-31
    * </ul>
    */
-  CLOCK_HOUR_DAY(0x9014),
+  CLOCK_HOUR_DAY(0x9014, DataType.BITFIELD, 1, Unit.NONE),
 
   /**
    * Clock month and year:
@@ -273,20 +274,101 @@ public enum Register {
    * <li>8-15: year 0-255 (0=2000, ..., 255=2255)
    * </ul>
    */
-  CLOCK_MONTH_YEAR(0x9015),
+  CLOCK_MONTH_YEAR(0x9015, DataType.BITFIELD, 1, Unit.NONE),
 
   ;
 
+  /** The amount of registers, which is the size of arrays keyed by {@link #ordinal()}. */
+  public static final int COUNT = values().length;
+
   private final int address;
 
   private final byte high;
 
   private final byte low;
 
-  Register(final int address) {
+  private final DataType dataType;
+
+  private final float scale;
+
+  private final Unit unit;
+
+  Register(final int address, final DataType dataType, final float scale, final Unit unit) {
     this.address = address;
     high = (byte) (address >> 8);
     low = (byte) (address & 0xFF);
+    this.dataType = dataType;
+    this.scale = scale;
+    this.unit = unit;
+  }
+
+  /**
+   * The register address.
+   *
+   * @return The register address of type uint16_t.
+   */
+  public int address() {
+    return address;
+  }
+
+  /**
+   * The data type.
+   *
+   * @return The data type of the raw value.
+   */
+  public DataType dataType() {
+    return dataType;
+  }
+
+  /**
+   * The factor to convert the raw value into the unit, e.g. 0.01 for a voltage in 10mV.
+   *
+   * @return The scale.
+   */
+  public float scale() {
+    return scale;
+  }
+
+  /**
+   * The unit of the scaled value.
+   *
+   * @return The unit.
+   */
+  public Unit unit() {
+    return unit;
+  }
+
+  /**
+   * The other register of an unsigned integer with 32 bits.
+   *
+   * @return The next register for {@link DataType#UINT32_LOW}, the previous for {@link DataType#UINT32_HIGH}, or this
+   *         register for other data types.
+   */
+  public Register partner() {
+    return switch (dataType) {
+      case UINT32_LOW -> values()[ordinal() + 1];
+      case UINT32_HIGH -> values()[ordinal() - 1];
+      default -> this;
+    };
+  }
+
+  /**
+   * The function ID to read this register, which depends on the address range: coils below 0x1000, discrete inputs
+   * from 0x2000, input registers from 0x3000 and holding registers from 0x9000.
+   *
+   * @return The function ID to read this register.
+   */
+  public FunctionId functionId() {
+    if (address < 0x1000) {
+      return FunctionId.READ_COILS;
+    }
+    if (address < 0x3000) {
+      return FunctionId.READ_DISCRETE_INPUTS;
+    }
+    if (address < 0x9000) {
+      return FunctionId.READ_INPUT_REGISTER;
+    }
+    return FunctionId.READ_HOLDING_REGISTER;
   }
 
   /**
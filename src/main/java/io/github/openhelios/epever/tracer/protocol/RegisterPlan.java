@@ -0,0 +1,164 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.openhelios.epever.tracer.protocol.response.RegisterValues;
+
+/**
+ * The reads created by a {@link RegisterPlanner} for a set of registers. The responses can be decoded generically by
+ * the metadata of the registers into arrays keyed by {@link Register#ordinal()}. The location of each register in the
+ * responses is computed once, so decoding is a single loop over primitive arrays.
+ */
+public final class RegisterPlan {
+
+  private final Set<Register> registers;
+
+  private final List<Command<RegisterValues>> commands;
+
+  private final int[] ordinals;
+
+  private final DataType[] dataTypes;
+
+  private final float[] scales;
+
+  private final int[] commandIndices;
+
+  private final int[] valueIndices;
+
+  private final int[] highCommandIndices;
+
+  private final int[] highValueIndices;
+
+  /**
+   * Constructor.
+   *
+   * @param registers The requested registers.
+   * @param commands The commands reading all requested registers.
+   */
+  RegisterPlan(final Set<Register> registers, final List<Command<RegisterValues>> commands) {
+    this.registers = Collections.unmodifiableSet(registers);
+    this.commands = List.copyOf(commands);
+    final int size = registers.size();
+    ordinals = new int[size];
+    dataTypes = new DataType[size];
+    scales = new float[size];
+    commandIndices = new int[size];
+    valueIndices = new int[size];
+    highCommandIndices = new int[size];
+    highValueIndices = new int[size];
+    int i = 0;
+    for (final Register register : registers) {
+      ordinals[i] = register.ordinal();
+      dataTypes[i] = register.dataType();
+      scales[i] = register.scale();
+      final Register low = DataType.UINT32_HIGH == register.dataType() ? register.partner() : register;
+      commandIndices[i] = indexOfCommand(low);
+      valueIndices[i] = low.address() - commands.get(commandIndices[i]).getAddress();
+      if (register.dataType().isUInt32()) {
+        final Register high = low.partner();
+        highCommandIndices[i] = indexOfCommand(high);
+        highValueIndices[i] = high.address() - commands.get(highCommandIndices[i]).getAddress();
+      }
+      i++;
+    }
+  }
+
+  private int indexOfCommand(final Register register) {
+    for (int i = 0; i < commands.size(); i++) {
+      final Command<RegisterValues> command = commands.get(i);
+      if (command.getFunctionId() == register.functionId() && command.getAddress() <= register.address()
+          && register.address() < command.getAddress() + command.getCount()) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(register + " is not read by any command");
+  }
+
+  /**
+   * The requested registers.
+   *
+   * @return The unmodifiable set of requested registers.
+   */
+  public Set<Register> getRegisters() {
+    return registers;
+  }
+
+  /**
+   * The commands reading all requested registers.
+   *
+   * @return The unmodifiable list of commands.
+   */
+  public List<Command<RegisterValues>> getCommands() {
+    return commands;
+  }
+
+  /**
+   * Creates a poll plan with the commands of this plan.
+   *
+   * @return The created poll plan.
+   */
+  public PollPlan toPollPlan() {
+    return PollPlan.of(commands);
+  }
+
+  /**
+   * Decodes the raw values of the requested registers: unsigned or signed integers with 16 bits, unsigned integers with
+   * 32 bits for both registers of a pair, 0 or 1 for coils and discrete inputs, and bit fields unchanged.
+   *
+   * @param responses The responses in the order of the {@link #getCommands() commands}.
+   * @param values The array with at least {@link Register#COUNT} elements, where the value of each requested register
+   *          is set at its ordinal. Other elements are not changed.
+   */
+  public void decode(final List<RegisterValues> responses, final long[] values) {
+    for (int i = 0; i < ordinals.length; i++) {
+      values[ordinals[i]] = raw(responses, i);
+    }
+  }
+
+  /**
+   * Decodes the values of the requested registers scaled into their {@link Register#unit() units}.
+   *
+   * @param responses The responses in the order of the {@link #getCommands() commands}.
+   * @param values The array with at least {@link Register#COUNT} elements, where the value of each requested register
+   *          is set at its ordinal. Other elements are not changed.
+   */
+  public void decode(final List<RegisterValues> responses, final float[] values) {
+    for (int i = 0; i < ordinals.length; i++) {
+      values[ordinals[i]] = raw(responses, i) * scales[i];
+    }
+  }
+
+  private long raw(final List<RegisterValues> responses, final int i) {
+    final int value = responses.get(commandIndices[i]).valueAt(valueIndices[i]);
+    return switch (dataTypes[i]) {
+      case INT16 -> (short) value;
+      case UINT32_LOW, UINT32_HIGH ->
+          value | (long) responses.get(highCommandIndices[i]).valueAt(highValueIndices[i]) << 16;
+      default -> value;
+    };
+  }
+
+  /**
+   * Splits the responses to the commands of this plan into the values of the requested registers.
+   *
+   * @param responses The responses in any order.
+   * @return The value of type uint16_t for each requested register, which is contained in a response.
+   */
+  public Map<Register, Integer> split(final List<RegisterValues> responses) {
+    final Map<Register, Integer> values = new EnumMap<>(Register.class);
+    for (final Register register : registers) {
+      for (final RegisterValues response : responses) {
+        if (response.contains(register)) {
+          values.put(register, response.get(register));
+          break;
+        }
+      }
+    }
+    return values;
+  }
+
+}
@@ -0,0 +1,86 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import io.github.openhelios.epever.tracer.protocol.response.RegisterValues;
+
+/**
+ * Planner merging the requested registers into the minimal amount of contiguous reads per function ID. A read ends,
+ * when the next register is further away than the gap tolerance or the read would exceed
+ * {@value Command#MAX_READ_REGISTERS} registers or {@value Command#MAX_READ_BITS} coils or discrete inputs.
+ */
+public class RegisterPlanner {
+
+  private int gapTolerance;
+
+  /**
+   * Constructor for a planner merging only adjacent registers.
+   */
+  public RegisterPlanner() {
+    // the gap tolerance is 0 by default
+  }
+
+  /**
+   * Gets the maximum amount of unrequested addresses between two requested registers, which are read together.
+   *
+   * @return The gap tolerance.
+   */
+  public int getGapTolerance() {
+    return gapTolerance;
+  }
+
+  /**
+   * Sets the maximum amount of unrequested addresses between two requested registers, which are read together. The
+   * default is 0, so only adjacent registers are merged, because a device may answer reads of undefined addresses with
+   * an error.
+   *
+   * @param gapTolerance The gap tolerance.
+   */
+  public void setGapTolerance(final int gapTolerance) {
+    if (gapTolerance < 0) {
+      throw new IllegalArgumentException("expected non-negative gap tolerance, but was " + gapTolerance);
+    }
+    this.gapTolerance = gapTolerance;
+  }
+
+  /**
+   * Plans the reads for the given registers. Both registers of an unsigned integer with 32 bits are read, even if only
+   * one of them is requested.
+   *
+   * @param registers The requested registers in any order.
+   * @return The created plan.
+   */
+  public RegisterPlan plan(final Collection<Register> registers) {
+    final Set<Register> requested = EnumSet.noneOf(Register.class);
+    for (final Register register : registers) {
+      requested.add(register);
+      requested.add(register.partner());
+    }
+    final List<Command<RegisterValues>> commands = new ArrayList<>();
+    for (final FunctionId functionId : new FunctionId[] { FunctionId.READ_COILS, FunctionId.READ_DISCRETE_INPUTS,
+        FunctionId.READ_INPUT_REGISTER, FunctionId.READ_HOLDING_REGISTER }) {
+      final int max = FunctionId.READ_COILS == functionId || FunctionId.READ_DISCRETE_INPUTS == functionId
+          ? Command.MAX_READ_BITS
+          : Command.MAX_READ_REGISTERS;
+      final int[] addresses = requested.stream().filter(r -> r.functionId() == functionId)
+          .mapToInt(Register::address).sorted().toArray();
+      int i = 0;
+      while (i < addresses.length) {
+        final int start = addresses[i];
+        int end = start;
+        i++;
+        while (i < addresses.length && addresses[i] - end - 1 <= gapTolerance && addresses[i] - start < max) {
+          end = addresses[i];
+          i++;
+        }
+        commands.add(Command.read(functionId, start, end - start + 1));
+      }
+    }
+    return new RegisterPlan(requested, commands);
+  }
+
+}
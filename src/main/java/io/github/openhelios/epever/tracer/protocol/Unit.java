@@ -0,0 +1,49 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+/**
+ * The unit of a scaled register value.
+ */
+public enum Unit {
+
+  /** No unit. */
+  NONE(""),
+
+  /** Volt. */
+  VOLT("V"),
+
+  /** Ampere. */
+  AMPERE("A"),
+
+  /** Watt. */
+  WATT("W"),
+
+  /** Kilowatt hour. */
+  KILOWATT_HOUR("kWh"),
+
+  /** Ampere hour. */
+  AMPERE_HOUR("Ah"),
+
+  /** Degree Celsius. */
+  CELSIUS("°C"),
+
+  /** Percent. */
+  PERCENT("%"),
+
+  ;
+
+  private final String symbol;
+
+  Unit(final String symbol) {
+    this.symbol = symbol;
+  }
+
+  /**
+   * The symbol.
+   *
+   * @return The symbol, e.g. {@code V}, or an empty string for {@link #NONE}.
+   */
+  public String symbol() {
+    return symbol;
+  }
+
+}
@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Index;
 
 /**
@@ -19,6 +21,15 @@ public record ActualArrayBattery( //
    * @param message The message.
    */
   public ActualArrayBattery(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public ActualArrayBattery(final ByteBuffer message) {
     this( //
         new VoltageCurrentPower(message, Index.DATA.get()), // array
         new VoltageCurrentPower(message, Index.DATA.get() + 8) // battery
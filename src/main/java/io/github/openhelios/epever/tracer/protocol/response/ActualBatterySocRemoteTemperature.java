@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
@@ -20,9 +22,18 @@ public record ActualBatterySocRemoteTemperature( //
    * @param message The message.
    */
   public ActualBatterySocRemoteTemperature(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public ActualBatterySocRemoteTemperature(final ByteBuffer message) {
     this( //
         Data.uint16(message, Index.DATA.get()), //
-        Data.uint16(message, Index.DATA.get() + 2) / 100f //
+        Data.int16(message, Index.DATA.get() + 2) / 100f //
     );
   }
 
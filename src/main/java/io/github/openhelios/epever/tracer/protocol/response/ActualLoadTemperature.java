@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
@@ -24,11 +26,20 @@ public record ActualLoadTemperature( //
    * @param message The message.
    */
   public ActualLoadTemperature(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public ActualLoadTemperature(final ByteBuffer message) {
     this( //
         new VoltageCurrentPower(message, Index.DATA.get()), // load
-        Data.uint16(message, Index.DATA.get() + 8) / 100f, // battery temperature
-        Data.uint16(message, Index.DATA.get() + 10) / 100f, // inside temperature
-        Data.uint16(message, Index.DATA.get() + 12) / 100f // power temperature
+        Data.int16(message, Index.DATA.get() + 8) / 100f, // battery temperature
+        Data.int16(message, Index.DATA.get() + 10) / 100f, // inside temperature
+        Data.int16(message, Index.DATA.get() + 12) / 100f // power temperature
     );
   }
 
@@ -1,5 +1,8 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
+import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
 /**
@@ -16,7 +19,16 @@ public record BatteryChargingDischargingStatus( //
    * @param message The message.
    */
   public BatteryChargingDischargingStatus(final byte[] message) {
-    this(1 == (message[Index.DATA.get() + 5] & 1));
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public BatteryChargingDischargingStatus(final ByteBuffer message) {
+    this(1 == (Data.int8(message, Index.DATA.get() + 5) & 1));
   }
 
 }
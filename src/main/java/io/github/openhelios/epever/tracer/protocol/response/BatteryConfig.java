@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
@@ -28,8 +30,17 @@ public record BatteryConfig( //
    * @param message The message.
    */
   public BatteryConfig(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public BatteryConfig(final ByteBuffer message) {
     this( //
-        BatteryType.byId(message[Index.DATA.get()]), //
+        BatteryType.byId(Data.int8(message, Index.DATA.get())), //
         Data.uint16(message, Index.DATA.get() + 2), //
         Data.uint16(message, Index.DATA.get() + 6) / 100f, //
         Data.uint16(message, Index.DATA.get() + 8) / 100f, //
@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
@@ -18,6 +20,15 @@ public record BatterySystem( //
    * @param message The message.
    */
   public BatterySystem(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public BatterySystem(final ByteBuffer message) {
     this( //
         Data.uint16(message, Index.DATA.get()) / 100f //
     );
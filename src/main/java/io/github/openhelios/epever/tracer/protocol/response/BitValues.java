@@ -0,0 +1,215 @@
+package io.github.openhelios.epever.tracer.protocol.response;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
+
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Index;
+import io.github.openhelios.epever.tracer.protocol.Register;
+
+/**
+ * The states of a range of coils or discrete inputs read by one command, or combined from several commands with
+ * {@link #combine(List)}. The states are kept packed into a bitmask, where bit i is the state of the address
+ * {@code getAddress() + i}. Addresses between the combined ranges have not been read and are not contained.
+ */
+public final class BitValues implements Response {
+
+  private final FunctionId functionId;
+
+  private final int address;
+
+  private final int count;
+
+  private final long[] words;
+
+  private final long[] read;
+
+  /**
+   * Constructor reading the states from the frame without keeping it.
+   *
+   * @param functionId The function ID {@link FunctionId#READ_COILS} or {@link FunctionId#READ_DISCRETE_INPUTS}.
+   * @param address The first address read by the command.
+   * @param count The amount of coils or discrete inputs read by the command.
+   * @param message The response from the position up to the limit.
+   */
+  public BitValues(final FunctionId functionId, final int address, final int count, final ByteBuffer message) {
+    this.functionId = functionId;
+    this.address = address;
+    this.count = count;
+    words = new long[(count + 63) / 64];
+    for (int i = 0; i < (count + 7) / 8; i++) {
+      words[i / 8] |= (long) Data.uint8(message, Index.DATA.get() + i) << i % 8 * 8;
+    }
+    read = new long[words.length];
+    for (int i = 0; i < count; i++) {
+      read[i / 64] |= 1L << i % 64;
+    }
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= read[i];
+    }
+  }
+
+  private BitValues(final FunctionId functionId, final int address, final int count, final long[] words,
+      final long[] read) {
+    this.functionId = functionId;
+    this.address = address;
+    this.count = count;
+    this.words = words;
+    this.read = read;
+  }
+
+  /**
+   * Combines the states read by several commands with the same function ID, e.g. the commands of
+   * {@link io.github.openhelios.epever.tracer.protocol.Command#coils()}.
+   *
+   * @param values The states read by each command.
+   * @return The states from the lowest up to the highest read address.
+   * @throws IllegalArgumentException if no states are given or the function IDs differ.
+   */
+  public static BitValues combine(final List<BitValues> values) {
+    if (values.isEmpty()) {
+      throw new IllegalArgumentException("expected states to combine");
+    }
+    final FunctionId functionId = values.get(0).functionId;
+    int first = Integer.MAX_VALUE;
+    int end = 0;
+    for (final BitValues value : values) {
+      if (functionId != value.functionId) {
+        throw new IllegalArgumentException("expected " + functionId + ", but was " + value.functionId);
+      }
+      first = Math.min(first, value.address);
+      end = Math.max(end, value.address + value.count);
+    }
+    final long[] words = new long[(end - first + 63) / 64];
+    final long[] read = new long[words.length];
+    for (final BitValues value : values) {
+      for (int i = 0; i < value.count; i++) {
+        if (value.isRead(i)) {
+          final int j = value.address - first + i;
+          read[j / 64] |= 1L << j % 64;
+          words[j / 64] |= (value.words[i / 64] >>> i % 64 & 1) << j % 64;
+        }
+      }
+    }
+    return new BitValues(functionId, first, end - first, words, read);
+  }
+
+  private boolean isRead(final int i) {
+    return (read[i / 64] >>> i % 64 & 1) != 0;
+  }
+
+  /**
+   * The function ID used to read the states.
+   *
+   * @return The read function ID.
+   */
+  public FunctionId getFunctionId() {
+    return functionId;
+  }
+
+  /**
+   * The first address.
+   *
+   * @return The address of the first state.
+   */
+  public int getAddress() {
+    return address;
+  }
+
+  /**
+   * The amount of read states.
+   *
+   * @return The amount of read coils or discrete inputs.
+   */
+  public int size() {
+    int size = 0;
+    for (final long r : read) {
+      size += Long.bitCount(r);
+    }
+    return size;
+  }
+
+  /**
+   * Checks, if the state of the given address has been read.
+   *
+   * @param a The address.
+   * @return True, if the state of the address has been read.
+   */
+  public boolean contains(final int a) {
+    return address <= a && a < address + count && isRead(a - address);
+  }
+
+  /**
+   * Checks, if the given coil or discrete input has been read.
+   *
+   * @param register The coil or discrete input.
+   * @return True, if the state has been read.
+   */
+  public boolean contains(final Register register) {
+    return register.functionId() == functionId && contains(register.address());
+  }
+
+  /**
+   * Gets the state of the given address.
+   *
+   * @param a The address.
+   * @return The state.
+   * @throws IllegalArgumentException if the state of the address has not been read.
+   */
+  public boolean get(final int a) {
+    if (!contains(a)) {
+      throw new IllegalArgumentException("address " + Integer.toHexString(a) + " not read");
+    }
+    final int i = a - address;
+    return (words[i / 64] >>> i % 64 & 1) != 0;
+  }
+
+  /**
+   * Gets the state of the given coil or discrete input.
+   *
+   * @param register The coil or discrete input.
+   * @return The state.
+   * @throws IllegalArgumentException if the register has not been read.
+   */
+  public boolean get(final Register register) {
+    if (!contains(register)) {
+      throw new IllegalArgumentException(register + " not read");
+    }
+    return get(register.address());
+  }
+
+  /**
+   * The first 64 states as bitmask, which are all states for ranges up to 64 coils or discrete inputs.
+   *
+   * @return The bitmask, where bit i is the state of the address {@code getAddress() + i} and 0, if not read.
+   */
+  public long toLong() {
+    return words[0];
+  }
+
+  /**
+   * All states as bit set.
+   *
+   * @return The new bit set, where bit i is the state of the address {@code getAddress() + i} and 0, if not read.
+   */
+  public BitSet toBitSet() {
+    return BitSet.valueOf(words);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(functionId).append(" 0x").append(Integer.toHexString(address)).append(": ");
+    for (int i = 0; i < count; i++) {
+      if (!isRead(i)) {
+        sb.append('-');
+      } else {
+        sb.append((words[i / 64] >>> i % 64 & 1) != 0 ? '1' : '0');
+      }
+    }
+    return sb.toString();
+  }
+
+}
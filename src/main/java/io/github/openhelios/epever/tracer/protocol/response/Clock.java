@@ -1,5 +1,6 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 
 import io.github.openhelios.epever.tracer.protocol.Data;
@@ -51,6 +52,15 @@ public record Clock( //
    * @param message The message.
    */
   public Clock(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public Clock(final ByteBuffer message) {
     this( //
         Data.uint16(message, Index.DATA.get()), //
         Data.uint16(message, Index.DATA.get() + 2), //
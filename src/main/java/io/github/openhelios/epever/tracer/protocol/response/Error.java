@@ -1,5 +1,9 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.FunctionId;
 
 /**
@@ -8,7 +12,9 @@ import io.github.openhelios.epever.tracer.protocol.FunctionId;
  * @param functionId The function ID.
  * @param code The error code.
  */
-public record Error(FunctionId functionId, ErrorCode code) implements Response {
+public record Error(FunctionId functionId, ErrorCode code) implements Response, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /**
    * Constructor.
@@ -16,7 +22,16 @@ public record Error(FunctionId functionId, ErrorCode code) implements Response {
    * @param bytes The bytes.
    */
   public Error(final byte[] bytes) {
-    this(FunctionId.getByIdIgnoringErrorBit(bytes[1]), ErrorCode.getByCode(bytes[2]));
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public Error(final ByteBuffer message) {
+    this(FunctionId.getByIdIgnoringErrorBit(Data.int8(message, 1)), ErrorCode.getByCode(Data.int8(message, 2)));
   }
 
 }
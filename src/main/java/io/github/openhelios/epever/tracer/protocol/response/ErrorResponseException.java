@@ -0,0 +1,31 @@
+package io.github.openhelios.epever.tracer.protocol.response;
+
+/**
+ * Exception to complete a request exceptionally, if the device answered with an {@link Error}.
+ */
+public class ErrorResponseException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Error error;
+
+  /**
+   * Constructor.
+   *
+   * @param error The error received from the device.
+   */
+  public ErrorResponseException(final Error error) {
+    super("device responded with " + error.code() + " for " + error.functionId());
+    this.error = error;
+  }
+
+  /**
+   * The error received from the device.
+   *
+   * @return The error.
+   */
+  public Error getError() {
+    return error;
+  }
+
+}
@@ -1,133 +1,176 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
 
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.github.openhelios.epever.tracer.Tracer3210ANListener;
-import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Command;
 import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.FrameDecoder;
 import io.github.openhelios.epever.tracer.protocol.FunctionId;
 import io.github.openhelios.epever.tracer.protocol.Index;
-import io.github.openhelios.epever.tracer.protocol.Message;
 
 /**
- * Class to parse the bytes from the DPS-150 to create typed response classes and notifies all listeners.
+ * Class to parse the bytes from the Tracer 3210AN to create typed response classes and calls the handler. The
+ * bytes may be received in arbitrary chunks, because frames are reassembled by a {@link FrameDecoder}.
  */
-@SuppressWarnings("ArrayRecordComponent")
 public class Messages {
 
-  private static final Logger LOG = LoggerFactory.getLogger(Messages.class);
+  /**
+   * Handler for each created response.
+   */
+  public interface ResponseHandler {
 
-  private final byte[] bytes;
-  private final Class<? extends Response> responseType;
-  private final Set<Tracer3210ANListener> listeners;
+    /**
+     * A response has been received.
+     *
+     * @param deviceId The ID of the responding device.
+     * @param response The response.
+     */
+    void onResponse(int deviceId, Response response);
 
-  private int startMessageIndex;
-  private int nextMessageIndex;
-  private Response response;
+  }
+
+  /**
+   * Listener for each received frame, which is called before the response is created.
+   */
+  public interface FrameListener {
+
+    /**
+     * A frame with a valid checksum has been received. The buffer is a view of the receive buffer and reused for the
+     * next frame, so it is only valid during the call and must not be modified. The fields can be read without
+     * allocation by the {@link Data} methods for {@link ByteBuffer}.
+     *
+     * @param command The command waiting for its response, which may be {@code null}, if no command is waiting.
+     * @param frame The frame including the checksum from the position up to the limit.
+     */
+    void onFrame(@Nullable Command<?> command, ByteBuffer frame);
+
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(Messages.class);
+
+  private final FrameDecoder decoder = new FrameDecoder(this::onFrame);
+  private final Supplier<@Nullable Command<?>> expectedCommand;
+  private final ResponseHandler handler;
+  private ByteBuffer frame = ByteBuffer.allocate(0);
+  @Nullable
+  private volatile FrameListener frameListener;
 
   /**
    * Constructor.
    *
+   * @param expectedCommand Supplies the command waiting for its response, which may be {@code null}, if no command is
+   *          waiting.
+   * @param handler The handler to be called for each response.
+   */
+  public Messages(final Supplier<@Nullable Command<?>> expectedCommand, final ResponseHandler handler) {
+    this.expectedCommand = expectedCommand;
+    this.handler = handler;
+  }
+
+  /**
+   * Reads the received bytes, creates the typed response classes for all completed frames and calls the handler.
+   *
+   * @param bytes The received bytes.
+   */
+  public void read(final byte[] bytes) {
+    decoder.accept(bytes);
+  }
+
+  /**
+   * Reads the received bytes, creates the typed response classes for all completed frames and calls the handler.
+   *
+   * @param bytes The buffer with the received bytes.
+   * @param offset The index of the first received byte.
+   * @param length The amount of received bytes.
+   */
+  public void read(final byte[] bytes, final int offset, final int length) {
+    decoder.accept(bytes, offset, length);
+  }
+
+  /**
+   * Reads the received bytes from the position up to the limit of the given buffer, which may be a direct buffer,
+   * creates the typed response classes for all completed frames and calls the handler.
+   *
    * @param bytes The received bytes.
-   * @param responseType The response type.
-   * @param listeners The listeners.
    */
-  public Messages(final byte[] bytes, final Class<? extends Response> responseType,
-      final Set<Tracer3210ANListener> listeners) {
-    this.bytes = bytes;
-    this.responseType = responseType;
-    this.listeners = listeners;
+  public void read(final ByteBuffer bytes) {
+    decoder.accept(bytes);
   }
 
-  private boolean hasMore() {
-    if (startMessageIndex >= bytes.length) {
-      return false;
+  /**
+   * Sets the listener, which is called synchronously for each received frame before the response is created.
+   *
+   * @param frameListener The frame listener or {@code null} to remove it.
+   */
+  public void setFrameListener(@Nullable final FrameListener frameListener) {
+    this.frameListener = frameListener;
+  }
+
+  /**
+   * Discards an incompletely received frame.
+   */
+  public void reset() {
+    decoder.reset();
+  }
+
+  /**
+   * The frame decoder.
+   *
+   * @return The frame decoder reassembling the received bytes.
+   */
+  public FrameDecoder getDecoder() {
+    return decoder;
+  }
+
+  private void onFrame(final byte[] buffer, final int offset, final int length) {
+    if (!frame.hasArray() || frame.array() != buffer) {
+      frame = ByteBuffer.wrap(buffer);
     }
-    final byte deviceId = bytes[startMessageIndex];
-    if (Message.DEFAULT_DEVICE_ID != deviceId) {
-      LOG.error("expected address ID {}, but was {}", Data.hex(Message.DEFAULT_DEVICE_ID), Data.hex(deviceId));
-      return false;
+    final Command<?> command = expectedCommand.get();
+    final FrameListener listener = frameListener;
+    if (null != listener) {
+      listener.onFrame(command, view(offset, length));
     }
-    final byte id = bytes[startMessageIndex + Index.FUNCTION_ID.get()];
+    final ByteBuffer message = view(offset, length);
+    handler.onResponse(Data.uint8(message, Index.DEVICE_ID.get()), createResponse(command, message));
+  }
+
+  private ByteBuffer view(final int offset, final int length) {
+    frame.clear().position(offset).limit(offset + length);
+    return frame;
+  }
+
+  private Response createResponse(@Nullable final Command<?> command, final ByteBuffer message) {
+    final byte id = Data.int8(message, Index.FUNCTION_ID.get());
     if (FunctionId.hasErrorBit(id)) {
-      nextMessageIndex = startMessageIndex + 5;
-      response = new Error(Arrays.copyOfRange(bytes, startMessageIndex, nextMessageIndex));
-      return true;
-    }
-    final FunctionId functionId = FunctionId.findById(id);
-    if (null == functionId) {
-      nextMessageIndex = bytes.length;
-      response = new GenericResponse(Arrays.copyOfRange(bytes, startMessageIndex, nextMessageIndex));
-      return true;
-    }
-    if (FunctionId.WRITE_COIL.equals(functionId) || FunctionId.WRITE_HOLDING_REGISTERS.equals(functionId)) {
-      nextMessageIndex = startMessageIndex + 8;
-      response = new Ok(Arrays.copyOfRange(bytes, startMessageIndex, nextMessageIndex));
-      return true;
-    }
-    final int sizeIndex = startMessageIndex + Index.DATA_SIZE.get();
-    if (sizeIndex >= bytes.length) {
-      LOG.error("expected sizeIndex={} < bytes.length={}", sizeIndex, bytes.length);
-      return false;
-    }
-    final int dataSize = Data.uint8(bytes[sizeIndex]);
-    final int messageSize = Index.DATA.get() + dataSize + Checksum.SIZE;
-    nextMessageIndex = startMessageIndex + messageSize;
-    if (nextMessageIndex > bytes.length) {
-      LOG.error("expected next message starts at {}, but was not inside bytes.length={}", nextMessageIndex,
-          bytes.length);
-      return false;
+      return new Error(message);
     }
-    final byte[] message = Arrays.copyOfRange(bytes, startMessageIndex, nextMessageIndex);
-    final String error = Checksum.check(message);
-    if (null != error) {
-      LOG.error(error);
-      return false;
-    }
-    response = switch (functionId) {
-      case READ_INPUT_REGISTER -> createResponse(message);
-      case READ_HOLDING_REGISTER -> createResponse(message);
-      default -> new GenericResponse(message);
+    return switch (FunctionId.byId(id)) {
+      case WRITE_COIL, WRITE_HOLDING_REGISTERS -> new Ok(message);
+      case READ_INPUT_REGISTER, READ_HOLDING_REGISTER, READ_COILS, READ_DISCRETE_INPUTS ->
+          createTypedResponse(command, message);
+      default -> new GenericResponse(copy(message));
     };
-    return true;
   }
 
-  private Response createResponse(final byte[] message) {
-    Constructor<? extends Response> constructor;
-    try {
-      responseType.getConstructors();
-      constructor = responseType.getConstructor(byte[].class);
-    } catch (NoSuchMethodException | SecurityException e) {
-      throw new IllegalStateException("getting constructor for " + responseType.getSimpleName() + " failed", e);
-    }
-    try {
-      return constructor.newInstance(message);
-    } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      throw new IllegalStateException("creating instance failed", e);
+  private Response createTypedResponse(@Nullable final Command<?> command, final ByteBuffer message) {
+    if (null == command || !command.matches(message)) {
+      final byte[] bytes = copy(message);
+      LOG.warn("unexpected response {}", Data.hex(bytes));
+      return new GenericResponse(bytes);
     }
+    return command.decode(message);
   }
 
-  private Response next() {
-    startMessageIndex = nextMessageIndex;
-    return response;
-  }
-
-  /**
-   * Read all bytes, creates the typed response classes and notifies the listeners.
-   */
-  public void readAll() {
-    while (hasMore()) {
-      final Response response = next();
-      for (final Tracer3210ANListener listener : listeners) {
-        listener.onMessage(response);
-      }
-    }
+  private static byte[] copy(final ByteBuffer message) {
+    final byte[] bytes = new byte[message.remaining()];
+    message.get(message.position(), bytes);
+    return bytes;
   }
 
 }
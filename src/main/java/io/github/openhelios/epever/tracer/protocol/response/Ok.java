@@ -1,5 +1,8 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
+import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.FunctionId;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
@@ -16,7 +19,16 @@ public record Ok(FunctionId functionId) implements Response {
    * @param message The message.
    */
   public Ok(final byte[] message) {
-    this(FunctionId.byId(message[Index.FUNCTION_ID.get()]));
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public Ok(final ByteBuffer message) {
+    this(FunctionId.byId(Data.int8(message, Index.FUNCTION_ID.get())));
   }
 
   @Override
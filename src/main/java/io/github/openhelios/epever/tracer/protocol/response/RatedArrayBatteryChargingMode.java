@@ -1,5 +1,8 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
+import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 
 /**
@@ -21,10 +24,19 @@ public record RatedArrayBatteryChargingMode( //
    * @param message The message.
    */
   public RatedArrayBatteryChargingMode(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public RatedArrayBatteryChargingMode(final ByteBuffer message) {
     this( //
         new VoltageCurrentPower(message, Index.DATA.get()), // array
         new VoltageCurrentPower(message, Index.DATA.get() + 8), // battery
-        ChargingMode.findById(message[Index.DATA.get() + 17]) //
+        ChargingMode.findById(Data.int8(message, Index.DATA.get() + 17)) //
     );
   }
 
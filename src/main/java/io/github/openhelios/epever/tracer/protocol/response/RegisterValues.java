@@ -0,0 +1,137 @@
+package io.github.openhelios.epever.tracer.protocol.response;
+
+import java.nio.ByteBuffer;
+
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Index;
+import io.github.openhelios.epever.tracer.protocol.Register;
+
+/**
+ * The raw values of a contiguous range of registers, coils or discrete inputs read by one command. Coils and discrete
+ * inputs have the value 0 or 1.
+ */
+public final class RegisterValues implements Response {
+
+  private final FunctionId functionId;
+
+  private final int address;
+
+  private final char[] values;
+
+  /**
+   * Constructor reading the values from the frame without keeping it.
+   *
+   * @param functionId The read function ID of the command.
+   * @param address The first address read by the command.
+   * @param count The amount of registers, coils or discrete inputs read by the command.
+   * @param message The response from the position up to the limit.
+   */
+  public RegisterValues(final FunctionId functionId, final int address, final int count, final ByteBuffer message) {
+    this.functionId = functionId;
+    this.address = address;
+    values = new char[count];
+    final boolean isBits = FunctionId.READ_COILS == functionId || FunctionId.READ_DISCRETE_INPUTS == functionId;
+    for (int i = 0; i < count; i++) {
+      values[i] = (char) (isBits //
+          ? Data.uint8(message, Index.DATA.get() + i / 8) >> i % 8 & 1 //
+          : Data.uint16(message, Index.DATA.get() + 2 * i));
+    }
+  }
+
+  /**
+   * The function ID used to read the values.
+   *
+   * @return The read function ID.
+   */
+  public FunctionId getFunctionId() {
+    return functionId;
+  }
+
+  /**
+   * The first address.
+   *
+   * @return The address of the first value.
+   */
+  public int getAddress() {
+    return address;
+  }
+
+  /**
+   * The amount of values.
+   *
+   * @return The amount of values.
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Gets the value at the given index.
+   *
+   * @param index The index relative to the first address.
+   * @return The value of type uint16_t.
+   */
+  public int valueAt(final int index) {
+    return values[index];
+  }
+
+  /**
+   * Checks, if the given address is in the read range.
+   *
+   * @param a The address.
+   * @return True, if the value of the address has been read.
+   */
+  public boolean contains(final int a) {
+    return address <= a && a < address + values.length;
+  }
+
+  /**
+   * Checks, if the given register is in the read range.
+   *
+   * @param register The register.
+   * @return True, if the value of the register has been read.
+   */
+  public boolean contains(final Register register) {
+    return register.functionId() == functionId && contains(register.address());
+  }
+
+  /**
+   * Gets the value of the given address.
+   *
+   * @param a The address.
+   * @return The value of type uint16_t.
+   * @throws IllegalArgumentException if the address is not in the read range.
+   */
+  public int get(final int a) {
+    if (!contains(a)) {
+      throw new IllegalArgumentException("address " + Integer.toHexString(a) + " not in read range");
+    }
+    return values[a - address];
+  }
+
+  /**
+   * Gets the value of the given register.
+   *
+   * @param register The register.
+   * @return The value of type uint16_t.
+   * @throws IllegalArgumentException if the register is not in the read range.
+   */
+  public int get(final Register register) {
+    if (!contains(register)) {
+      throw new IllegalArgumentException(register + " not in read range");
+    }
+    return values[register.address() - address];
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(functionId).append(" 0x").append(Integer.toHexString(address)).append(':');
+    for (final char value : values) {
+      sb.append(' ').append((int) value);
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,23 @@
+package io.github.openhelios.epever.tracer.protocol.response;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoder creating a typed response from a received frame, usually a reference to the {@link ByteBuffer} constructor
+ * of the response, e.g. {@code ActualArrayBattery::new}.
+ *
+ * @param <T> The type of the created response.
+ */
+@FunctionalInterface
+public interface ResponseDecoder<T extends Response> {
+
+  /**
+   * Creates the response from the given frame.
+   *
+   * @param frame The frame including the checksum from the position up to the limit, which is only valid during the
+   *          call.
+   * @return The created response.
+   */
+  T decode(ByteBuffer frame);
+
+}
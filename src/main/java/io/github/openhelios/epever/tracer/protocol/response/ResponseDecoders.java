@@ -0,0 +1,82 @@
+package io.github.openhelios.epever.tracer.protocol.response;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.Nullable;
+
+import io.github.openhelios.epever.tracer.protocol.response.statistic.ArrayEnergyStatistics;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.DayMinMaxVoltageStatistics;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.LoadEnergyStatistics;
+
+/**
+ * Registry of the {@link ResponseDecoder} for each response type. The decoders are bound by method references without
+ * reflection, so the lookup is done once when a command is created and not for each received frame.
+ */
+public final class ResponseDecoders {
+
+  private static final Map<Class<?>, ResponseDecoder<?>> DECODERS = new ConcurrentHashMap<>();
+
+  static {
+    register(Ok.class, Ok::new);
+    register(Error.class, Error::new);
+    register(RatedArrayBatteryChargingMode.class, RatedArrayBatteryChargingMode::new);
+    register(RatedLoad.class, RatedLoad::new);
+    register(ActualArrayBattery.class, ActualArrayBattery::new);
+    register(ActualLoadTemperature.class, ActualLoadTemperature::new);
+    register(ActualBatterySocRemoteTemperature.class, ActualBatterySocRemoteTemperature::new);
+    register(BatterySystem.class, BatterySystem::new);
+    register(BatteryChargingDischargingStatus.class, BatteryChargingDischargingStatus::new);
+    register(BatteryConfig.class, BatteryConfig::new);
+    register(Clock.class, Clock::new);
+    register(DayMinMaxVoltageStatistics.class, DayMinMaxVoltageStatistics::new);
+    register(LoadEnergyStatistics.class, LoadEnergyStatistics::new);
+    register(ArrayEnergyStatistics.class, ArrayEnergyStatistics::new);
+  }
+
+  private ResponseDecoders() {
+    // utility class
+  }
+
+  /**
+   * Registers the decoder for the given response type, which replaces a previously registered decoder.
+   *
+   * @param <T> The response type.
+   * @param responseType The class of the response type.
+   * @param decoder The decoder.
+   */
+  public static <T extends Response> void register(final Class<T> responseType, final ResponseDecoder<T> decoder) {
+    DECODERS.put(responseType, decoder);
+  }
+
+  /**
+   * Finds the decoder for the given response type.
+   *
+   * @param <T> The response type.
+   * @param responseType The class of the response type.
+   * @return The decoder or {@code null}, if none is registered.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public static <T extends Response> ResponseDecoder<T> find(final Class<T> responseType) {
+    return (ResponseDecoder<T>) DECODERS.get(responseType);
+  }
+
+  /**
+   * Gets the decoder for the given response type.
+   *
+   * @param <T> The response type.
+   * @param responseType The class of the response type.
+   * @return The decoder.
+   * @throws IllegalArgumentException if no decoder is registered.
+   */
+  public static <T extends Response> ResponseDecoder<T> get(final Class<T> responseType) {
+    @Nullable
+    final ResponseDecoder<T> decoder = find(responseType);
+    if (null == decoder) {
+      throw new IllegalArgumentException("no decoder registered for " + responseType.getSimpleName());
+    }
+    return decoder;
+  }
+
+}
@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Data;
 
 /**
@@ -27,4 +29,17 @@ public record VoltageCurrentPower( //
         Data.uint32(message, index + 4) / 100.0);
   }
 
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   * @param index The start index relative to the position.
+   */
+  public VoltageCurrentPower(final ByteBuffer message, final int index) {
+    this( //
+        Data.uint16(message, index) / 100f, //
+        Data.uint16(message, index + 2) / 100f, //
+        Data.uint32(message, index + 4) / 100.0);
+  }
+
 }
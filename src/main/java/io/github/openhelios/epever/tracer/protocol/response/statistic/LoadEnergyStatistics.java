@@ -1,5 +1,7 @@
 package io.github.openhelios.epever.tracer.protocol.response.statistic;
 
+import java.nio.ByteBuffer;
+
 import io.github.openhelios.epever.tracer.protocol.Data;
 import io.github.openhelios.epever.tracer.protocol.Index;
 import io.github.openhelios.epever.tracer.protocol.response.Response;
@@ -25,6 +27,15 @@ public record LoadEnergyStatistics( //
    * @param message The message.
    */
   public LoadEnergyStatistics(final byte[] message) {
+    this(ByteBuffer.wrap(message));
+  }
+
+  /**
+   * Constructor reading the fields from the frame without copying.
+   *
+   * @param message The message from the position up to the limit.
+   */
+  public LoadEnergyStatistics(final ByteBuffer message) {
     this( //
         Data.uint32(message, Index.DATA.get() + 0) / 100f, //
         Data.uint32(message, Index.DATA.get() + 4) / 100f, //
@@ -0,0 +1,173 @@
+package io.github.openhelios.epever.tracer.simulator;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Register;
+
+/**
+ * In-memory model of the coils, discrete inputs, input registers and holding registers of a device. Each table is
+ * identified by the function ID to read it and has a value of type uint16_t for each possible address. Coils and
+ * discrete inputs are 0 or 1.
+ */
+public class RegisterMap {
+
+  private static final int SIZE = 0x10000;
+
+  private final Map<FunctionId, char[]> tables = new EnumMap<>(FunctionId.class);
+
+  /**
+   * Constructor for a register map with all values 0.
+   */
+  public RegisterMap() {
+    for (final FunctionId functionId : new FunctionId[] { FunctionId.READ_COILS, FunctionId.READ_DISCRETE_INPUTS,
+        FunctionId.READ_INPUT_REGISTER, FunctionId.READ_HOLDING_REGISTER }) {
+      tables.put(functionId, new char[SIZE]);
+    }
+  }
+
+  /**
+   * Creates a register map with plausible values of a Tracer 3210AN charging a 12V battery at daylight.
+   *
+   * @return The created register map.
+   */
+  public static RegisterMap createDefault() {
+    final RegisterMap map = new RegisterMap();
+    final FunctionId input = FunctionId.READ_INPUT_REGISTER;
+    final FunctionId holding = FunctionId.READ_HOLDING_REGISTER;
+    map.set(FunctionId.READ_COILS, Register.CHARGING_ON, 1);
+    map.set(FunctionId.READ_COILS, Register.DEFAULT_LOAD_ON, 1);
+    // rated data
+    map.set(input, Register.ARRAY_RATED_VOLTAGE, 10000);
+    map.set(input, Register.ARRAY_RATED_CURRENT, 3000);
+    map.setUInt32(input, Register.ARRAY_RATED_POWER_LOW, 39000);
+    map.set(input, Register.BATTERY_RATED_VOLTAGE, 1200);
+    map.set(input, Register.BATTERY_RATED_CURRENT, 3000);
+    map.setUInt32(input, Register.BATTERY_RATED_POWER_LOW, 39000);
+    map.set(input, Register.CHARGING_MODE, 2);
+    map.set(input, Register.LOAD_RATED_CURRENT, 3000);
+    // real time data
+    map.set(input, Register.ARRAY_ACTUAL_VOLTAGE, 1850);
+    map.set(input, Register.ARRAY_ACTUAL_CURRENT, 200);
+    map.setUInt32(input, Register.ARRAY_ACTUAL_POWER_LOW, 3700);
+    map.set(input, Register.BATTERY_ACTUAL_VOLTAGE, 1320);
+    map.set(input, Register.BATTERY_ACTUAL_CURRENT, 250);
+    map.setUInt32(input, Register.BATTERY_ACTUAL_POWER_LOW, 3300);
+    map.set(input, Register.LOAD_ACTUAL_VOLTAGE, 1310);
+    map.set(input, Register.LOAD_ACTUAL_CURRENT, 110);
+    map.setUInt32(input, Register.LOAD_ACTUAL_POWER_LOW, 1441);
+    map.set(input, Register.BATTERY_ACTUAL_TEMPERATURE, 2500);
+    map.set(input, Register.INSIDE_ACTUAL_TEMPERATURE, 3000);
+    map.set(input, Register.POWER_COMPONENTS_TEMPERATURE, 2800);
+    map.set(input, Register.BATTERY_ACTUAL_SOC, 80);
+    map.set(input, Register.REMOTE_BATTERY_ACTUAL_TEMPERATURE, 2500);
+    map.set(input, Register.BATTERY_SYSTEM_VOLTAGE, 1200);
+    // status
+    map.set(input, Register.CHARGING_STATUS, 0b1001); // running, boost
+    map.set(input, Register.DISCHARGING_STATUS, 1); // running
+    // statistics
+    map.set(input, Register.DAY_MAX_ARRAY_VOLTAGE, 2010);
+    map.set(input, Register.DAY_MIN_ARRAY_VOLTAGE, 30);
+    map.set(input, Register.DAY_MAX_BATTERY_VOLTAGE, 1410);
+    map.set(input, Register.DAY_MIN_BATTERY_VOLTAGE, 1220);
+    map.setUInt32(input, Register.DAY_LOAD_ENERGY_LOW, 12);
+    map.setUInt32(input, Register.MONTH_LOAD_ENERGY_LOW, 250);
+    map.setUInt32(input, Register.YEAR_LOAD_ENERGY_LOW, 2500);
+    map.setUInt32(input, Register.TOTAL_LOAD_ENERGY_LOW, 7500);
+    map.setUInt32(input, Register.DAY_ARRAY_ENERGY_LOW, 35);
+    map.setUInt32(input, Register.MONTH_ARRAY_ENERGY_LOW, 700);
+    map.setUInt32(input, Register.YEAR_ARRAY_ENERGY_LOW, 7000);
+    map.setUInt32(input, Register.TOTAL_ARRAY_ENERGY_LOW, 21000);
+    // battery configuration
+    map.set(holding, Register.BATTERY_TYPE, 1);
+    map.set(holding, Register.BATTERY_CAPACITY, 200);
+    map.set(holding, Register.BATTERY_TYPE.address() + 3, 1600);
+    map.set(holding, Register.BATTERY_TYPE.address() + 4, 1500);
+    map.set(holding, Register.BATTERY_TYPE.address() + 5, 1500);
+    map.set(holding, Register.BATTERY_TYPE.address() + 6, 1460);
+    map.set(holding, Register.DISCHARGING_LIMIT_VOLTAGE, 1060);
+    final LocalDateTime now = LocalDateTime.now();
+    map.set(holding, Register.CLOCK_SECONDS_MINUTES, now.getMinute() << 8 | now.getSecond());
+    map.set(holding, Register.CLOCK_HOUR_DAY, now.getDayOfMonth() << 8 | now.getHour());
+    map.set(holding, Register.CLOCK_MONTH_YEAR, now.getYear() - 2000 << 8 | now.getMonthValue());
+    return map;
+  }
+
+  private char[] table(final FunctionId functionId) {
+    final char[] table = tables.get(functionId);
+    if (null == table) {
+      throw new IllegalArgumentException("no table for " + functionId);
+    }
+    return table;
+  }
+
+  /**
+   * Checks, if there is a table for the given function ID.
+   *
+   * @param functionId The function ID to read the table.
+   * @return True, if the table exists.
+   */
+  public boolean hasTable(final FunctionId functionId) {
+    return tables.containsKey(functionId);
+  }
+
+  /**
+   * Gets the value at the given address.
+   *
+   * @param functionId The function ID to read the table.
+   * @param address The address.
+   * @return The value of type uint16_t.
+   */
+  public synchronized int get(final FunctionId functionId, final int address) {
+    return table(functionId)[address];
+  }
+
+  /**
+   * Gets the value of the given register.
+   *
+   * @param functionId The function ID to read the table.
+   * @param register The register.
+   * @return The value of type uint16_t.
+   */
+  public int get(final FunctionId functionId, final Register register) {
+    return get(functionId, register.address());
+  }
+
+  /**
+   * Sets the value at the given address.
+   *
+   * @param functionId The function ID to read the table.
+   * @param address The address.
+   * @param value The value of type uint16_t.
+   */
+  public synchronized void set(final FunctionId functionId, final int address, final int value) {
+    table(functionId)[address] = (char) value;
+  }
+
+  /**
+   * Sets the value of the given register.
+   *
+   * @param functionId The function ID to read the table.
+   * @param register The register.
+   * @param value The value of type uint16_t.
+   */
+  public void set(final FunctionId functionId, final Register register, final int value) {
+    set(functionId, register.address(), value);
+  }
+
+  /**
+   * Sets a value of type uint32_t into the given low register and the following high register.
+   *
+   * @param functionId The function ID to read the table.
+   * @param low The register with the low 16 bits.
+   * @param value The value of type uint32_t.
+   */
+  public synchronized void setUInt32(final FunctionId functionId, final Register low, final long value) {
+    final char[] table = table(functionId);
+    table[low.address()] = (char) (value & 0xFFFF);
+    table[low.address() + 1] = (char) (value >> 16 & 0xFFFF);
+  }
+
+}
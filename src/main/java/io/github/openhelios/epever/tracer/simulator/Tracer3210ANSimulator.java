@@ -0,0 +1,443 @@
+package io.github.openhelios.epever.tracer.simulator;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Message;
+import io.github.openhelios.epever.tracer.protocol.Register;
+import io.github.openhelios.epever.tracer.protocol.response.ErrorCode;
+import io.github.openhelios.epever.tracer.transport.Transport;
+
+/**
+ * Transport simulating one or more EPEVER Tracer 3210AN devices on a bus by answering Modbus RTU frames from a
+ * {@link RegisterMap}. Supports the function IDs to read coils, discrete inputs, input registers and holding
+ * registers, to write a coil and to write holding registers.
+ *
+ * <p>
+ * Responses are delivered asynchronously in order by one daemon thread after the configured latency and jitter. They
+ * can be split into fragments and corrupted to test the receiving side. Frames with an invalid checksum or another
+ * device ID are ignored like on a real bus.
+ */
+public class Tracer3210ANSimulator implements Transport {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Tracer3210ANSimulator.class);
+
+  private static final int COIL_ON = 0xFF00;
+
+  /**
+   * A part of a response to be delivered at the given time.
+   */
+  private record Fragment(byte[] data, int offset, int length, long deliveryNanos) {
+  }
+
+  private final RegisterMap registers;
+
+  private final Set<Integer> deviceIds = new CopyOnWriteArraySet<>();
+
+  private final AtomicLong requestCount = new AtomicLong();
+
+  private final Object lock = new Object();
+
+  private final Random random = new Random();
+
+  @Nullable
+  private ScheduledExecutorService executor;
+
+  @Nullable
+  private volatile Receiver receiver;
+
+  private final Deque<Fragment> fragments = new ArrayDeque<>();
+
+  private long nextDeliveryNanos;
+
+  private Duration latency = Duration.ZERO;
+
+  private Duration jitter = Duration.ZERO;
+
+  private int maxFragmentSize = Integer.MAX_VALUE;
+
+  private double corruptionRate;
+
+  private double busyRate;
+
+  /**
+   * Constructor for a simulated device with the default device ID and the values of
+   * {@link RegisterMap#createDefault()}.
+   */
+  public Tracer3210ANSimulator() {
+    this(RegisterMap.createDefault(), Message.DEFAULT_DEVICE_ID);
+  }
+
+  /**
+   * Constructor for simulated devices sharing the given registers.
+   *
+   * @param registers The registers of the devices.
+   * @param deviceIds The device IDs of the devices on the simulated bus.
+   */
+  public Tracer3210ANSimulator(final RegisterMap registers, final int... deviceIds) {
+    this.registers = registers;
+    for (final int deviceId : deviceIds) {
+      if (deviceId < Message.MIN_DEVICE_ID || Message.MAX_DEVICE_ID < deviceId) {
+        throw new IllegalArgumentException("expected device ID in range " + Message.MIN_DEVICE_ID + " to "
+            + Message.MAX_DEVICE_ID + ", but was " + deviceId);
+      }
+      this.deviceIds.add(deviceId);
+    }
+  }
+
+  /**
+   * The simulated registers.
+   *
+   * @return The register map, which can be modified while running.
+   */
+  public RegisterMap getRegisters() {
+    return registers;
+  }
+
+  /**
+   * The amount of valid requests addressed to a simulated device.
+   *
+   * @return The request count.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Sets the delay between receiving a request and sending the response.
+   *
+   * @param latency The latency, which is 0 by default.
+   */
+  public void setLatency(final Duration latency) {
+    synchronized (lock) {
+      this.latency = latency;
+    }
+  }
+
+  /**
+   * Sets the maximum random delay added before each delivered fragment.
+   *
+   * @param jitter The jitter, which is 0 by default.
+   */
+  public void setJitter(final Duration jitter) {
+    synchronized (lock) {
+      this.jitter = jitter;
+    }
+  }
+
+  /**
+   * Sets the maximum amount of bytes delivered at once. Each response is split into fragments of random size up to
+   * this size.
+   *
+   * @param maxFragmentSize The maximum fragment size, which is unlimited by default.
+   */
+  public void setMaxFragmentSize(final int maxFragmentSize) {
+    if (maxFragmentSize < 1) {
+      throw new IllegalArgumentException("expected positive fragment size, but was " + maxFragmentSize);
+    }
+    synchronized (lock) {
+      this.maxFragmentSize = maxFragmentSize;
+    }
+  }
+
+  /**
+   * Sets the probability of flipping one bit of a response, which invalidates its checksum.
+   *
+   * @param corruptionRate The probability in range 0 to 1, which is 0 by default.
+   */
+  public void setCorruptionRate(final double corruptionRate) {
+    synchronized (lock) {
+      this.corruptionRate = rate(corruptionRate);
+    }
+  }
+
+  /**
+   * Sets the probability of answering a request with {@link ErrorCode#DEVICE_BUSY}.
+   *
+   * @param busyRate The probability in range 0 to 1, which is 0 by default.
+   */
+  public void setBusyRate(final double busyRate) {
+    synchronized (lock) {
+      this.busyRate = rate(busyRate);
+    }
+  }
+
+  /**
+   * Sets the seed of the random generator for reproducible jitter, fragmentation, corruption and busy responses.
+   *
+   * @param seed The seed.
+   */
+  public void setSeed(final long seed) {
+    synchronized (lock) {
+      random.setSeed(seed);
+    }
+  }
+
+  private static double rate(final double rate) {
+    if (!(0 <= rate && rate <= 1)) {
+      throw new IllegalArgumentException("expected rate in range 0 to 1, but was " + rate);
+    }
+    return rate;
+  }
+
+  @Override
+  public String getName() {
+    return "simulator " + deviceIds;
+  }
+
+  @Override
+  public void open(final Receiver receiver) {
+    synchronized (lock) {
+      if (null != executor) {
+        throw new IllegalStateException("already open");
+      }
+      executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "tracer-simulator");
+        thread.setDaemon(true);
+        return thread;
+      });
+      nextDeliveryNanos = System.nanoTime();
+    }
+    this.receiver = receiver;
+  }
+
+  @Override
+  public void write(final ByteBuffer frame) {
+    if (!isOpen()) {
+      throw new IllegalStateException("not open");
+    }
+    final byte[] request = new byte[frame.remaining()];
+    frame.duplicate().get(request);
+    if (request.length < 4 || !Checksum.isValid(request, 0, request.length)) {
+      LOG.debug("ignore invalid request {}", Data.hex(request));
+      return;
+    }
+    final int deviceId = Data.uint8(request, 0);
+    final boolean isBroadcast = 0 == deviceId;
+    if (!isBroadcast && !deviceIds.contains(deviceId)) {
+      return;
+    }
+    requestCount.incrementAndGet();
+    final byte[] response;
+    synchronized (lock) {
+      response = random.nextDouble() < busyRate ? error(request, ErrorCode.DEVICE_BUSY) : process(request);
+    }
+    if (!isBroadcast) {
+      deliver(response);
+    }
+  }
+
+  /**
+   * Executes the request.
+   *
+   * @param request The request with a valid checksum.
+   * @return The response including the checksum.
+   */
+  private byte[] process(final byte[] request) {
+    @Nullable
+    final FunctionId functionId = FunctionId.findById(request[1]);
+    if (null == functionId || FunctionId.UNKNOWN == functionId) {
+      return error(request, ErrorCode.UNKNOWN_FUNCTION_ID);
+    }
+    if (request.length < 8) {
+      return error(request, ErrorCode.INVALID_DATA_VALUE);
+    }
+    final int address = Data.uint16(request, 2);
+    final int value = Data.uint16(request, 4);
+    switch (functionId) {
+      case READ_COILS, READ_DISCRETE_INPUTS:
+        if (value < 1 || Command.MAX_READ_BITS < value) {
+          return error(request, ErrorCode.INVALID_DATA_VALUE);
+        }
+        if (0x10000 < address + value) {
+          return error(request, ErrorCode.UNKNOWN_REGISTER_ADDRESS);
+        }
+        return readBits(request, functionId, address, value);
+      case READ_HOLDING_REGISTER, READ_INPUT_REGISTER:
+        if (value < 1 || Command.MAX_READ_REGISTERS < value) {
+          return error(request, ErrorCode.INVALID_DATA_VALUE);
+        }
+        if (0x10000 < address + value) {
+          return error(request, ErrorCode.UNKNOWN_REGISTER_ADDRESS);
+        }
+        return readRegisters(request, functionId, address, value);
+      case WRITE_COIL:
+        if (COIL_ON != value && 0 != value) {
+          return error(request, ErrorCode.INVALID_DATA_VALUE);
+        }
+        writeCoil(address, COIL_ON == value);
+        return Arrays.copyOf(request, 8);
+      case WRITE_HOLDING_REGISTERS:
+        if (request.length < 9 || request.length != 7 + Data.uint8(request, 6) + Checksum.SIZE
+            || 2 * value != Data.uint8(request, 6) || 0x10000 < address + value) {
+          return error(request, ErrorCode.INVALID_DATA_VALUE);
+        }
+        for (int i = 0; i < value; i++) {
+          registers.set(FunctionId.READ_HOLDING_REGISTER, address + i, Data.uint16(request, 7 + 2 * i));
+        }
+        final byte[] response = Arrays.copyOf(request, 8);
+        Checksum.write(response);
+        return response;
+      default:
+        return error(request, ErrorCode.UNKNOWN_FUNCTION_ID);
+    }
+  }
+
+  private byte[] readBits(final byte[] request, final FunctionId functionId, final int address, final int count) {
+    final int byteCount = (count + 7) / 8;
+    final byte[] response = new byte[3 + byteCount + Checksum.SIZE];
+    response[0] = request[0];
+    response[1] = request[1];
+    response[2] = (byte) byteCount;
+    for (int i = 0; i < count; i++) {
+      if (0 != registers.get(functionId, address + i)) {
+        response[3 + i / 8] |= (byte) (1 << i % 8);
+      }
+    }
+    Checksum.write(response);
+    return response;
+  }
+
+  private byte[] readRegisters(final byte[] request, final FunctionId functionId, final int address,
+      final int count) {
+    final byte[] response = new byte[3 + 2 * count + Checksum.SIZE];
+    response[0] = request[0];
+    response[1] = request[1];
+    response[2] = (byte) (2 * count);
+    for (int i = 0; i < count; i++) {
+      final int value = registers.get(functionId, address + i);
+      response[3 + 2 * i] = (byte) (value >> 8);
+      response[4 + 2 * i] = (byte) (value & 0xFF);
+    }
+    Checksum.write(response);
+    return response;
+  }
+
+  private void writeCoil(final int address, final boolean isOn) {
+    registers.set(FunctionId.READ_COILS, address, isOn ? 1 : 0);
+    if (Register.LOAD_ON.address() == address) {
+      final int status = registers.get(FunctionId.READ_INPUT_REGISTER, Register.DISCHARGING_STATUS);
+      registers.set(FunctionId.READ_INPUT_REGISTER, Register.DISCHARGING_STATUS, isOn ? status | 1 : status & ~1);
+    }
+  }
+
+  private static byte[] error(final byte[] request, final ErrorCode code) {
+    final byte[] response = new byte[3 + Checksum.SIZE];
+    response[0] = request[0];
+    response[1] = (byte) (request[1] | 0x80);
+    response[2] = (byte) code.ordinal();
+    Checksum.write(response);
+    return response;
+  }
+
+  /**
+   * Queues the response in fragments for delivery after the latency. The delivery time of each fragment is not before
+   * the previous one, so that fragments of all responses are received in order.
+   *
+   * @param response The response.
+   */
+  private void deliver(final byte[] response) {
+    synchronized (lock) {
+      final ScheduledExecutorService scheduler = executor;
+      if (null == scheduler) {
+        return;
+      }
+      if (random.nextDouble() < corruptionRate) {
+        response[random.nextInt(response.length)] ^= (byte) (1 << random.nextInt(8));
+      }
+      final boolean isIdle = fragments.isEmpty();
+      long deliveryNanos = Math.max(nextDeliveryNanos, System.nanoTime() + latency.toNanos());
+      int offset = 0;
+      while (offset < response.length) {
+        final int length = Math.min(response.length - offset, 1 + random.nextInt(Math.min(maxFragmentSize, 256)));
+        if (!jitter.isZero()) {
+          deliveryNanos += (long) (random.nextDouble() * jitter.toNanos());
+        }
+        fragments.add(new Fragment(response, offset, length, deliveryNanos));
+        offset += length;
+      }
+      nextDeliveryNanos = deliveryNanos;
+      if (isIdle) {
+        schedule(scheduler, fragments.getFirst().deliveryNanos());
+      }
+    }
+  }
+
+  private void schedule(final ScheduledExecutorService scheduler, final long deliveryNanos) {
+    try {
+      scheduler.schedule(this::pump, deliveryNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } catch (final RejectedExecutionException e) {
+      fragments.clear();
+    }
+  }
+
+  /**
+   * Delivers all due fragments in order and schedules itself for the next pending fragment.
+   */
+  private void pump() {
+    while (true) {
+      final Fragment fragment;
+      synchronized (lock) {
+        final ScheduledExecutorService scheduler = executor;
+        final Fragment first = fragments.peekFirst();
+        if (null == scheduler || null == first) {
+          return;
+        }
+        if (0 < first.deliveryNanos() - System.nanoTime()) {
+          schedule(scheduler, first.deliveryNanos());
+          return;
+        }
+        fragment = fragments.removeFirst();
+      }
+      final Receiver r = receiver;
+      if (null != r) {
+        try {
+          r.onReceive(fragment.data(), fragment.offset(), fragment.length());
+        } catch (final RuntimeException e) {
+          LOG.warn("receiver failed", e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    synchronized (lock) {
+      return null != executor;
+    }
+  }
+
+  @Override
+  public void close() {
+    final ScheduledExecutorService scheduler;
+    synchronized (lock) {
+      scheduler = executor;
+      executor = null;
+      fragments.clear();
+    }
+    receiver = null;
+    if (null != scheduler) {
+      scheduler.shutdownNow();
+    }
+  }
+
+}
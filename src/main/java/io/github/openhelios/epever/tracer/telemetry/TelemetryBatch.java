@@ -0,0 +1,133 @@
+package io.github.openhelios.epever.tracer.telemetry;
+
+import io.github.openhelios.epever.tracer.protocol.Register;
+
+/**
+ * A columnar batch of samples with one primitive array for the timestamps and one for the values of each register. A
+ * batch is filled up to its capacity, handed to the storage or analytics, and reused after {@link #clear()}. This class
+ * is not thread-safe.
+ */
+public final class TelemetryBatch {
+
+  private final long[] timestamps;
+
+  private final float[][] columns;
+
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity The maximum amount of samples.
+   * @throws IllegalArgumentException if the capacity is not positive.
+   */
+  public TelemetryBatch(final int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+    }
+    timestamps = new long[capacity];
+    columns = new float[Register.COUNT][capacity];
+  }
+
+  /**
+   * The maximum amount of samples.
+   *
+   * @return The capacity.
+   */
+  public int capacity() {
+    return timestamps.length;
+  }
+
+  /**
+   * The amount of added samples.
+   *
+   * @return The size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks, if no further sample can be added.
+   *
+   * @return True, if the size reached the capacity.
+   */
+  public boolean isFull() {
+    return size == timestamps.length;
+  }
+
+  /**
+   * Appends the values and the timestamp of the given sample as new row.
+   *
+   * @param sample The sample.
+   * @throws IllegalStateException if the batch is full.
+   */
+  public void add(final TelemetrySample sample) {
+    if (isFull()) {
+      throw new IllegalStateException("batch is full with " + size + " samples");
+    }
+    timestamps[size] = sample.getTimestampNanos();
+    for (int i = 0; i < Register.COUNT; i++) {
+      columns[i][size] = sample.get(i);
+    }
+    size++;
+  }
+
+  /**
+   * Gets the timestamp of the given row.
+   *
+   * @param row The row from 0 to {@link #size()} exclusive.
+   * @return The nanoseconds since 1970-01-01T00:00:00Z.
+   * @throws IndexOutOfBoundsException if the row has not been added.
+   */
+  public long getTimestampNanos(final int row) {
+    return timestamps[checkRow(row)];
+  }
+
+  /**
+   * Gets the value of the given register in the given row.
+   *
+   * @param row The row from 0 to {@link #size()} exclusive.
+   * @param register The register.
+   * @return The value, or {@link Float#NaN}, if it has not been available.
+   * @throws IndexOutOfBoundsException if the row has not been added.
+   */
+  public float get(final int row, final Register register) {
+    return columns[register.ordinal()][checkRow(row)];
+  }
+
+  /**
+   * Gets the timestamps without copying. The array is reused for the next samples and must not be modified.
+   *
+   * @return The timestamps, which are valid up to {@link #size()}.
+   */
+  public long[] timestamps() {
+    return timestamps;
+  }
+
+  /**
+   * Gets the values of the given register without copying. The array is reused for the next samples and must not be
+   * modified.
+   *
+   * @param register The register.
+   * @return The values, which are valid up to {@link #size()}.
+   */
+  public float[] column(final Register register) {
+    return columns[register.ordinal()];
+  }
+
+  /**
+   * Removes all samples, so the arrays can be reused.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  private int checkRow(final int row) {
+    if (row < 0 || size <= row) {
+      throw new IndexOutOfBoundsException("row " + row + " not in range 0 to " + size);
+    }
+    return row;
+  }
+
+}
@@ -0,0 +1,223 @@
+package io.github.openhelios.epever.tracer.telemetry;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jspecify.annotations.Nullable;
+
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.DataType;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Index;
+import io.github.openhelios.epever.tracer.protocol.Register;
+import io.github.openhelios.epever.tracer.protocol.response.Messages.FrameListener;
+
+/**
+ * A mutable snapshot of all registers stored in primitive arrays indexed by {@link Register#ordinal()}. The sample is
+ * filled directly from the bytes of the received read responses without creating response objects, e.g. by setting it
+ * as {@link io.github.openhelios.epever.tracer.Tracer3210AN#setFrameListener(FrameListener) frame listener}. A sample
+ * is reused for each poll, and it is not thread-safe: it is filled on the receiving thread, so it should be read after
+ * the futures of the poll have been completed.
+ */
+public final class TelemetrySample implements FrameListener {
+
+  private static final Clock CLOCK = Clock.systemUTC();
+
+  private static final Register[][] REGISTERS_BY_FUNCTION_ID = new Register[FunctionId.values().length][];
+
+  static {
+    for (final FunctionId functionId : FunctionId.values()) {
+      final List<Register> registers = new ArrayList<>();
+      for (final Register register : Register.values()) {
+        if (register.functionId() == functionId) {
+          registers.add(register);
+        }
+      }
+      REGISTERS_BY_FUNCTION_ID[functionId.ordinal()] = registers.toArray(Register[]::new);
+    }
+  }
+
+  private final int[] raw = new int[Register.COUNT];
+
+  private final float[] values = new float[Register.COUNT];
+
+  private final long[] present = new long[(Register.COUNT + 63) / 64];
+
+  private long timestampNanos;
+
+  /**
+   * Constructor for a sample without any available register.
+   */
+  public TelemetrySample() {
+    // the registers are available after the first accepted frame
+  }
+
+  /**
+   * The current time read from the wall clock for each call, so it follows the adjustments of the system clock, e.g.
+   * by NTP. Hence, it may go backwards. The instant does not escape, so its allocation is usually eliminated.
+   *
+   * @return The nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public static long nowNanos() {
+    final Instant now = CLOCK.instant();
+    return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+  }
+
+  @Override
+  public void onFrame(@Nullable final Command<?> command, final ByteBuffer frame) {
+    if (null != command) {
+      accept(command, frame);
+    }
+  }
+
+  /**
+   * Stores the values of all known registers read by the given command from its response, and sets the timestamp to
+   * {@link #nowNanos()}. An unsigned integer with 32 bits is available, when both of its registers have been read.
+   *
+   * @param command The command.
+   * @param frame The received frame from the position up to the limit.
+   * @return True, if the frame is a read response to the command, which has been stored.
+   */
+  public boolean accept(final Command<?> command, final ByteBuffer frame) {
+    final FunctionId functionId = command.getFunctionId();
+    if (!command.matches(frame) || functionId.get() != Data.int8(frame, Index.FUNCTION_ID.get())) {
+      return false;
+    }
+    final boolean isBits;
+    switch (functionId) {
+      case READ_COILS, READ_DISCRETE_INPUTS -> isBits = true;
+      case READ_HOLDING_REGISTER, READ_INPUT_REGISTER -> isBits = false;
+      default -> {
+        return false;
+      }
+    }
+    final int begin = command.getAddress();
+    final int end = begin + command.getCount();
+    final Register[] registers = REGISTERS_BY_FUNCTION_ID[functionId.ordinal()];
+    for (final Register register : registers) {
+      final int i = register.address() - begin;
+      if (0 <= i && register.address() < end) {
+        raw[register.ordinal()] = isBits //
+            ? Data.uint8(frame, Index.DATA.get() + i / 8) >> i % 8 & 1 //
+            : Data.uint16(frame, Index.DATA.get() + 2 * i);
+        present[register.ordinal() / 64] |= 1L << register.ordinal();
+      }
+    }
+    for (final Register register : registers) {
+      if (begin <= register.address() && register.address() < end) {
+        values[register.ordinal()] = decode(register);
+      }
+    }
+    timestampNanos = nowNanos();
+    return true;
+  }
+
+  private float decode(final Register register) {
+    final int value = raw[register.ordinal()];
+    return switch (register.dataType()) {
+      case INT16 -> (short) value * register.scale();
+      case UINT32_LOW, UINT32_HIGH -> {
+        final Register partner = register.partner();
+        if (!isPresent(partner)) {
+          yield Float.NaN;
+        }
+        final long low = DataType.UINT32_LOW == register.dataType() ? value : raw[partner.ordinal()];
+        final long high = DataType.UINT32_HIGH == register.dataType() ? value : raw[partner.ordinal()];
+        values[partner.ordinal()] = (low | high << 16) * register.scale();
+        yield values[partner.ordinal()];
+      }
+      default -> value * register.scale();
+    };
+  }
+
+  /**
+   * The time of the last stored response.
+   *
+   * @return The nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public long getTimestampNanos() {
+    return timestampNanos;
+  }
+
+  /**
+   * Sets the time of the sample, e.g. the begin of the poll.
+   *
+   * @param timestampNanos The nanoseconds since 1970-01-01T00:00:00Z.
+   */
+  public void setTimestampNanos(final long timestampNanos) {
+    this.timestampNanos = timestampNanos;
+  }
+
+  /**
+   * Checks, if the register has been read since the last {@link #clear()}.
+   *
+   * @param register The register.
+   * @return True, if the value of the register is available.
+   */
+  public boolean isPresent(final Register register) {
+    return (present[register.ordinal() / 64] & 1L << register.ordinal()) != 0;
+  }
+
+  /**
+   * Gets the value of the given register scaled into its {@link Register#unit() unit}.
+   *
+   * @param register The register.
+   * @return The value, or {@link Float#NaN}, if it is not available.
+   */
+  public float get(final Register register) {
+    return get(register.ordinal());
+  }
+
+  float get(final int ordinal) {
+    return (present[ordinal / 64] & 1L << ordinal) != 0 ? values[ordinal] : Float.NaN;
+  }
+
+  /**
+   * Gets the raw value of the given register.
+   *
+   * @param register The register.
+   * @return The value of type uint16_t, or 0, if it is not available.
+   */
+  public int getRaw(final Register register) {
+    return isPresent(register) ? raw[register.ordinal()] : 0;
+  }
+
+  /**
+   * Copies the values of all registers.
+   *
+   * @param destination The array, which gets the value of each register at the offset plus its ordinal, or
+   *          {@link Float#NaN}, if it is not available.
+   * @param offset The offset in the destination.
+   */
+  public void copyTo(final float[] destination, final int offset) {
+    for (int i = 0; i < Register.COUNT; i++) {
+      destination[offset + i] = get(i);
+    }
+  }
+
+  /**
+   * Copies the given sample into this sample.
+   *
+   * @param sample The sample to be copied.
+   */
+  public void copyFrom(final TelemetrySample sample) {
+    System.arraycopy(sample.raw, 0, raw, 0, raw.length);
+    System.arraycopy(sample.values, 0, values, 0, values.length);
+    System.arraycopy(sample.present, 0, present, 0, present.length);
+    timestampNanos = sample.timestampNanos;
+  }
+
+  /**
+   * Marks all registers as not available and resets the timestamp.
+   */
+  public void clear() {
+    Arrays.fill(present, 0);
+    timestampNanos = 0;
+  }
+
+}
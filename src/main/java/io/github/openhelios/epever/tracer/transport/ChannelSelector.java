@@ -0,0 +1,148 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One thread serving the non-blocking socket channels of many TCP transports. All reads and writes of the registered
+ * channels are done by this thread.
+ */
+public class ChannelSelector implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ChannelSelector.class);
+
+  @Nullable
+  private static ChannelSelector defaultSelector;
+
+  private final Selector selector;
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+
+  /**
+   * Gets the selector shared by all TCP transports created without an explicit selector.
+   *
+   * @return The shared selector, which is created on first use.
+   */
+  public static synchronized ChannelSelector getDefault() {
+    if (null == defaultSelector || !defaultSelector.selector.isOpen()) {
+      defaultSelector = new ChannelSelector();
+    }
+    return defaultSelector;
+  }
+
+  /**
+   * Constructor starting the selector thread.
+   */
+  public ChannelSelector() {
+    try {
+      selector = Selector.open();
+    } catch (final IOException e) {
+      throw new IllegalStateException("opening selector failed", e);
+    }
+    final Thread thread = new Thread(this::run, "tracer-selector");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Executes the given task on the selector thread.
+   *
+   * @param task The task.
+   */
+  void execute(final Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Registers the given connected channel for reading.
+   *
+   * @param channel The channel.
+   * @param transport The transport owning the channel.
+   */
+  void register(final SocketChannel channel, final TcpTransport transport) {
+    execute(() -> {
+      try {
+        transport.onRegistered(channel.register(selector, SelectionKey.OP_READ, transport));
+      } catch (final IOException e) {
+        LOG.error("registering {} failed", transport.getName(), e);
+        transport.close();
+      }
+    });
+  }
+
+  private void run() {
+    while (selector.isOpen()) {
+      try {
+        selector.select();
+      } catch (final IOException e) {
+        LOG.error("select failed", e);
+        break;
+      }
+      Runnable task;
+      while (null != (task = tasks.poll())) {
+        try {
+          task.run();
+        } catch (final RuntimeException e) {
+          LOG.error("task failed", e);
+        }
+      }
+      if (!selector.isOpen()) {
+        break;
+      }
+      final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        final SelectionKey key = keys.next();
+        keys.remove();
+        final TcpTransport transport = (TcpTransport) key.attachment();
+        try {
+          if (key.isReadable()) {
+            read(key, transport);
+          }
+          if (key.isValid() && key.isWritable()) {
+            transport.flush();
+          }
+        } catch (final IOException | CancelledKeyException e) {
+          LOG.warn("connection {} failed", transport.getName(), e);
+          transport.close();
+        } catch (final RuntimeException e) {
+          LOG.error("handling connection {} failed", transport.getName(), e);
+        }
+      }
+    }
+  }
+
+  private void read(final SelectionKey key, final TcpTransport transport) throws IOException {
+    readBuffer.clear();
+    final int count = ((SocketChannel) key.channel()).read(readBuffer);
+    if (count < 0) {
+      LOG.info("connection {} closed by remote", transport.getName());
+      transport.close();
+    } else if (count > 0) {
+      transport.onRead(readBuffer.array(), 0, count);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      selector.close();
+    } catch (final IOException e) {
+      LOG.warn("closing selector failed", e);
+    }
+  }
+
+}
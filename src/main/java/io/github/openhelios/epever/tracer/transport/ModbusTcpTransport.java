@@ -0,0 +1,149 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.FrameDecoder;
+
+/**
+ * Transport for Modbus TCP, which replaces the device ID and the checksum of a Modbus RTU frame by the Modbus
+ * Application Protocol (MBAP) header with a transaction ID. Responses with an unknown or outdated transaction ID are
+ * dropped.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Modbus#Modbus_TCP">https://en.wikipedia.org/wiki/Modbus#Modbus_TCP</a>
+ */
+public class ModbusTcpTransport extends TcpTransport {
+
+  /** The default port for Modbus TCP, which is 502. */
+  public static final int DEFAULT_PORT = 502;
+
+  /** The size of the MBAP header including the unit ID. */
+  private static final int HEADER_SIZE = 7;
+
+  /** The size of the MBAP header up to the length field. */
+  private static final int LENGTH_SIZE = 6;
+
+  /** The maximum size of a Modbus TCP frame. */
+  private static final int MAX_FRAME_SIZE = 260;
+
+  /** The amount of remembered transaction IDs, which are waiting for their response. */
+  private static final int PENDING_SIZE = 16;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ModbusTcpTransport.class);
+
+  private final byte[] buffer = new byte[2 * MAX_FRAME_SIZE];
+
+  private final byte[] frame = new byte[FrameDecoder.MAX_FRAME_SIZE];
+
+  private final int[] pendingTransactionIds = new int[PENDING_SIZE];
+
+  private int start;
+
+  private int end;
+
+  private int transactionId;
+
+  /**
+   * Constructor using the shared {@link ChannelSelector#getDefault()}.
+   *
+   * @param address The address of the device or gateway.
+   */
+  public ModbusTcpTransport(final InetSocketAddress address) {
+    this(address, ChannelSelector.getDefault());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param address The address of the device or gateway.
+   * @param selector The selector serving the connection.
+   */
+  public ModbusTcpTransport(final InetSocketAddress address, final ChannelSelector selector) {
+    super(address, selector);
+    Arrays.fill(pendingTransactionIds, -1);
+  }
+
+  @Override
+  synchronized ByteBuffer encode(final ByteBuffer rtuFrame) {
+    final int pduSize = rtuFrame.remaining() - 1 - Checksum.SIZE;
+    transactionId = transactionId + 1 & 0xFFFF;
+    pendingTransactionIds[transactionId % PENDING_SIZE] = transactionId;
+    final ByteBuffer adu = ByteBuffer.allocate(HEADER_SIZE + pduSize);
+    adu.putShort((short) transactionId);
+    adu.putShort((short) 0); // protocol ID
+    adu.putShort((short) (pduSize + 1));
+    adu.put(rtuFrame.get(rtuFrame.position())); // unit ID
+    adu.put(adu.position(), rtuFrame, rtuFrame.position() + 1, pduSize);
+    return adu.position(0);
+  }
+
+  @Override
+  void decode(final byte[] data, final int offset, final int length, final Receiver receiver) {
+    // a chunk may be larger than the buffer, so it is copied in pieces, each followed by decoding the complete frames
+    for (int copied = 0; copied < length;) {
+      if (end + length - copied > buffer.length) {
+        System.arraycopy(buffer, start, buffer, 0, end - start);
+        end -= start;
+        start = 0;
+      }
+      final int n = Math.min(length - copied, buffer.length - end);
+      System.arraycopy(data, offset + copied, buffer, end, n);
+      end += n;
+      copied += n;
+      decodeFrames(receiver);
+    }
+  }
+
+  /**
+   * Passes all complete frames in the buffer to the receiver, so less than one frame remains.
+   *
+   * @param receiver The receiver.
+   */
+  private void decodeFrames(final Receiver receiver) {
+    while (end - start >= LENGTH_SIZE) {
+      final int size = Data.uint16(buffer, start + 4);
+      if (size < 2 || FrameDecoder.MAX_FRAME_SIZE - 2 < size) {
+        LOG.error("drop {} bytes from {}, because of invalid length {}", end - start, getName(), size);
+        start = end;
+        break;
+      }
+      if (end - start < LENGTH_SIZE + size) {
+        break; // wait for the rest of the frame
+      }
+      onFrame(start, size, receiver);
+      start += LENGTH_SIZE + size;
+    }
+    if (start == end) {
+      start = 0;
+      end = 0;
+    }
+  }
+
+  private void onFrame(final int index, final int size, final Receiver receiver) {
+    final int id = Data.uint16(buffer, index);
+    if (0 != Data.uint16(buffer, index + 2) || !isPending(id)) {
+      LOG.warn("drop frame with transaction ID {} from {}", id, getName());
+      return;
+    }
+    // unit ID and PDU form the Modbus RTU frame without checksum
+    System.arraycopy(buffer, index + LENGTH_SIZE, frame, 0, size);
+    Checksum.write(frame, 0, size + Checksum.SIZE);
+    receiver.onReceive(frame, 0, size + Checksum.SIZE);
+  }
+
+  private synchronized boolean isPending(final int id) {
+    final int index = id % PENDING_SIZE;
+    if (pendingTransactionIds[index] != id) {
+      return false;
+    }
+    pendingTransactionIds[index] = -1;
+    return true;
+  }
+
+}
@@ -0,0 +1,42 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Transport sending unchanged Modbus RTU frames over TCP, which is used by transparent Ethernet to RS-485 bridges.
+ */
+public class RtuOverTcpTransport extends TcpTransport {
+
+  /**
+   * Constructor using the shared {@link ChannelSelector#getDefault()}.
+   *
+   * @param address The address of the bridge.
+   */
+  public RtuOverTcpTransport(final InetSocketAddress address) {
+    this(address, ChannelSelector.getDefault());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param address The address of the bridge.
+   * @param selector The selector serving the connection.
+   */
+  public RtuOverTcpTransport(final InetSocketAddress address, final ChannelSelector selector) {
+    super(address, selector);
+  }
+
+  @Override
+  ByteBuffer encode(final ByteBuffer frame) {
+    final ByteBuffer copy = ByteBuffer.allocate(frame.remaining());
+    copy.put(frame.duplicate());
+    return copy.flip();
+  }
+
+  @Override
+  void decode(final byte[] data, final int offset, final int length, final Receiver receiver) {
+    receiver.onReceive(data, offset, length);
+  }
+
+}
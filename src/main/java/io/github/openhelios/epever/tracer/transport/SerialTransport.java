@@ -0,0 +1,123 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import java.nio.ByteBuffer;
+
+import org.jspecify.annotations.Nullable;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+
+import io.github.openhelios.epever.tracer.protocol.BaudRate;
+import io.github.openhelios.epever.tracer.protocol.FrameDecoder;
+
+/**
+ * Transport over a serial port, e.g. an USB RS-485 adapter.
+ */
+public class SerialTransport implements Transport, SerialPortDataListener {
+
+  private final SerialPort serialPort;
+
+  private final byte[] writeBuffer = new byte[FrameDecoder.MAX_FRAME_SIZE];
+
+  @Nullable
+  private Receiver receiver;
+
+  private volatile BaudRate baudRate = BaudRate.BPS_115200;
+
+  /**
+   * Constructor.
+   *
+   * @param serialPort The serial port, which will be opened with {@link BaudRate#BPS_115200}, 8 data bits, 1 stop bit
+   *        and no parity.
+   */
+  public SerialTransport(final SerialPort serialPort) {
+    this.serialPort = serialPort;
+  }
+
+  /**
+   * The serial port.
+   *
+   * @return The serial port.
+   */
+  public SerialPort getSerialPort() {
+    return serialPort;
+  }
+
+  /**
+   * The baud rate of the serial port.
+   *
+   * @return The baud rate.
+   */
+  public BaudRate getBaudRate() {
+    return baudRate;
+  }
+
+  @Override
+  public void setBaudRate(final BaudRate baudRate) {
+    this.baudRate = baudRate;
+    if (serialPort.isOpen() && !serialPort.setBaudRate(baudRate.bitsPerSecond())) {
+      throw new IllegalStateException("setting " + baudRate + " on " + getName() + " failed");
+    }
+  }
+
+  @Override
+  public String getName() {
+    return serialPort.getSystemPortName();
+  }
+
+  @Override
+  public void open(final Receiver receiver) {
+    this.receiver = receiver;
+    serialPort.setBaudRate(baudRate.bitsPerSecond());
+    serialPort.setNumDataBits(8);
+    serialPort.setNumStopBits(1);
+    serialPort.setParity(SerialPort.NO_PARITY);
+    serialPort.setFlowControl(SerialPort.FLOW_CONTROL_DISABLED);
+    if (!serialPort.openPort()) {
+      final int code = serialPort.getLastErrorCode();
+      throw new IllegalStateException(
+          "opening commPort " + serialPort.getDescriptivePortName() + " failed: error code " + code
+              + (11 == code ? " (opened by an other process?)" : "") + ", line " + serialPort.getLastErrorLocation());
+    }
+    serialPort.addDataListener(this);
+  }
+
+  @Override
+  public synchronized void write(final ByteBuffer frame) {
+    final int size = frame.remaining();
+    frame.get(frame.position(), writeBuffer, 0, size);
+    final int count = serialPort.writeBytes(writeBuffer, size);
+    if (count != size) {
+      throw new IllegalStateException("expected " + size + " send bytes, but returned " + count);
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return serialPort.isOpen();
+  }
+
+  @Override
+  public void close() {
+    if (serialPort.isOpen()) {
+      serialPort.flushDataListener();
+      serialPort.closePort();
+    }
+  }
+
+  @Override
+  public int getListeningEvents() {
+    return SerialPort.LISTENING_EVENT_DATA_RECEIVED;
+  }
+
+  @Override
+  public void serialEvent(final SerialPortEvent event) {
+    final byte[] data = event.getReceivedData();
+    final Receiver r = receiver;
+    if (null != r) {
+      r.onReceive(data, 0, data.length);
+    }
+  }
+
+}
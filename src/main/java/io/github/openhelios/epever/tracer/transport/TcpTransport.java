@@ -0,0 +1,170 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for transports over a non-blocking TCP connection served by a {@link ChannelSelector}.
+ */
+abstract class TcpTransport implements Transport {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TcpTransport.class);
+
+  private final InetSocketAddress address;
+
+  private final ChannelSelector selector;
+
+  private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+
+  @Nullable
+  private SocketChannel channel;
+
+  @Nullable
+  private SelectionKey key;
+
+  @Nullable
+  private Receiver receiver;
+
+  /**
+   * Constructor.
+   *
+   * @param address The address of the remote device or gateway.
+   * @param selector The selector serving the connection.
+   */
+  TcpTransport(final InetSocketAddress address, final ChannelSelector selector) {
+    this.address = address;
+    this.selector = selector;
+  }
+
+  /**
+   * Converts the given Modbus RTU frame into the bytes to be sent.
+   *
+   * @param frame The Modbus RTU frame including the checksum from the position up to the limit.
+   * @return The bytes to be sent, which must not share content with the given frame.
+   */
+  abstract ByteBuffer encode(ByteBuffer frame);
+
+  /**
+   * Converts the received bytes into Modbus RTU frames for the receiver.
+   *
+   * @param data The buffer with the received bytes.
+   * @param offset The index of the first received byte.
+   * @param length The amount of received bytes.
+   * @param receiver The receiver.
+   */
+  abstract void decode(byte[] data, int offset, int length, Receiver receiver);
+
+  @Override
+  public String getName() {
+    return address.getHostString() + ":" + address.getPort();
+  }
+
+  @Override
+  public void open(final Receiver receiver) {
+    this.receiver = receiver;
+    try {
+      final SocketChannel socketChannel = SocketChannel.open(address);
+      socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      socketChannel.configureBlocking(false);
+      channel = socketChannel;
+      selector.register(socketChannel, this);
+    } catch (final IOException e) {
+      throw new IllegalStateException("connecting " + getName() + " failed", e);
+    }
+  }
+
+  @Override
+  public void write(final ByteBuffer frame) {
+    if (!isOpen()) {
+      throw new IllegalStateException("connection " + getName() + " is closed");
+    }
+    writeQueue.add(encode(frame));
+    selector.execute(this::flushQuietly);
+  }
+
+  @Override
+  public boolean isOpen() {
+    final SocketChannel c = channel;
+    return null != c && c.isOpen();
+  }
+
+  @Override
+  public void close() {
+    final SocketChannel c = channel;
+    if (null != c) {
+      try {
+        c.close();
+      } catch (final IOException e) {
+        LOG.warn("closing {} failed", getName(), e);
+      }
+    }
+    writeQueue.clear();
+  }
+
+  /**
+   * Called by the selector thread after registering the channel.
+   *
+   * @param selectionKey The selection key.
+   */
+  void onRegistered(final SelectionKey selectionKey) {
+    key = selectionKey;
+    flushQuietly();
+  }
+
+  /**
+   * Called by the selector thread for received bytes.
+   *
+   * @param data The buffer with the received bytes.
+   * @param offset The index of the first received byte.
+   * @param length The amount of received bytes.
+   */
+  void onRead(final byte[] data, final int offset, final int length) {
+    final Receiver r = receiver;
+    if (null != r) {
+      decode(data, offset, length, r);
+    }
+  }
+
+  /**
+   * Called by the selector thread to write the queued bytes as far as possible without blocking.
+   *
+   * @throws IOException if writing failed.
+   */
+  void flush() throws IOException {
+    final SocketChannel c = channel;
+    final SelectionKey k = key;
+    if (null == c || null == k || !k.isValid()) {
+      return; // not registered yet or already closed
+    }
+    ByteBuffer buffer;
+    while (null != (buffer = writeQueue.peek())) {
+      c.write(buffer);
+      if (buffer.hasRemaining()) {
+        k.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+      writeQueue.poll();
+    }
+    k.interestOps(SelectionKey.OP_READ);
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (final IOException e) {
+      LOG.warn("writing to {} failed", getName(), e);
+      close();
+    }
+  }
+
+}
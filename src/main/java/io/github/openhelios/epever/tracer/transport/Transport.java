@@ -0,0 +1,75 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import java.nio.ByteBuffer;
+
+import io.github.openhelios.epever.tracer.protocol.BaudRate;
+
+/**
+ * The connection to send Modbus RTU frames to and to receive Modbus RTU frames from one or more devices.
+ * Implementations using another framing convert from and to Modbus RTU frames.
+ */
+public interface Transport extends AutoCloseable {
+
+  /**
+   * Receiver of the bytes received by a transport.
+   */
+  interface Receiver {
+
+    /**
+     * Bytes have been received, which may contain partial or several Modbus RTU frames. The data is only valid during
+     * the call.
+     *
+     * @param data The buffer with the received bytes.
+     * @param offset The index of the first received byte.
+     * @param length The amount of received bytes.
+     */
+    void onReceive(byte[] data, int offset, int length);
+
+  }
+
+  /**
+   * The name of the transport.
+   *
+   * @return The name, e.g. the port name or the remote address.
+   */
+  String getName();
+
+  /**
+   * Opens the connection.
+   *
+   * @param receiver The receiver of all bytes received until the connection is closed.
+   * @throws IllegalStateException if opening failed.
+   */
+  void open(Receiver receiver);
+
+  /**
+   * Writes the given Modbus RTU frame including the checksum. The buffer is not modified and may be reused after
+   * returning.
+   *
+   * @param frame The frame from the position up to the limit.
+   * @throws IllegalStateException if writing failed.
+   */
+  void write(ByteBuffer frame);
+
+  /**
+   * Sets the baud rate of the serial line. Transports without a serial line of their own, e.g. a bridge configured
+   * separately, ignore it.
+   *
+   * @param baudRate The baud rate.
+   * @throws IllegalStateException if changing the baud rate failed.
+   */
+  default void setBaudRate(final BaudRate baudRate) {
+    // no serial line
+  }
+
+  /**
+   * The connected state.
+   *
+   * @return True, if the connection is open.
+   */
+  boolean isOpen();
+
+  @Override
+  void close();
+
+}
@@ -13,5 +13,11 @@ module io.github.openhelios.epever.tracer {
   exports io.github.openhelios.epever.tracer;
   exports io.github.openhelios.epever.tracer.protocol;
   exports io.github.openhelios.epever.tracer.protocol.response;
+  exports io.github.openhelios.epever.tracer.protocol.response.statistic;
+  exports io.github.openhelios.epever.tracer.transport;
+  exports io.github.openhelios.epever.tracer.history;
+  exports io.github.openhelios.epever.tracer.simulator;
+  exports io.github.openhelios.epever.tracer.telemetry;
+  exports io.github.openhelios.epever.tracer.capture;
 
 }
@@ -0,0 +1,85 @@
+package io.github.openhelios.epever.tracer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.Register;
+
+class ChangeFilterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  /** Creates the response to {@link Command#actualArrayBattery()} with the given values in 0.01 V, A and W. */
+  private static ByteBuffer actualArrayBattery(final int arrayVoltage, final long arrayPower) {
+    final int[] words =
+        { arrayVoltage, 200, (int) (arrayPower & 0xFFFF), (int) (arrayPower >>> 16), 1320, 250, 3300, 0 };
+    final byte[] frame = new byte[3 + 2 * words.length + Checksum.SIZE];
+    frame[0] = 0x01;
+    frame[1] = 0x04;
+    frame[2] = (byte) (2 * words.length);
+    for (int i = 0; i < words.length; i++) {
+      frame[3 + 2 * i] = (byte) (words[i] >> 8);
+      frame[4 + 2 * i] = (byte) words[i];
+    }
+    Checksum.write(frame);
+    return ByteBuffer.wrap(frame);
+  }
+
+  @Test
+  void testUnchanged() {
+    final ChangeFilter filter = new ChangeFilter();
+    final Command<?> command = Command.actualArrayBattery();
+    assertTrue(filter.test(command, actualArrayBattery(1850, 3700), 0));
+    assertFalse(filter.test(command, actualArrayBattery(1850, 3700), SECOND));
+    assertTrue(filter.test(command, actualArrayBattery(1851, 3700), 2 * SECOND));
+    assertFalse(filter.test(command, actualArrayBattery(1851, 3700), 3 * SECOND));
+    assertTrue(filter.test(command.withDeviceId(2), actualArrayBattery(1851, 3700).put(0, (byte) 2), 3 * SECOND));
+    assertTrue(filter.test(null, actualArrayBattery(1851, 3700), 3 * SECOND));
+    assertTrue(filter.test(Command.batterySystem(), actualArrayBattery(1851, 3700), 3 * SECOND));
+    assertEquals(2, filter.getSuppressedCount());
+
+    filter.reset();
+    assertTrue(filter.test(command, actualArrayBattery(1851, 3700), 4 * SECOND));
+  }
+
+  @Test
+  void testMaxSilence() {
+    final ChangeFilter filter = new ChangeFilter();
+    filter.setMaxSilence(Duration.ofSeconds(10));
+    final Command<?> command = Command.actualArrayBattery();
+    assertTrue(filter.test(command, actualArrayBattery(1850, 3700), 0));
+    assertFalse(filter.test(command, actualArrayBattery(1850, 3700), 9 * SECOND));
+    assertTrue(filter.test(command, actualArrayBattery(1850, 3700), 10 * SECOND));
+    assertFalse(filter.test(command, actualArrayBattery(1850, 3700), 11 * SECOND));
+    assertThrows(IllegalArgumentException.class, () -> filter.setMaxSilence(Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  void testDeadband() {
+    final ChangeFilter filter = new ChangeFilter();
+    filter.setDeadband(Register.ARRAY_ACTUAL_VOLTAGE, 0.1, 0);
+    filter.setDeadband(Register.ARRAY_ACTUAL_POWER_HIGH, 0, 0.1);
+    final Command<?> command = Command.actualArrayBattery();
+    assertTrue(filter.test(command, actualArrayBattery(1850, 100_000), 0));
+    assertFalse(filter.test(command, actualArrayBattery(1860, 100_000), 1));
+    assertFalse(filter.test(command, actualArrayBattery(1840, 109_000), 2));
+    // the change accumulates against the last notified value
+    assertTrue(filter.test(command, actualArrayBattery(1861, 109_000), 3));
+    assertTrue(filter.test(command, actualArrayBattery(1861, 120_001), 4));
+    assertFalse(filter.test(command, actualArrayBattery(1861, 130_000), 5));
+
+    filter.removeDeadband(Register.ARRAY_ACTUAL_VOLTAGE);
+    assertTrue(filter.test(command, actualArrayBattery(1862, 120_001), 6));
+    assertThrows(IllegalArgumentException.class, () -> filter.setDeadband(Register.ARRAY_ACTUAL_VOLTAGE, -1, 0));
+  }
+
+}
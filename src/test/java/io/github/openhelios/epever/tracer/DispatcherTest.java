@@ -0,0 +1,56 @@
+package io.github.openhelios.epever.tracer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Tests for the order guarantee of {@link Dispatcher}.
+ */
+class DispatcherTest {
+
+  private static final int COUNT = 1000;
+
+  private static void assertOrdered(final Dispatcher dispatcher) throws InterruptedException {
+    final List<Float> received = new ArrayList<>();
+    final CountDownLatch latch = new CountDownLatch(COUNT);
+    final Tracer3210ANListener listener = (final Response response) -> {
+      received.add(((BatterySystem) response).voltageInV());
+      latch.countDown();
+    };
+    for (int i = 0; i < COUNT; i++) {
+      dispatcher.dispatch(Set.of(listener), 1, new BatterySystem(i));
+    }
+    latch.await(10, TimeUnit.SECONDS);
+    dispatcher.close();
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals(i, received.get(i));
+    }
+  }
+
+  @Test
+  void testSingleConsumer() throws InterruptedException {
+    assertOrdered(Dispatcher.singleConsumer());
+  }
+
+  @Test
+  void testVirtualThreadPerListener() throws InterruptedException {
+    assertOrdered(Dispatcher.virtualThreadPerListener());
+  }
+
+  @Test
+  void testExecutor() throws InterruptedException {
+    assertOrdered(Dispatcher.of(Executors.newFixedThreadPool(4)));
+  }
+
+}
@@ -0,0 +1,83 @@
+package io.github.openhelios.epever.tracer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.response.Clock;
+import io.github.openhelios.epever.tracer.protocol.response.ErrorCode;
+
+class RetryPolicyTest {
+
+  @Test
+  void testMaxRetries() {
+    final RetryPolicy policy = new RetryPolicy();
+    assertTrue(policy.tryRetry(Command.batterySystem(), ErrorCode.DEVICE_BUSY, 2));
+    assertFalse(policy.tryRetry(Command.batterySystem(), ErrorCode.DEVICE_BUSY, 3));
+    assertFalse(policy.tryRetry(Command.batterySystem(), ErrorCode.INVALID_DATA_VALUE, 0));
+    policy.setMaxRetries(Command.batterySystem().withDeviceId(2), 0);
+    assertFalse(policy.tryRetry(Command.batterySystem(), ErrorCode.DEVICE_BUSY, 0));
+    assertTrue(policy.tryRetry(Command.clock(), ErrorCode.DEVICE_BUSY, 0));
+    policy.resetMaxRetries(Command.batterySystem());
+    assertTrue(policy.tryRetry(Command.batterySystem(), ErrorCode.DEVICE_BUSY, 0));
+    assertFalse(RetryPolicy.none().tryRetry(Command.clock(), ErrorCode.DEVICE_BUSY, 0));
+  }
+
+  @Test
+  void testMaxRetriesOfCommand() {
+    final RetryPolicy policy = new RetryPolicy();
+    policy.setMaxRetries(Command.batteryConfig(), 5);
+    assertTrue(policy.tryRetry(Command.batteryConfig(), ErrorCode.DEVICE_BUSY, 4));
+    assertFalse(policy.tryRetry(Command.batteryConfig(), ErrorCode.DEVICE_BUSY, 5));
+    // an error, which would occur again, is not retried
+    assertFalse(policy.tryRetry(Command.batteryConfig(), ErrorCode.UNKNOWN_REGISTER_ADDRESS, 0));
+    assertFalse(policy.tryRetry(Command.batteryConfig(), ErrorCode.INVALID_DATA_VALUE, 0));
+    policy.setMaxRetries(ErrorCode.DEVICE_BUSY, 0);
+    assertFalse(policy.tryRetry(Command.batteryConfig(), ErrorCode.DEVICE_BUSY, 0));
+  }
+
+  @Test
+  void testWriteRetry() {
+    final RetryPolicy policy = new RetryPolicy();
+    final Command<?> setClock = Command.setClock(new Clock(LocalDateTime.of(2024, 5, 6, 7, 8, 9)));
+    assertFalse(policy.tryRetry(setClock, ErrorCode.PROCESSING_FUNCTION_STARTED, 0));
+    assertFalse(policy.tryRetry(Command.loadOn(true), ErrorCode.DEVICE_BUSY, 0));
+    assertTrue(policy.tryRetry(Command.batteryConfig(), ErrorCode.PROCESSING_FUNCTION_STARTED, 0));
+    policy.setWriteRetryOn(true);
+    assertTrue(policy.tryRetry(Command.loadOn(true), ErrorCode.DEVICE_BUSY, 0));
+  }
+
+  @Test
+  void testBudget() {
+    final RetryPolicy policy = new RetryPolicy();
+    policy.setBudget(2, 0);
+    assertTrue(policy.tryRetry(Command.clock(), ErrorCode.DEVICE_BUSY, 0));
+    assertTrue(policy.tryRetry(Command.clock(), ErrorCode.DEVICE_BUSY, 0));
+    assertFalse(policy.tryRetry(Command.clock(), ErrorCode.DEVICE_BUSY, 0));
+    assertEquals(0, policy.getAvailableBudget());
+  }
+
+  @Test
+  void testBackoff() {
+    final RetryPolicy policy = new RetryPolicy();
+    policy.setInitialBackoff(Duration.ofMillis(10));
+    policy.setMaxBackoff(Duration.ofMillis(50));
+    policy.setJitter(0);
+    assertEquals(Duration.ofMillis(10), policy.getBackoff(0));
+    assertEquals(Duration.ofMillis(40), policy.getBackoff(2));
+    assertEquals(Duration.ofMillis(50), policy.getBackoff(3));
+    assertEquals(Duration.ofMillis(50), policy.getBackoff(100));
+    policy.setJitter(0.5);
+    for (int i = 0; i < 100; i++) {
+      final Duration backoff = policy.getBackoff(1);
+      assertTrue(backoff.compareTo(Duration.ofMillis(10)) >= 0 && backoff.compareTo(Duration.ofMillis(20)) <= 0);
+    }
+  }
+
+}
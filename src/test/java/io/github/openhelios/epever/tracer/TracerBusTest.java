@@ -0,0 +1,176 @@
+package io.github.openhelios.epever.tracer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.response.BatteryConfig;
+import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.Clock;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.simulator.RegisterMap;
+import io.github.openhelios.epever.tracer.simulator.Tracer3210ANSimulator;
+import io.github.openhelios.epever.tracer.transport.Transport;
+
+/**
+ * Tests for {@link TracerBus} against {@link Tracer3210ANSimulator} simulating several devices on one bus.
+ */
+class TracerBusTest {
+
+  /**
+   * Listener recording the device ID of each response.
+   */
+  private static final class DeviceListener implements Tracer3210ANListener {
+
+    private final List<Integer> deviceIds = new CopyOnWriteArrayList<>();
+
+    private final List<Response> responses = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch latch;
+
+    DeviceListener(final int count) {
+      latch = new CountDownLatch(count);
+    }
+
+    /** Waits for the expected amount of responses, because the listeners are notified after the future is completed. */
+    void await() throws InterruptedException {
+      assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public void onMessage(final Response response) {
+      throw new IllegalStateException("expected onMessage with device ID");
+    }
+
+    @Override
+    public void onMessage(final int deviceId, final Response response) {
+      deviceIds.add(deviceId);
+      responses.add(response);
+      latch.countDown();
+    }
+
+  }
+
+  /**
+   * Transport redirecting the requests for one device ID to another device ID, so the response has the wrong ID.
+   */
+  private static final class RedirectingTransport implements Transport {
+
+    private final Transport transport;
+
+    private final int fromDeviceId;
+
+    private final int toDeviceId;
+
+    RedirectingTransport(final Transport transport, final int fromDeviceId, final int toDeviceId) {
+      this.transport = transport;
+      this.fromDeviceId = fromDeviceId;
+      this.toDeviceId = toDeviceId;
+    }
+
+    @Override
+    public String getName() {
+      return transport.getName();
+    }
+
+    @Override
+    public void open(final Receiver receiver) {
+      transport.open(receiver);
+    }
+
+    @Override
+    public void write(final ByteBuffer frame) {
+      final byte[] request = new byte[frame.remaining()];
+      frame.duplicate().get(request);
+      if (fromDeviceId == request[0]) {
+        request[0] = (byte) toDeviceId;
+        Checksum.write(request);
+      }
+      transport.write(ByteBuffer.wrap(request));
+    }
+
+    @Override
+    public boolean isOpen() {
+      return transport.isOpen();
+    }
+
+    @Override
+    public void close() {
+      transport.close();
+    }
+
+  }
+
+  @Test
+  void testSend() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator(RegisterMap.createDefault(), 1, 2))) {
+      tracer.setDispatcher(Dispatcher.of(Runnable::run));
+      final DeviceListener listener = new DeviceListener(2);
+      tracer.addListener(listener);
+      final TracerBus bus = new TracerBus(tracer, 2, 1);
+      final Map<Integer, CompletableFuture<BatteryConfig>> futures = bus.send(Command.batteryConfig());
+      assertEquals(List.of(2, 1), List.copyOf(futures.keySet()));
+      for (final CompletableFuture<BatteryConfig> future : futures.values()) {
+        assertEquals(200, future.get(1, TimeUnit.SECONDS).capacityInAh());
+      }
+      listener.await();
+      assertEquals(List.of(2, 1), listener.deviceIds);
+      assertEquals(listener.responses.get(0), futures.get(2).get());
+      assertEquals(listener.responses.get(1), futures.get(1).get());
+    }
+  }
+
+  @Test
+  void testPoll() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator(RegisterMap.createDefault(), 1, 2))) {
+      tracer.setDispatcher(Dispatcher.of(Runnable::run));
+      final DeviceListener listener = new DeviceListener(4);
+      tracer.addListener(listener);
+      new TracerBus(tracer, 1, 2).poll(List.of(Command.batterySystem(), Command.clock())).get(1, TimeUnit.SECONDS);
+      listener.await();
+      assertEquals(List.of(1, 1, 2, 2), listener.deviceIds);
+      assertInstanceOf(BatterySystem.class, listener.responses.get(0));
+      assertInstanceOf(Clock.class, listener.responses.get(1));
+      assertInstanceOf(BatterySystem.class, listener.responses.get(2));
+      assertInstanceOf(Clock.class, listener.responses.get(3));
+    }
+  }
+
+  @Test
+  void testWrongDeviceId() throws Exception {
+    final Transport transport =
+        new RedirectingTransport(new Tracer3210ANSimulator(RegisterMap.createDefault(), 1, 3), 2, 3);
+    try (final Tracer3210AN tracer = new Tracer3210AN(transport)) {
+      tracer.setDispatcher(Dispatcher.of(Runnable::run));
+      tracer.setTimeout(Duration.ofMillis(100));
+      final DeviceListener listener = new DeviceListener(2);
+      tracer.addListener(listener);
+      final Map<Integer, CompletableFuture<BatteryConfig>> futures =
+          new TracerBus(tracer, 2, 1).send(Command.batteryConfig());
+      final ExecutionException e =
+          assertThrows(ExecutionException.class, () -> futures.get(2).get(1, TimeUnit.SECONDS));
+      assertInstanceOf(TimeoutException.class, e.getCause());
+      assertEquals(200, futures.get(1).get(1, TimeUnit.SECONDS).capacityInAh());
+      listener.await();
+      // the listeners receive the unexpected response with the ID of the responding device
+      assertEquals(List.of(3, 1), listener.deviceIds);
+    }
+  }
+
+}
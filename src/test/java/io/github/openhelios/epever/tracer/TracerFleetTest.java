@@ -0,0 +1,142 @@
+package io.github.openhelios.epever.tracer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.PollPlan;
+import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.Clock;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.simulator.RegisterMap;
+import io.github.openhelios.epever.tracer.simulator.Tracer3210ANSimulator;
+
+/**
+ * Tests for {@link TracerFleet} against several {@link Tracer3210ANSimulator}.
+ */
+class TracerFleetTest {
+
+  private static final PollPlan PLAN = PollPlan.of(Command.batterySystem(), Command.clock());
+
+  private static List<Tracer3210AN> connect(final Tracer3210ANSimulator... simulators) {
+    final List<Tracer3210AN> connections = new ArrayList<>();
+    for (final Tracer3210ANSimulator simulator : simulators) {
+      connections.add(new Tracer3210AN(simulator));
+    }
+    return connections;
+  }
+
+  @Test
+  void testMergedListener() throws Exception {
+    final Tracer3210ANSimulator[] simulators = { new Tracer3210ANSimulator(), new Tracer3210ANSimulator(),
+        new Tracer3210ANSimulator(RegisterMap.createDefault(), 1, 7) };
+    try (final TracerFleet fleet = new TracerFleet(connect(simulators))) {
+      final Map<Tracer3210AN, List<Response>> responses = new ConcurrentHashMap<>();
+      final Set<Integer> deviceIds = ConcurrentHashMap.newKeySet();
+      final AtomicInteger concurrentCalls = new AtomicInteger();
+      final CountDownLatch latch = new CountDownLatch(7);
+      fleet.addListener((connection, deviceId, response) -> {
+        // the merged stream is handed to the listeners one after the other
+        assertEquals(1, concurrentCalls.incrementAndGet());
+        responses.computeIfAbsent(connection, c -> new ArrayList<>()).add(response);
+        deviceIds.add(deviceId);
+        concurrentCalls.decrementAndGet();
+        latch.countDown();
+      });
+      fleet.poll(PLAN).get(1, TimeUnit.SECONDS);
+      final Tracer3210AN last = fleet.getConnections().get(2);
+      last.send(Command.batterySystem().withDeviceId(7)).get(1, TimeUnit.SECONDS);
+      assertTrue(latch.await(1, TimeUnit.SECONDS));
+      assertEquals(Set.copyOf(fleet.getConnections()), responses.keySet());
+      for (final Tracer3210AN connection : fleet.getConnections()) {
+        final List<Response> list = responses.get(connection);
+        assertInstanceOf(BatterySystem.class, list.get(0));
+        assertInstanceOf(Clock.class, list.get(1));
+      }
+      assertEquals(3, responses.get(last).size());
+      assertEquals(Set.of(1, 7), deviceIds);
+      for (final Tracer3210ANSimulator simulator : simulators) {
+        assertTrue(2 <= simulator.getRequestCount());
+      }
+    }
+  }
+
+  @Test
+  void testConcurrentPolling() throws Exception {
+    final Tracer3210ANSimulator[] simulators =
+        { new Tracer3210ANSimulator(), new Tracer3210ANSimulator(), new Tracer3210ANSimulator() };
+    try (final TracerFleet fleet = new TracerFleet(connect(simulators))) {
+      final AtomicInteger count = new AtomicInteger();
+      fleet.addListener((connection, deviceId, response) -> count.incrementAndGet());
+      final List<CompletableFuture<Void>> polls = new ArrayList<>();
+      final List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        threads.add(Thread.ofPlatform().start(() -> {
+          for (int i = 0; i < 20; i++) {
+            final CompletableFuture<Void> poll = fleet.poll(PLAN);
+            synchronized (polls) {
+              polls.add(poll);
+            }
+            fleet.startPolling(PLAN, Duration.ofMillis(1));
+            fleet.stopPolling();
+          }
+        }));
+      }
+      for (final Thread thread : threads) {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(thread.isAlive());
+      }
+      for (final CompletableFuture<Void> poll : polls) {
+        poll.get(10, TimeUnit.SECONDS);
+      }
+      // the stopped pollers no longer send requests
+      final long requests = simulators[0].getRequestCount();
+      fleet.poll(PLAN).get(1, TimeUnit.SECONDS);
+      Thread.sleep(50);
+      assertEquals(requests + 2, simulators[0].getRequestCount());
+      for (final Tracer3210ANSimulator simulator : simulators) {
+        assertTrue(4 * 20 * 2 <= simulator.getRequestCount());
+      }
+      assertTrue(0 < count.get());
+    }
+  }
+
+  @Test
+  void testClose() throws Exception {
+    final Tracer3210ANSimulator[] simulators = { new Tracer3210ANSimulator(), new Tracer3210ANSimulator() };
+    for (final Tracer3210ANSimulator simulator : simulators) {
+      simulator.setLatency(Duration.ofSeconds(10));
+    }
+    final TracerFleet fleet = new TracerFleet(connect(simulators));
+    final CompletableFuture<Void> poll = fleet.poll(PLAN);
+    final CompletableFuture<Clock> clock = fleet.getConnections().get(1).requestClock();
+    fleet.startPolling(PLAN, Duration.ofMillis(1));
+    Thread.sleep(50);
+    assertFalse(poll.isDone());
+    fleet.close();
+    poll.get(1, TimeUnit.SECONDS);
+    final ExecutionException e = assertThrows(ExecutionException.class, () -> clock.get(1, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    for (final Tracer3210AN connection : fleet.getConnections()) {
+      assertFalse(connection.isConnected());
+    }
+  }
+
+}
@@ -0,0 +1,112 @@
+package io.github.openhelios.epever.tracer.capture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.openhelios.epever.tracer.Tracer3210AN;
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.BatteryConfig;
+import io.github.openhelios.epever.tracer.protocol.response.BitValues;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+import io.github.openhelios.epever.tracer.simulator.Tracer3210ANSimulator;
+import io.github.openhelios.epever.tracer.telemetry.TelemetrySample;
+
+class CaptureReplayerTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testWriteAndRead() {
+    final Path path = directory.resolve("test.cap");
+    try (CaptureWriter writer = new CaptureWriter(path, 1_000)) {
+      writer.write(Direction.SENT, 1_500, ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+      writer.write(Direction.RECEIVED, 1_000_000_000_000L, new byte[300], 0, 300);
+    }
+    try (CaptureReader reader = new CaptureReader(path)) {
+      assertEquals(1_000, reader.getStartNanos());
+      assertTrue(reader.next());
+      assertEquals(Direction.SENT, reader.getDirection());
+      assertEquals(1_500, reader.getTimestampNanos());
+      assertEquals(3, reader.getLength());
+      assertEquals(3, reader.getData()[2]);
+      assertTrue(reader.next());
+      assertEquals(Direction.RECEIVED, reader.getDirection());
+      assertEquals(1_000_000_000_000L, reader.getTimestampNanos());
+      assertEquals(300, reader.getLength());
+      assertFalse(reader.next());
+    }
+  }
+
+  @Test
+  void testTruncated() throws Exception {
+    final Path path = directory.resolve("test.cap");
+    try (CaptureWriter writer = new CaptureWriter(path, 0)) {
+      writer.write(Direction.SENT, 1, new byte[] { 1, 2, 3 }, 0, 3);
+      writer.write(Direction.SENT, 2, new byte[] { 4, 5, 6 }, 0, 3);
+    }
+    final byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+    try (CaptureReader reader = new CaptureReader(path)) {
+      assertTrue(reader.next());
+      assertFalse(reader.next());
+    }
+    Files.write(path, new byte[] { 1, 2, 3 });
+    assertThrows(IllegalStateException.class, () -> new CaptureReader(path));
+  }
+
+  @Test
+  void testReplay() throws Exception {
+    final Path path = directory.resolve("test.cap");
+    final CapturingTransport transport =
+        new CapturingTransport(new Tracer3210ANSimulator(), new CaptureWriter(path, TelemetrySample.nowNanos()));
+    try (final Tracer3210AN tracer = new Tracer3210AN(transport)) {
+      tracer.requestActualArrayBattery().get(1, TimeUnit.SECONDS);
+      tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS);
+      tracer.requestCoils().get(1, TimeUnit.SECONDS);
+    }
+    final CaptureReplayer replayer = new CaptureReplayer(path);
+    replayer.setSpeed(CaptureReplayer.AS_FAST_AS_POSSIBLE);
+    final List<Response> responses = new ArrayList<>();
+    replayer.addListener(responses::add);
+    final List<Integer> frameSizes = new ArrayList<>();
+    replayer.setFrameListener((command, frame) -> frameSizes.add(frame.remaining()));
+    assertEquals(4, replayer.replay());
+    assertEquals(4, responses.size());
+    assertEquals(18.5f, assertInstanceOf(ActualArrayBattery.class, responses.get(0)).array().voltageInV());
+    assertInstanceOf(BatteryConfig.class, responses.get(1));
+    // the coils are read with one frame for each contiguous range of defined coils
+    assertInstanceOf(BitValues.class, responses.get(2));
+    assertInstanceOf(BitValues.class, responses.get(3));
+    assertEquals(4, frameSizes.size());
+
+    responses.clear();
+    replayer.setSpeed(1000);
+    assertEquals(4, replayer.replay());
+    assertEquals(4, responses.size());
+    assertThrows(IllegalArgumentException.class, () -> replayer.setSpeed(0));
+
+    // replaying as fast as possible stops after the record, which has been replayed when interrupted
+    responses.clear();
+    replayer.setSpeed(CaptureReplayer.AS_FAST_AS_POSSIBLE);
+    replayer.addListener(response -> Thread.currentThread().interrupt());
+    assertEquals(1, replayer.replay());
+    assertTrue(Thread.interrupted());
+    assertEquals(1, responses.size());
+  }
+
+}
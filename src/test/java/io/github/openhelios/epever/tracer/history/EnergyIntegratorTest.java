@@ -0,0 +1,115 @@
+package io.github.openhelios.epever.tracer.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.openhelios.epever.tracer.history.EnergyIntegrator.Channel;
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.VoltageCurrentPower;
+import io.github.openhelios.epever.tracer.protocol.response.statistic.LoadEnergyStatistics;
+
+class EnergyIntegratorTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testTrapezoid() {
+    final EnergyIntegrator integrator = new EnergyIntegrator();
+    integrator.addSample(Channel.ARRAY, 0, 100);
+    integrator.addSample(Channel.ARRAY, 30 * SECOND, 200);
+    integrator.addSample(Channel.ARRAY, 20 * SECOND, 1000); // out of order
+    integrator.addSample(Channel.ARRAY, 60 * SECOND, 200);
+    assertEquals((150 * 30 + 200 * 30) / 3600.0, integrator.getTotalWh(Channel.ARRAY), 1e-9);
+    assertEquals(0, integrator.getTotalWh(Channel.LOAD));
+    assertFalse(integrator.isReconciled(Channel.ARRAY));
+  }
+
+  @Test
+  void testGap() {
+    final EnergyIntegrator integrator = new EnergyIntegrator();
+    integrator.setMaxGap(Duration.ofSeconds(10));
+    integrator.addSample(Channel.LOAD, 0, 360);
+    integrator.addSample(Channel.LOAD, 10 * SECOND, 360);
+    integrator.addSample(Channel.LOAD, 30 * SECOND, 360);
+    integrator.addSample(Channel.LOAD, 40 * SECOND, 360);
+    assertEquals(2, integrator.getTotalWh(Channel.LOAD), 1e-9);
+    assertEquals(1, integrator.getGapCount(Channel.LOAD));
+    assertThrows(IllegalArgumentException.class, () -> integrator.setMaxGap(Duration.ZERO));
+  }
+
+  @Test
+  void testReconcile() {
+    final EnergyIntegrator integrator = new EnergyIntegrator();
+    integrator.addSample(Channel.ARRAY, 0, 3600);
+    integrator.addSample(Channel.ARRAY, SECOND, 3600);
+    integrator.reconcile(Channel.ARRAY, 5000);
+    assertTrue(integrator.isReconciled(Channel.ARRAY));
+    assertEquals(5000, integrator.getTotalWh(Channel.ARRAY));
+    assertEquals(0, integrator.getLastCorrectionWh(Channel.ARRAY));
+
+    integrator.addSample(Channel.ARRAY, 4 * SECOND, 3600);
+    assertEquals(5003, integrator.getTotalWh(Channel.ARRAY), 1e-9);
+    integrator.reconcile(Channel.ARRAY, 5000); // within the step
+    assertEquals(5003, integrator.getTotalWh(Channel.ARRAY), 1e-9);
+    integrator.reconcile(Channel.ARRAY, 5010); // device counted more
+    assertEquals(5010, integrator.getTotalWh(Channel.ARRAY), 1e-9);
+    assertEquals(7, integrator.getLastCorrectionWh(Channel.ARRAY), 1e-9);
+
+    integrator.addSample(Channel.ARRAY, 24 * SECOND, 3600);
+    integrator.reconcile(Channel.ARRAY, 5010); // estimate beyond the step
+    assertEquals(5020, integrator.getTotalWh(Channel.ARRAY), 1e-9);
+    assertEquals(-10, integrator.getLastCorrectionWh(Channel.ARRAY), 1e-9);
+  }
+
+  @Test
+  void testOnMessage() {
+    final EnergyIntegrator integrator = new EnergyIntegrator();
+    integrator.onMessage(new LoadEnergyStatistics(0.5f, 1, 2, 12.34f));
+    assertEquals(12340, integrator.getTotalWh(Channel.LOAD), 1e-2);
+    final VoltageCurrentPower battery = new VoltageCurrentPower(13, 1, 13);
+    integrator.onMessage(new ActualArrayBattery(new VoltageCurrentPower(18, 2, 36), battery));
+    integrator.onMessage(new ActualArrayBattery(new VoltageCurrentPower(18, 2, 36), battery));
+    assertTrue(0 < integrator.getTotalWh(Channel.ARRAY));
+  }
+
+  @Test
+  void testCheckpoint() throws Exception {
+    final Path path = directory.resolve("energy.bin");
+    assertEquals(0, EnergyIntegrator.load(path).getTotalWh(Channel.ARRAY));
+    final EnergyIntegrator integrator = new EnergyIntegrator();
+    integrator.reconcile(Channel.ARRAY, 1000);
+    integrator.addSample(Channel.ARRAY, 0, 3600);
+    integrator.addSample(Channel.ARRAY, SECOND, 3600);
+    integrator.save(path);
+
+    final EnergyIntegrator restored = EnergyIntegrator.load(path);
+    assertEquals(1001, restored.getTotalWh(Channel.ARRAY), 1e-9);
+    assertTrue(restored.isReconciled(Channel.ARRAY));
+    assertFalse(restored.isReconciled(Channel.LOAD));
+    restored.addSample(Channel.ARRAY, 2 * SECOND, 3600);
+    assertEquals(1002, restored.getTotalWh(Channel.ARRAY), 1e-9);
+
+    // a truncated checkpoint falls back to a new integrator
+    final byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+    assertFalse(EnergyIntegrator.load(path).isReconciled(Channel.ARRAY));
+    assertEquals(0, EnergyIntegrator.load(path).getTotalWh(Channel.ARRAY));
+
+    Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+    assertThrows(IllegalStateException.class, () -> EnergyIntegrator.load(path));
+  }
+
+}
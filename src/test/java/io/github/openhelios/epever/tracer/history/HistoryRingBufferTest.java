@@ -0,0 +1,99 @@
+package io.github.openhelios.epever.tracer.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.ActualLoadTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.VoltageCurrentPower;
+
+class HistoryRingBufferTest {
+
+  @Test
+  void testReadSince() {
+    final HistoryRingBuffer buffer = new HistoryRingBuffer(4);
+    final float[] values = new float[Field.COUNT];
+    assertEquals(Long.MIN_VALUE, buffer.readLatest(values));
+    for (int i = 0; i < 6; i++) {
+      values[Field.LOAD_POWER.ordinal()] = i;
+      buffer.visit(i, Field.LOAD_POWER.bit(), values);
+    }
+    final long[] timestamps = new long[10];
+    final int[] masks = new int[10];
+    final float[] copied = new float[10 * Field.COUNT];
+    assertEquals(4, buffer.readSince(0, timestamps, masks, copied));
+    assertEquals(2, timestamps[0]);
+    assertEquals(5f, copied[3 * Field.COUNT + Field.LOAD_POWER.ordinal()]);
+    assertTrue(Float.isNaN(copied[3 * Field.COUNT + Field.ARRAY_POWER.ordinal()]));
+    assertEquals(2, buffer.readSince(4, timestamps, masks, copied));
+    assertEquals(4, timestamps[0]);
+    assertEquals(5, buffer.readLatest(copied));
+    assertEquals(5f, copied[Field.LOAD_POWER.ordinal()]);
+  }
+
+  @Test
+  void testFedByRecorder() {
+    final HistoryRingBuffer buffer = new HistoryRingBuffer(4);
+    final TimeSeriesRecorder recorder = new TimeSeriesRecorder(buffer);
+    final VoltageCurrentPower array = new VoltageCurrentPower(18.5f, 2f, 37);
+    final VoltageCurrentPower battery = new VoltageCurrentPower(13.2f, 2.5f, 33);
+    recorder.onMessage(new ActualArrayBattery(array, battery));
+    recorder.onMessage(new ActualLoadTemperature(new VoltageCurrentPower(13f, 1f, 13), -5.5f, 25f, 30f));
+    assertEquals(0, buffer.getWriteCount());
+    // the record of a poll is available as soon as its last response has been received
+    recorder.onMessage(new ActualBatterySocRemoteTemperature(80, 21.5f));
+    assertEquals(1, buffer.getWriteCount());
+    final float[] values = new float[Field.COUNT];
+    buffer.readLatest(values);
+    assertEquals(37f, values[Field.ARRAY_POWER.ordinal()]);
+    assertEquals(-5.5f, values[Field.BATTERY_TEMPERATURE.ordinal()]);
+    assertEquals(80f, values[Field.BATTERY_SOC.ordinal()]);
+  }
+
+  @Test
+  void testConsistentSnapshotsWhileWriting() throws InterruptedException {
+    final HistoryRingBuffer buffer = new HistoryRingBuffer(16);
+    final AtomicBoolean isRunning = new AtomicBoolean(true);
+    final Thread writer = new Thread(() -> {
+      final float[] values = new float[Field.COUNT];
+      for (long i = 1; isRunning.get(); i++) {
+        Arrays.fill(values, i);
+        buffer.visit(i, (1 << Field.COUNT) - 1, values);
+      }
+    });
+    final AtomicReference<String> failure = new AtomicReference<>();
+    final Thread reader = new Thread(() -> {
+      final long[] timestamps = new long[16];
+      final int[] masks = new int[16];
+      final float[] values = new float[16 * Field.COUNT];
+      for (int r = 0; r < 20_000; r++) {
+        final int n = buffer.readSince(0, timestamps, masks, values);
+        for (int i = 0; i < n; i++) {
+          for (int f = 0; f < Field.COUNT; f++) {
+            if (values[i * Field.COUNT + f] != timestamps[i]) {
+              failure.set("torn record " + timestamps[i]);
+            }
+          }
+          if (0 < i && timestamps[i] <= timestamps[i - 1]) {
+            failure.set("unordered records");
+          }
+        }
+      }
+    });
+    writer.start();
+    reader.start();
+    reader.join();
+    isRunning.set(false);
+    writer.join();
+    assertEquals(null, failure.get());
+    assertTrue(buffer.getWriteCount() > 0);
+  }
+
+}
@@ -0,0 +1,55 @@
+package io.github.openhelios.epever.tracer.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RollupEngineTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void testCascade() {
+    final List<Rollup> rollups = new ArrayList<>();
+    final RollupEngine engine = new RollupEngine(rollups::add, EnumSet.of(Resolution.SECOND, Resolution.MINUTE));
+    final float[] values = new float[Field.COUNT];
+    // two records per second for 90 seconds with the voltage of the second
+    for (int i = 0; i < 180; i++) {
+      values[Field.BATTERY_VOLTAGE.ordinal()] = i / 2;
+      values[Field.LOAD_POWER.ordinal()] = i;
+      engine.visit(i * SECOND / 2, Field.BATTERY_VOLTAGE.bit() | (i < 120 ? 0 : Field.LOAD_POWER.bit()), values);
+    }
+    final List<Rollup> minutes = rollups.stream().filter(r -> Resolution.MINUTE == r.getResolution()).toList();
+    assertEquals(60, rollups.indexOf(minutes.get(0)));
+    assertEquals(1, minutes.size());
+    final Rollup minute = minutes.get(0);
+    assertEquals(0, minute.getStartNanos());
+    assertEquals(60 * SECOND, minute.getEndNanos());
+    assertEquals(120, minute.count(Field.BATTERY_VOLTAGE));
+    assertEquals(0f, minute.min(Field.BATTERY_VOLTAGE));
+    assertEquals(59f, minute.max(Field.BATTERY_VOLTAGE));
+    assertEquals(29.5, minute.avg(Field.BATTERY_VOLTAGE));
+    assertEquals(59f, minute.last(Field.BATTERY_VOLTAGE));
+    assertEquals(0, minute.count(Field.LOAD_POWER));
+    assertTrue(Float.isNaN(minute.max(Field.LOAD_POWER)));
+    final Rollup second = rollups.get(70);
+    assertEquals(Resolution.SECOND, second.getResolution());
+    assertEquals(69 * SECOND, second.getStartNanos());
+    assertEquals(2, second.count(Field.LOAD_POWER));
+    assertEquals(138.5, second.avg(Field.LOAD_POWER));
+    // a late record is ignored
+    engine.visit(0, Field.BATTERY_VOLTAGE.bit(), values);
+    engine.flush();
+    final Rollup last = rollups.get(rollups.size() - 1);
+    assertEquals(Resolution.MINUTE, last.getResolution());
+    assertEquals(60, last.count(Field.BATTERY_VOLTAGE));
+    assertEquals(120f, last.min(Field.LOAD_POWER));
+    assertEquals(179f, last.max(Field.LOAD_POWER));
+  }
+
+}
@@ -0,0 +1,68 @@
+package io.github.openhelios.epever.tracer.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimeSeriesEncoderTest {
+
+  private record Decoded(long timestampNanos, int mask, float[] values) {
+  }
+
+  @Test
+  void testRoundTrip() {
+    final Random random = new Random(1);
+    final TimeSeriesEncoder encoder = new TimeSeriesEncoder();
+    final List<Decoded> expected = new ArrayList<>();
+    final float[] values = new float[Field.COUNT];
+    int battery = 1320;
+    long timestampNanos = 1_700_000_000_000_000_000L;
+    for (int i = 0; i < 3600; i++) {
+      timestampNanos += 1_000_000_000L + (i % 100 == 0 ? random.nextInt(5_000_000) : 0);
+      battery += random.nextInt(3) - 1;
+      values[Field.BATTERY_VOLTAGE.ordinal()] = battery / 100f;
+      values[Field.BATTERY_CURRENT.ordinal()] = (250 + random.nextInt(20)) / 100f;
+      values[Field.BATTERY_POWER.ordinal()] = (float) ((battery * 250L + random.nextInt(50)) / 100.0);
+      values[Field.BATTERY_TEMPERATURE.ordinal()] = -550 / 100f;
+      values[Field.BATTERY_SOC.ordinal()] = 80;
+      values[Field.ARRAY_VOLTAGE.ordinal()] = i == 1000 ? 1.2345f : 18.5f;
+      final int mask = Field.BATTERY_VOLTAGE.bit() | Field.BATTERY_CURRENT.bit() | Field.BATTERY_POWER.bit()
+          | Field.BATTERY_TEMPERATURE.bit() | Field.BATTERY_SOC.bit() | (i < 1800 ? Field.ARRAY_VOLTAGE.bit() : 0);
+      encoder.visit(timestampNanos, mask, values);
+      final float[] present = values.clone();
+      for (int f = 0; f < Field.COUNT; f++) {
+        if ((mask >>> f & 1) == 0) {
+          present[f] = Float.NaN;
+        }
+      }
+      expected.add(new Decoded(timestampNanos, mask, present));
+    }
+    final byte[] block = encoder.toByteArray();
+    assertEquals(block.length, encoder.byteSize());
+    // the raw records take 72 bytes
+    assertTrue(block.length < 3600 * 8, "block size " + block.length);
+    final TimeSeriesDecoder decoder = new TimeSeriesDecoder(block);
+    assertEquals(3600, decoder.size());
+    final List<Decoded> decoded = new ArrayList<>();
+    decoder.forEachRemaining((t, mask, v) -> decoded.add(new Decoded(t, mask, v.clone())));
+    assertFalse(decoder.hasNext());
+    assertThrows(IllegalStateException.class, () -> decoder.next((t, mask, v) -> {
+    }));
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).timestampNanos(), decoded.get(i).timestampNanos(), "timestamp " + i);
+      assertEquals(expected.get(i).mask(), decoded.get(i).mask(), "mask " + i);
+      assertArrayEquals(expected.get(i).values(), decoded.get(i).values(), "values " + i + ": "
+          + Arrays.toString(decoded.get(i).values()));
+    }
+  }
+
+}
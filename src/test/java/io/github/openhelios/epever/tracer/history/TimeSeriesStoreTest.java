@@ -0,0 +1,211 @@
+package io.github.openhelios.epever.tracer.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.ActualBatterySocRemoteTemperature;
+import io.github.openhelios.epever.tracer.protocol.response.VoltageCurrentPower;
+
+class TimeSeriesStoreTest {
+
+  @TempDir
+  Path directory;
+
+  private static List<Long> timestamps(final TimeSeriesStore store) {
+    final List<Long> timestamps = new ArrayList<>();
+    store.scan(Long.MIN_VALUE, Long.MAX_VALUE, (timestampNanos, mask, values) -> timestamps.add(timestampNanos));
+    return timestamps;
+  }
+
+  @Test
+  void testAppendRollOverAndReopen() throws IOException {
+    final float[] values = new float[Field.COUNT];
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 4)) {
+      store.setSyncPolicy(SyncPolicy.EVERY_RECORD);
+      for (int i = 1; i <= 10; i++) {
+        values[Field.BATTERY_VOLTAGE.ordinal()] = i;
+        store.append(i, Field.BATTERY_VOLTAGE.bit(), values);
+      }
+      assertEquals(3, store.getSegments().size());
+      assertEquals(2, store.getSegmentRecordCount());
+      final List<Float> voltages = new ArrayList<>();
+      store.scan(3, 6, (timestampNanos, mask, v) -> {
+        assertEquals(Field.BATTERY_VOLTAGE.bit(), mask);
+        assertTrue(Float.isNaN(v[Field.ARRAY_VOLTAGE.ordinal()]));
+        voltages.add(v[Field.BATTERY_VOLTAGE.ordinal()]);
+      });
+      assertEquals(List.of(3f, 4f, 5f), voltages);
+    }
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 4)) {
+      assertEquals(2, store.getSegmentRecordCount());
+      store.append(11, 0, values);
+      assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), timestamps(store));
+    }
+  }
+
+  @Test
+  void testTornTail() throws IOException {
+    final float[] values = new float[Field.COUNT];
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      for (int i = 1; i <= 3; i++) {
+        store.append(i, 0, values);
+      }
+    }
+    final Path segment = directory.resolve("00000000" + TimeSeriesStore.SEGMENT_SUFFIX);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      // a crash while writing the third record
+      channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }),
+          TimeSeriesStore.HEADER_SIZE + 2 * TimeSeriesStore.RECORD_SIZE + 10);
+    }
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      assertEquals(2, store.getSegmentRecordCount());
+      store.append(4, 0, values);
+      assertEquals(List.of(1L, 2L, 4L), timestamps(store));
+    }
+    // a crash after creating the next segment, but before mapping it
+    Files.createFile(directory.resolve("00000001" + TimeSeriesStore.SEGMENT_SUFFIX));
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      assertEquals(0, store.getSegmentRecordCount());
+      store.append(5, 0, values);
+      assertEquals(List.of(1L, 2L, 4L, 5L), timestamps(store));
+    }
+  }
+
+  @Test
+  void testTornRecordBeforeValidRecords() throws IOException {
+    final float[] values = new float[Field.COUNT];
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      for (int i = 1; i <= 4; i++) {
+        store.append(i, 0, values);
+      }
+    }
+    final Path segment = directory.resolve("00000000" + TimeSeriesStore.SEGMENT_SUFFIX);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      // the second record is torn, but the records written after it are still valid
+      channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }),
+          TimeSeriesStore.HEADER_SIZE + TimeSeriesStore.RECORD_SIZE + 10);
+    }
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      assertEquals(1, store.getSegmentRecordCount());
+      store.append(5, 0, values);
+    }
+    // the records after the torn record are not resurrected after the gap has been overwritten
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      assertEquals(2, store.getSegmentRecordCount());
+      assertEquals(List.of(1L, 5L), timestamps(store));
+    }
+  }
+
+  @Test
+  void testRecorder() {
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 8)) {
+      final TimeSeriesRecorder recorder = new TimeSeriesRecorder(store);
+      final VoltageCurrentPower array = new VoltageCurrentPower(18.5f, 2f, 37);
+      final VoltageCurrentPower battery = new VoltageCurrentPower(13.2f, 2.5f, 33);
+      recorder.onMessage(new ActualArrayBattery(array, battery));
+      recorder.onMessage(new ActualBatterySocRemoteTemperature(80, 21.5f));
+      recorder.onMessage(new ActualArrayBattery(array, battery));
+      recorder.flush();
+      final List<Integer> masks = new ArrayList<>();
+      final List<Float> socs = new ArrayList<>();
+      store.scan(Long.MIN_VALUE, Long.MAX_VALUE, (timestampNanos, mask, values) -> {
+        masks.add(mask);
+        socs.add(values[Field.BATTERY_SOC.ordinal()]);
+        assertEquals(37f, values[Field.ARRAY_POWER.ordinal()]);
+      });
+      assertEquals(List.of(0b11_0000_0011_1111, 0b11_1111), masks);
+      assertEquals(80f, socs.get(0));
+      assertTrue(Float.isNaN(socs.get(1)));
+    }
+  }
+
+  private static Aggregate scanAggregate(final TimeSeriesStore store, final Field field, final long fromNanos,
+      final long toNanos) {
+    final Aggregate aggregate = new Aggregate(field, fromNanos, toNanos);
+    store.scan(fromNanos, toNanos, (timestampNanos, mask, values) -> {
+      if ((mask & field.bit()) != 0) {
+        aggregate.add(values[field.ordinal()]);
+      }
+    });
+    return aggregate;
+  }
+
+  private static void assertAggregate(final Aggregate expected, final Aggregate actual) {
+    assertEquals(expected.count(), actual.count());
+    assertEquals(expected.min(), actual.min());
+    assertEquals(expected.max(), actual.max());
+    assertEquals(expected.sum(), actual.sum(), 1e-6 * Math.abs(expected.sum()));
+  }
+
+  @Test
+  void testAggregate() throws IOException {
+    final int records = 10_000;
+    final float[] values = new float[Field.COUNT];
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 3000)) {
+      for (int i = 0; i < records; i++) {
+        values[Field.BATTERY_VOLTAGE.ordinal()] = 12 + (i * 7919 % 1000) / 500f;
+        values[Field.ARRAY_POWER.ordinal()] = i % 100;
+        store.append(i * 1000L, i % 10 == 0 ? Field.BATTERY_VOLTAGE.bit() : 0b111111, values);
+      }
+      for (final long[] range : new long[][] { { Long.MIN_VALUE, Long.MAX_VALUE }, { 0, 1 }, { 1_500_000, 7_777_777 },
+          { 5_000_000, 5_000_000 }, { 9_000_000, 20_000_000 }, { 20_000_000, 30_000_000 } }) {
+        for (final Field field : List.of(Field.BATTERY_VOLTAGE, Field.ARRAY_POWER, Field.BATTERY_SOC)) {
+          assertAggregate(scanAggregate(store, field, range[0], range[1]), store.aggregate(field, range[0], range[1]));
+        }
+      }
+      final Aggregate all = store.aggregate(Field.ARRAY_POWER, Long.MIN_VALUE, Long.MAX_VALUE);
+      assertEquals(9000, all.count());
+      assertEquals(1f, all.min()); // 0 is only in records without power
+      assertEquals(99f, all.max());
+      assertTrue(Float.isNaN(store.aggregate(Field.BATTERY_SOC, 0, records * 1000L).min()));
+
+      final List<Aggregate> steps = store.aggregate(Field.BATTERY_VOLTAGE, 0, 9_500_000, Duration.ofNanos(1_000_000));
+      assertEquals(10, steps.size());
+      for (final Aggregate step : steps) {
+        assertAggregate(scanAggregate(store, Field.BATTERY_VOLTAGE, step.getStartNanos(), step.getEndNanos()), step);
+      }
+      assertEquals(9_500_000, steps.get(9).getEndNanos());
+      assertThrows(IllegalArgumentException.class,
+          () -> store.aggregate(Field.BATTERY_VOLTAGE, 0, Long.MAX_VALUE, Duration.ofNanos(1)));
+    }
+    assertTrue(Files.exists(directory.resolve("00000000.idx")));
+    Files.delete(directory.resolve("00000001.idx"));
+    Files.write(directory.resolve("00000002.idx"), new byte[] { 1, 2, 3 });
+    final Aggregate expected;
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 3000)) {
+      assertAggregate(scanAggregate(store, Field.BATTERY_VOLTAGE, 1_234_567, 9_876_543),
+          store.aggregate(Field.BATTERY_VOLTAGE, 1_234_567, 9_876_543));
+      assertTrue(Files.exists(directory.resolve("00000001.idx")));
+      expected = scanAggregate(store, Field.BATTERY_VOLTAGE, 3_000_000, 9_876_543);
+    }
+    // an index with a wrong amount of records is rebuilt
+    try (FileChannel channel = FileChannel.open(directory.resolve("00000001.idx"), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Integer.MAX_VALUE), 12);
+    }
+    // a segment outside the range is skipped by its index without opening it
+    try (FileChannel channel = FileChannel.open(directory.resolve("00000000" + TimeSeriesStore.SEGMENT_SUFFIX),
+        StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES), 0);
+    }
+    try (final TimeSeriesStore store = new TimeSeriesStore(directory, 3000)) {
+      assertAggregate(expected, store.aggregate(Field.BATTERY_VOLTAGE, 3_000_000, 9_876_543));
+      assertThrows(IllegalStateException.class, () -> store.aggregate(Field.BATTERY_VOLTAGE, 0, 1));
+    }
+  }
+
+}
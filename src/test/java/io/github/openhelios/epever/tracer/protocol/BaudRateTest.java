@@ -0,0 +1,27 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class BaudRateTest {
+
+  @Test
+  void testTiming() {
+    assertEquals(Duration.ofNanos(3_645_833), BaudRate.BPS_9600.silentInterval());
+    assertEquals(Duration.ofNanos(1_562_500), BaudRate.BPS_9600.interCharacterTimeout());
+    assertEquals(Duration.ofNanos(1_750_000), BaudRate.BPS_115200.silentInterval());
+    assertEquals(Duration.ofNanos(750_000), BaudRate.BPS_115200.interCharacterTimeout());
+    assertEquals(Duration.ofNanos(954_861), BaudRate.BPS_115200.transmissionTime(11));
+  }
+
+  @Test
+  void testFindByBitsPerSecond() {
+    assertEquals(BaudRate.BPS_57600, BaudRate.findByBitsPerSecond(57600));
+    assertNull(BaudRate.findByBitsPerSecond(1200));
+  }
+
+}
@@ -1,6 +1,12 @@
 package io.github.openhelios.epever.tracer.protocol;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -25,4 +31,57 @@ class ChecksumTest {
         Checksum.check(data));
   }
 
+  /**
+   * The former bitwise implementation as reference.
+   */
+  private static int generateBitwise(final byte[] buffer, final int offset, final int length) {
+    int crc = 0xFFFF;
+    for (int i = offset; i < offset + length; i++) {
+      crc ^= buffer[i] & 0xFF;
+      for (int bit = 0; bit < 8; bit++) {
+        final boolean isLastBitSet = 0 != (crc & 1);
+        crc >>= 1;
+        if (isLastBitSet) {
+          crc ^= 0xA001;
+        }
+      }
+    }
+    return crc;
+  }
+
+  @Test
+  void testGenerateEqualsBitwise() {
+    final Random random = new Random(1);
+    for (int length = 0; length <= FrameDecoder.MAX_FRAME_SIZE; length++) {
+      final byte[] data = new byte[length + 3];
+      random.nextBytes(data);
+      assertEquals(generateBitwise(data, 3, length), Checksum.generate(data, 3, length));
+    }
+  }
+
+  @Test
+  void testIncremental() {
+    final byte[] frame = REQUEST_STATUS;
+    int crc = Checksum.INITIAL;
+    for (final byte b : frame) {
+      crc = Checksum.update(crc, b);
+    }
+    assertEquals(Checksum.RESIDUE, crc);
+    crc = Checksum.update(Checksum.INITIAL, frame, 0, 3);
+    crc = Checksum.update(crc, ByteBuffer.wrap(frame, 3, frame.length - 3));
+    assertEquals(Checksum.RESIDUE, crc);
+  }
+
+  @Test
+  void testByteBuffer() {
+    final ByteBuffer direct = ByteBuffer.allocateDirect(REQUEST_STATUS.length + 1);
+    direct.put((byte) 0x55).put(REQUEST_STATUS).position(1);
+    assertTrue(Checksum.isValid(direct));
+    direct.put(direct.limit() - 1, (byte) 0);
+    assertFalse(Checksum.isValid(direct));
+    Checksum.write(direct);
+    assertTrue(Checksum.isValid(direct));
+    assertEquals(1, direct.position());
+  }
+
 }
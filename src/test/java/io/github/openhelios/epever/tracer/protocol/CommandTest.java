@@ -1,8 +1,22 @@
 package io.github.openhelios.epever.tracer.protocol;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.BitValues;
+import io.github.openhelios.epever.tracer.protocol.response.Clock;
+
 class CommandTest {
 
   @Test
@@ -10,4 +24,93 @@ class CommandTest {
     Assertions.assertArrayEquals(ChecksumTest.REQUEST_STATUS, Command.batteryChargingDischargingStatus().get());
   }
 
+  @Test
+  void testMatches() {
+    final Command<?> command = Command.batteryChargingDischargingStatus();
+    assertTrue(command.matches(new byte[] { 0x01, 0x04, 0x06, 0, 0, 0, 0, 0, 0, 0, 0 }));
+    assertTrue(command.matches(new byte[] { 0x01, (byte) 0x84, 0x06, 0, 0 }));
+    assertFalse(command.matches(new byte[] { 0x01, 0x04, 0x02, 0, 0, 0, 0 }));
+    assertFalse(command.matches(new byte[] { 0x01, 0x03, 0x06, 0, 0, 0, 0, 0, 0, 0, 0 }));
+    assertFalse(command.matches(new byte[] { 0x02, 0x04, 0x06, 0, 0, 0, 0, 0, 0, 0, 0 }));
+  }
+
+  @Test
+  void testWithDeviceId() {
+    final Command<?> command = Command.batteryChargingDischargingStatus().withDeviceId(12);
+    assertEquals(12, command.getDeviceId());
+    assertEquals(12, command.get()[Index.DEVICE_ID.get()]);
+    assertNull(Checksum.check(command.get()));
+    assertTrue(command.matches(new byte[] { 0x0C, 0x04, 0x06, 0, 0, 0, 0, 0, 0, 0, 0 }));
+    assertFalse(command.matches(new byte[] { 0x01, 0x04, 0x06, 0, 0, 0, 0, 0, 0, 0, 0 }));
+    assertThrows(IllegalArgumentException.class, () -> command.withDeviceId(248));
+  }
+
+  @Test
+  void testParse() {
+    assertSame(Command.batterySystem(), Command.parse(Command.batterySystem().get()));
+    final Command<?> command = Command.batteryConfig().withDeviceId(12);
+    assertSame(command, Command.parse(command.get()));
+    final Command<?> read = Command.parse(Command.read(FunctionId.READ_INPUT_REGISTER, 0x3110, 2).get());
+    assertEquals(FunctionId.READ_INPUT_REGISTER, read.getFunctionId());
+    assertEquals(0x3110, read.getAddress());
+    final byte[] invalid = Command.batterySystem().get();
+    invalid[invalid.length - 1]++;
+    assertNull(Command.parse(invalid));
+    assertNull(Command.parse(new byte[] { 0x01 }));
+  }
+
+  @Test
+  void testExpectedResponseSize() {
+    assertEquals(11, Command.batteryChargingDischargingStatus().expectedResponseSize());
+    assertEquals(8, Command.loadOn(true).expectedResponseSize());
+    assertEquals(8, Command.setClock(new Clock()).expectedResponseSize());
+  }
+
+  @Test
+  void testDecode() {
+    final Command<BatterySystem> command = Command.batterySystem();
+    final ByteBuffer frame = ByteBuffer.wrap(new byte[] { 0, 0x01, 0x04, 0x02, 0x04, (byte) 0xB0, 0, 0 }, 1, 7);
+    assertEquals(12f, command.decode(frame).voltageInV());
+  }
+
+  @Test
+  void testReadBits() {
+    final Command<BitValues> command = Command.readBits(FunctionId.READ_COILS, 0x10, 70);
+    assertEquals(14, command.expectedResponseSize());
+    final byte[] frame = new byte[] { 0x01, 0x01, 0x09, 0x05, 0, 0, 0, 0, 0, 0, (byte) 0x80, (byte) 0xFF, 0, 0 };
+    final BitValues bits = command.decode(ByteBuffer.wrap(frame));
+    assertEquals(0x8000_0000_0000_0005L, bits.toLong());
+    assertTrue(bits.get(0x12));
+    assertFalse(bits.get(0x11));
+    assertTrue(bits.get(0x10 + 69));
+    assertEquals(9, bits.toBitSet().cardinality());
+    assertThrows(IllegalArgumentException.class, () -> bits.get(0x10 + 70));
+    assertThrows(IllegalArgumentException.class, () -> Command.readBits(FunctionId.READ_INPUT_REGISTER, 0, 1));
+  }
+
+  @Test
+  void testReadDefinedBits() {
+    final List<Command<BitValues>> coils = Command.coils();
+    assertEquals(2, coils.size());
+    assertEquals(Register.CHARGING_ON.address(), coils.get(0).getAddress());
+    assertEquals(4, coils.get(0).getCount());
+    assertEquals(Register.TEST_LOAD_MODE_ON.address(), coils.get(1).getAddress());
+    assertEquals(2, coils.get(1).getCount());
+    final List<Command<BitValues>> inputs = Command.discreteInputs();
+    assertEquals(2, inputs.size());
+    assertEquals(Register.OVER_INSIDE_TEMPERATURE.address(), inputs.get(0).getAddress());
+    assertEquals(Register.IS_NIGHT.address(), inputs.get(1).getAddress());
+    assertEquals(1, inputs.get(1).getCount());
+  }
+
+  @Test
+  void testInterned() {
+    assertSame(Command.batterySystem(), Command.batterySystem());
+    assertSame(Command.batterySystem().withDeviceId(5), Command.batterySystem().withDeviceId(5));
+    assertSame(Command.batterySystem(), Command.batterySystem().withDeviceId(5).withDeviceId(1));
+    assertTrue(Command.batterySystem().frame().isReadOnly());
+    Command.batterySystem().get()[0] = 9;
+    assertEquals(1, Command.batterySystem().getDeviceId());
+  }
+
 }
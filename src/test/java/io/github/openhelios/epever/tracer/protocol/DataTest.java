@@ -2,6 +2,8 @@ package io.github.openhelios.epever.tracer.protocol;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.nio.ByteBuffer;
+
 import org.junit.jupiter.api.Test;
 
 class DataTest {
@@ -12,4 +14,23 @@ class DataTest {
     assertEquals(3000, Data.uint16(data, 0));
   }
 
+  @Test
+  void testUint16ByteBuffer() {
+    final ByteBuffer data = ByteBuffer.wrap(new byte[] { 0, 0, 0xB, (byte) 0xB8, 0x01, 0, 0x02, 0 });
+    data.position(2);
+    assertEquals(3000, Data.uint16(data, 0));
+    assertEquals(0x02000100L, Data.uint32(data, 2));
+  }
+
+  @Test
+  void testInt16() {
+    final byte[] data = new byte[] { (byte) 0xFD, (byte) 0xDA, 0xB, (byte) 0xB8 };
+    assertEquals(-550, Data.int16(data, 0));
+    assertEquals(3000, Data.int16(data, 2));
+    final ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.position(2);
+    assertEquals(3000, Data.int16(buffer, 0));
+    assertEquals(-550, Data.int16(buffer.position(0), 0));
+  }
+
 }
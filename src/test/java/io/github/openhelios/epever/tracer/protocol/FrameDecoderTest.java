@@ -0,0 +1,90 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FrameDecoder}.
+ */
+class FrameDecoderTest {
+
+  /** Response for battery, charging and discharging status. */
+  private static final byte[] RESPONSE_STATUS = new byte[] { 0x01, 0x04, 0x06, 0x00, 0x00, 0x00, 0x01, 0x00, 0x01,
+      0x00, 0x00 };
+
+  /** Response for writing a coil. */
+  private static final byte[] RESPONSE_WRITE_COIL = new byte[] { 0x01, 0x05, 0x00, 0x02, (byte) 0xFF, 0x00, 0x00,
+      0x00 };
+
+  static {
+    Checksum.write(RESPONSE_STATUS);
+    Checksum.write(RESPONSE_WRITE_COIL);
+  }
+
+  private final List<byte[]> frames = new ArrayList<>();
+
+  private final FrameDecoder decoder = new FrameDecoder(
+      (buffer, offset, length) -> frames.add(Arrays.copyOfRange(buffer, offset, offset + length)));
+
+  private static byte[] concat(final byte[]... arrays) {
+    final byte[] result = new byte[Arrays.stream(arrays).mapToInt(a -> a.length).sum()];
+    int index = 0;
+    for (final byte[] array : arrays) {
+      System.arraycopy(array, 0, result, index, array.length);
+      index += array.length;
+    }
+    return result;
+  }
+
+  @Test
+  void testFragmented() {
+    for (final byte b : RESPONSE_STATUS) {
+      decoder.accept(new byte[] { b });
+    }
+    assertEquals(1, frames.size());
+    assertArrayEquals(RESPONSE_STATUS, frames.get(0));
+    assertEquals(0, decoder.getPendingByteCount());
+  }
+
+  @Test
+  void testCoalesced() {
+    final byte[] data = concat(RESPONSE_STATUS, RESPONSE_WRITE_COIL, RESPONSE_STATUS);
+    decoder.accept(data, 0, data.length - 3);
+    assertEquals(2, frames.size());
+    decoder.accept(data, data.length - 3, 3);
+    assertEquals(3, frames.size());
+    assertArrayEquals(RESPONSE_WRITE_COIL, frames.get(1));
+  }
+
+  @Test
+  void testGarbage() {
+    decoder.accept(concat(new byte[] { 0x00, (byte) 0xFF, 0x01, 0x04 }, RESPONSE_STATUS));
+    assertEquals(1, frames.size());
+    assertArrayEquals(RESPONSE_STATUS, frames.get(0));
+    assertEquals(4, decoder.getSkippedByteCount());
+  }
+
+  @Test
+  void testCorruptedChecksum() {
+    final byte[] corrupted = RESPONSE_STATUS.clone();
+    corrupted[corrupted.length - 1] ^= 0x55;
+    decoder.accept(concat(corrupted, RESPONSE_WRITE_COIL));
+    assertEquals(1, frames.size());
+    assertArrayEquals(RESPONSE_WRITE_COIL, frames.get(0));
+  }
+
+  @Test
+  void testManyFrames() {
+    for (int i = 0; i < 100; i++) {
+      decoder.accept(concat(RESPONSE_STATUS, RESPONSE_WRITE_COIL));
+    }
+    assertEquals(200, frames.size());
+  }
+
+}
@@ -0,0 +1,31 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class PollPlanTest {
+
+  @Test
+  void testFrames() {
+    final PollPlan plan = PollPlan.of(Command.batteryChargingDischargingStatus(), Command.batterySystem());
+    final ByteBuffer buffer = plan.getBuffer();
+    assertTrue(buffer.isReadOnly());
+    assertEquals(16, buffer.remaining());
+    assertEquals(ByteBuffer.wrap(ChecksumTest.REQUEST_STATUS), plan.frame(0));
+    assertEquals(Command.batterySystem().frame(), plan.frame(1));
+  }
+
+  @Test
+  void testWithDeviceId() {
+    final PollPlan plan = PollPlan.of(Command.batterySystem()).withDeviceId(3);
+    assertEquals(3, Data.uint8(plan.frame(0), Index.DEVICE_ID.get()));
+    assertTrue(Checksum.isValid(plan.frame(0)));
+    assertSame(Command.batterySystem().withDeviceId(3), plan.getCommands().get(0));
+  }
+
+}
@@ -0,0 +1,55 @@
+package io.github.openhelios.epever.tracer.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RegisterPlannerTest {
+
+  private static String describe(final Command<?> command) {
+    return command.getFunctionId() + " " + Integer.toHexString(command.getAddress()) + "+" + command.getCount();
+  }
+
+  @Test
+  void testMergeAdjacent() {
+    final RegisterPlan plan = new RegisterPlanner().plan(List.of(Register.LOAD_ACTUAL_POWER_HIGH,
+        Register.BATTERY_ACTUAL_TEMPERATURE, Register.ARRAY_ACTUAL_VOLTAGE, Register.CLOCK_HOUR_DAY, Register.LOAD_ON,
+        Register.CLOCK_MONTH_YEAR, Register.DEFAULT_LOAD_ON));
+    assertEquals(List.of("READ_COILS 2+2", "READ_INPUT_REGISTER 3100+1", "READ_INPUT_REGISTER 310e+3",
+        "READ_HOLDING_REGISTER 9014+2"), plan.getCommands().stream().map(RegisterPlannerTest::describe).toList());
+  }
+
+  @Test
+  void testGapToleranceAndLimit() {
+    final RegisterPlanner planner = new RegisterPlanner();
+    planner.setGapTolerance(0x20);
+    final RegisterPlan plan =
+        planner.plan(EnumSet.range(Register.ARRAY_RATED_VOLTAGE, Register.TOTAL_ARRAY_ENERGY_HIGH));
+    final List<String> expected = List.of("READ_INPUT_REGISTER 3000+15", "READ_INPUT_REGISTER 3100+30",
+        "READ_INPUT_REGISTER 3200+3", "READ_INPUT_REGISTER 3300+20");
+    assertEquals(expected, plan.getCommands().stream().map(RegisterPlannerTest::describe).toList());
+    // the gaps between the blocks are tolerated, but a read is limited to 125 registers
+    planner.setGapTolerance(0x100);
+    assertEquals(expected,
+        planner.plan(plan.getRegisters()).getCommands().stream().map(RegisterPlannerTest::describe).toList());
+    planner.setGapTolerance(0);
+    assertEquals(8, planner.plan(plan.getRegisters()).getCommands().size());
+  }
+
+  @Test
+  void testSplit() {
+    final RegisterPlan plan = new RegisterPlanner().plan(List.of(Register.LOAD_ON, Register.BATTERY_SYSTEM_VOLTAGE));
+    final byte[] coils = { 1, 1, 1, 0x01, 0, 0 };
+    final byte[] registers = { 1, 4, 2, 0x04, (byte) 0xB0, 0, 0 };
+    final Map<Register, Integer> values = plan.split(List.of( //
+        plan.getCommands().get(1).decode(ByteBuffer.wrap(registers)),
+        plan.getCommands().get(0).decode(ByteBuffer.wrap(coils))));
+    assertEquals(Map.of(Register.LOAD_ON, 1, Register.BATTERY_SYSTEM_VOLTAGE, 1200), values);
+  }
+
+}
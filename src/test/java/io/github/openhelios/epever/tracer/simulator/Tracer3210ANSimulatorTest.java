@@ -0,0 +1,252 @@
+package io.github.openhelios.epever.tracer.simulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.ChangeFilter;
+import io.github.openhelios.epever.tracer.Dispatcher;
+import io.github.openhelios.epever.tracer.RetryPolicy;
+import io.github.openhelios.epever.tracer.Tracer3210AN;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.Data;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.Index;
+import io.github.openhelios.epever.tracer.protocol.PollPlan;
+import io.github.openhelios.epever.tracer.protocol.Register;
+import io.github.openhelios.epever.tracer.protocol.RegisterPlan;
+import io.github.openhelios.epever.tracer.protocol.RegisterPlanner;
+import io.github.openhelios.epever.tracer.protocol.response.ActualArrayBattery;
+import io.github.openhelios.epever.tracer.protocol.response.BatteryConfig;
+import io.github.openhelios.epever.tracer.protocol.response.BatterySystem;
+import io.github.openhelios.epever.tracer.protocol.response.BitValues;
+import io.github.openhelios.epever.tracer.protocol.response.Clock;
+import io.github.openhelios.epever.tracer.protocol.response.Error;
+import io.github.openhelios.epever.tracer.protocol.response.ErrorCode;
+import io.github.openhelios.epever.tracer.protocol.response.ErrorResponseException;
+import io.github.openhelios.epever.tracer.protocol.response.RegisterValues;
+import io.github.openhelios.epever.tracer.protocol.response.Response;
+
+/**
+ * Tests for {@link Tracer3210AN} against {@link Tracer3210ANSimulator}.
+ */
+class Tracer3210ANSimulatorTest {
+
+  @Test
+  void testRead() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator())) {
+      final ActualArrayBattery actual = tracer.requestActualArrayBattery().get(1, TimeUnit.SECONDS);
+      assertEquals(18.5f, actual.array().voltageInV());
+      assertEquals(13.2f, actual.battery().voltageInV());
+      final BatteryConfig config = tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS);
+      assertEquals(200, config.capacityInAh());
+      assertEquals(14.6f, config.equalizationVoltageInV());
+    }
+  }
+
+  @Test
+  void testWriteAndRead() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator())) {
+      tracer.setOutputLoadOn(false).get(1, TimeUnit.SECONDS);
+      assertFalse(tracer.requestBatteryChargingDischargingStatus().get(1, TimeUnit.SECONDS).isOutputLoadOn());
+      tracer.setOutputLoadOn(true).get(1, TimeUnit.SECONDS);
+      assertTrue(tracer.requestBatteryChargingDischargingStatus().get(1, TimeUnit.SECONDS).isOutputLoadOn());
+      final Clock clock = new Clock(LocalDateTime.of(2024, 5, 6, 7, 8, 9));
+      tracer.setClock(clock).get(1, TimeUnit.SECONDS);
+      assertEquals(clock, tracer.requestClock().get(1, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void testFrameListener() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator())) {
+      final CompletableFuture<Integer> batteryVoltage = new CompletableFuture<>();
+      tracer.setFrameListener((command, frame) -> batteryVoltage.complete(Data.uint16(frame, Index.DATA.get() + 8)));
+      tracer.requestActualArrayBattery().get(1, TimeUnit.SECONDS);
+      assertEquals(1320, batteryVoltage.get(1, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void testPoll() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator())) {
+      final List<Response> responses = new CopyOnWriteArrayList<>();
+      final CountDownLatch latch = new CountDownLatch(2);
+      tracer.addListener((final Response response) -> {
+        responses.add(response);
+        latch.countDown();
+      });
+      tracer.poll(PollPlan.of(Command.batterySystem(), Command.clock())).get(1, TimeUnit.SECONDS);
+      assertTrue(latch.await(1, TimeUnit.SECONDS));
+      assertEquals(2, responses.size());
+      assertInstanceOf(BatterySystem.class, responses.get(0));
+      assertInstanceOf(Clock.class, responses.get(1));
+    }
+  }
+
+  @Test
+  void testReadRegisterPlan() throws Exception {
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator())) {
+      final RegisterPlan plan = new RegisterPlanner()
+          .plan(List.of(Register.BATTERY_ACTUAL_VOLTAGE, Register.BATTERY_ACTUAL_CURRENT, Register.IS_NIGHT,
+              Register.CHARGING_ON, Register.BATTERY_CAPACITY));
+      final Map<Register, Integer> values = tracer.read(plan).get(1, TimeUnit.SECONDS);
+      assertEquals(Map.of(Register.BATTERY_ACTUAL_VOLTAGE, 1320, Register.BATTERY_ACTUAL_CURRENT, 250,
+          Register.IS_NIGHT, 0, Register.CHARGING_ON, 1, Register.BATTERY_CAPACITY, 200), values);
+    }
+  }
+
+  @Test
+  void testDecodeRegisterPlan() throws Exception {
+    final RegisterMap registers = RegisterMap.createDefault();
+    registers.set(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_ACTUAL_TEMPERATURE, -550 & 0xFFFF);
+    registers.set(FunctionId.READ_INPUT_REGISTER, Register.REMOTE_BATTERY_ACTUAL_TEMPERATURE, -1250 & 0xFFFF);
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator(registers, 1))) {
+      final RegisterPlan plan = new RegisterPlanner().plan(List.of(Register.ARRAY_RATED_POWER_HIGH,
+          Register.BATTERY_ACTUAL_VOLTAGE, Register.BATTERY_ACTUAL_TEMPERATURE, Register.CHARGING_ON));
+      assertTrue(plan.getRegisters().contains(Register.ARRAY_RATED_POWER_LOW));
+      final List<RegisterValues> responses = new ArrayList<>();
+      for (final Command<RegisterValues> command : plan.getCommands()) {
+        responses.add(tracer.send(command).get(1, TimeUnit.SECONDS));
+      }
+      final long[] raw = new long[Register.COUNT];
+      plan.decode(responses, raw);
+      assertEquals(39000, raw[Register.ARRAY_RATED_POWER_LOW.ordinal()]);
+      assertEquals(39000, raw[Register.ARRAY_RATED_POWER_HIGH.ordinal()]);
+      assertEquals(-550, raw[Register.BATTERY_ACTUAL_TEMPERATURE.ordinal()]);
+      assertEquals(1, raw[Register.CHARGING_ON.ordinal()]);
+      final float[] values = new float[Register.COUNT];
+      plan.decode(responses, values);
+      assertEquals(390f, values[Register.ARRAY_RATED_POWER_LOW.ordinal()]);
+      assertEquals(13.2f, values[Register.BATTERY_ACTUAL_VOLTAGE.ordinal()]);
+      assertEquals(-5.5f, values[Register.BATTERY_ACTUAL_TEMPERATURE.ordinal()]);
+      assertEquals(-12.5f,
+          tracer.requestActualBatterySocRemoteTemperature().get(1, TimeUnit.SECONDS).remoteTemperatureInC());
+      assertEquals(-5.5f, tracer.requestActualLoadTemperature().get(1, TimeUnit.SECONDS).batteryTemperatureInC());
+    }
+  }
+
+  @Test
+  void testReadBits() throws Exception {
+    final RegisterMap registers = RegisterMap.createDefault();
+    registers.set(FunctionId.READ_DISCRETE_INPUTS, Register.IS_NIGHT, 1);
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator(registers, 1))) {
+      final BitValues coils = tracer.requestCoils().get(1, TimeUnit.SECONDS);
+      assertEquals(6, coils.size());
+      assertTrue(coils.get(Register.CHARGING_ON));
+      assertFalse(coils.get(Register.FORCE_LOAD_ON));
+      // the undefined coil is not read
+      assertFalse(coils.contains(0x04));
+      assertThrows(IllegalArgumentException.class, () -> coils.get(0x04));
+      final BitValues inputs = tracer.requestDiscreteInputs().get(1, TimeUnit.SECONDS);
+      assertEquals(2, inputs.size());
+      assertEquals(1L << 12, inputs.toLong());
+      assertTrue(inputs.get(Register.IS_NIGHT));
+      assertFalse(inputs.get(Register.OVER_INSIDE_TEMPERATURE));
+      assertFalse(inputs.contains(0x2001));
+      assertEquals("READ_DISCRETE_INPUTS 0x2000: 0-----------1", inputs.toString());
+    }
+  }
+
+  @Test
+  void testBusy() throws Exception {
+    final Tracer3210ANSimulator simulator = new Tracer3210ANSimulator();
+    simulator.setBusyRate(1);
+    try (final Tracer3210AN tracer = new Tracer3210AN(simulator)) {
+      final ExecutionException e = assertThrows(ExecutionException.class,
+          () -> tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS));
+      final ErrorResponseException cause = assertInstanceOf(ErrorResponseException.class, e.getCause());
+      assertEquals(ErrorCode.DEVICE_BUSY, cause.getError().code());
+    }
+  }
+
+  @Test
+  void testRetryBusy() throws Exception {
+    final Tracer3210ANSimulator simulator = new Tracer3210ANSimulator();
+    simulator.setBusyRate(1);
+    try (final Tracer3210AN tracer = new Tracer3210AN(simulator)) {
+      final RetryPolicy policy = new RetryPolicy();
+      policy.setMaxRetries(ErrorCode.DEVICE_BUSY, 2);
+      policy.setInitialBackoff(Duration.ofMillis(1));
+      tracer.setRetryPolicy(policy);
+      tracer.setDispatcher(Dispatcher.of(Runnable::run));
+      final List<Response> responses = new CopyOnWriteArrayList<>();
+      tracer.addListener(responses::add);
+      assertThrows(ExecutionException.class, () -> tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS));
+      assertEquals(3, simulator.getRequestCount());
+      simulator.setBusyRate(0);
+      tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS);
+      // only the last error response, which is not retried, is dispatched to the listeners
+      assertInstanceOf(Error.class, responses.get(0));
+      assertEquals(1, responses.stream().filter(Error.class::isInstance).count());
+      simulator.setSeed(1);
+      simulator.setBusyRate(0.5);
+      policy.setMaxRetries(ErrorCode.DEVICE_BUSY, 10);
+      for (int i = 0; i < 5; i++) {
+        assertEquals(200, tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS).capacityInAh());
+      }
+    }
+  }
+
+  @Test
+  void testChangeFilter() throws Exception {
+    final Tracer3210ANSimulator simulator = new Tracer3210ANSimulator();
+    try (final Tracer3210AN tracer = new Tracer3210AN(simulator)) {
+      tracer.setDispatcher(Dispatcher.of(Runnable::run));
+      final ChangeFilter filter = new ChangeFilter();
+      tracer.setChangeFilter(filter);
+      final List<Response> responses = new CopyOnWriteArrayList<>();
+      tracer.addFilteredListener(responses::add);
+      final List<Response> allResponses = new CopyOnWriteArrayList<>();
+      tracer.addListener(allResponses::add);
+      for (int i = 0; i < 3; i++) {
+        assertEquals(200, tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS).capacityInAh());
+      }
+      assertEquals(1, responses.size());
+      assertEquals(2, filter.getSuppressedCount());
+      simulator.getRegisters().set(FunctionId.READ_HOLDING_REGISTER, Register.BATTERY_CAPACITY, 100);
+      assertEquals(100, tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS).capacityInAh());
+      // the listeners are notified after the future is completed, but before the next response is received
+      tracer.requestBatteryConfig().get(1, TimeUnit.SECONDS);
+      assertEquals(2, responses.size());
+      assertEquals(3, filter.getSuppressedCount());
+      // the listeners, which are not filtered, get each response
+      assertTrue(5 <= allResponses.size());
+    }
+  }
+
+  @Test
+  void testLoadWithFragmentationAndJitter() throws Exception {
+    final Tracer3210ANSimulator simulator = new Tracer3210ANSimulator();
+    simulator.setSeed(42);
+    simulator.setMaxFragmentSize(3);
+    simulator.setJitter(Duration.ofNanos(10000));
+    try (final Tracer3210AN tracer = new Tracer3210AN(simulator)) {
+      tracer.setTurnaroundDelay(Duration.ZERO);
+      final List<CompletableFuture<ActualArrayBattery>> futures = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+        futures.add(tracer.requestActualArrayBattery());
+      }
+      for (final CompletableFuture<ActualArrayBattery> future : futures) {
+        assertEquals(13.2f, future.get(10, TimeUnit.SECONDS).battery().voltageInV());
+      }
+      assertEquals(2000, simulator.getRequestCount());
+    }
+  }
+
+}
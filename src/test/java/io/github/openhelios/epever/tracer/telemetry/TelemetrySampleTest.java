@@ -0,0 +1,70 @@
+package io.github.openhelios.epever.tracer.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.Tracer3210AN;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.FunctionId;
+import io.github.openhelios.epever.tracer.protocol.PollPlan;
+import io.github.openhelios.epever.tracer.protocol.Register;
+import io.github.openhelios.epever.tracer.simulator.RegisterMap;
+import io.github.openhelios.epever.tracer.simulator.Tracer3210ANSimulator;
+
+class TelemetrySampleTest {
+
+  @Test
+  void testFillFromFrames() throws Exception {
+    final RegisterMap registers = RegisterMap.createDefault();
+    registers.set(FunctionId.READ_INPUT_REGISTER, Register.BATTERY_ACTUAL_TEMPERATURE, -550 & 0xFFFF);
+    final TelemetrySample sample = new TelemetrySample();
+    final TelemetryBatch batch = new TelemetryBatch(2);
+    try (final Tracer3210AN tracer = new Tracer3210AN(new Tracer3210ANSimulator(registers, 1))) {
+      tracer.setFrameListener(sample);
+      final List<Command<?>> commands = new ArrayList<>(List.of(Command.actualArrayBattery(),
+          Command.actualLoadTemperature(), Command.ratedArrayBatteryChargingMode()));
+      commands.addAll(Command.coils());
+      final PollPlan plan = PollPlan.of(commands);
+      tracer.poll(plan).get(1, TimeUnit.SECONDS);
+      assertEquals(13.2f, sample.get(Register.BATTERY_ACTUAL_VOLTAGE));
+      assertEquals(1320, sample.getRaw(Register.BATTERY_ACTUAL_VOLTAGE));
+      assertEquals(-5.5f, sample.get(Register.BATTERY_ACTUAL_TEMPERATURE));
+      assertEquals(390f, sample.get(Register.ARRAY_RATED_POWER_LOW));
+      assertEquals(390f, sample.get(Register.ARRAY_RATED_POWER_HIGH));
+      assertEquals(1f, sample.get(Register.CHARGING_ON));
+      assertFalse(sample.isPresent(Register.BATTERY_CAPACITY));
+      assertEquals(Float.NaN, sample.get(Register.BATTERY_CAPACITY));
+      assertTrue(sample.getTimestampNanos() > 0);
+      batch.add(sample);
+      sample.clear();
+      tracer.poll(PollPlan.of(Command.batteryConfig())).get(1, TimeUnit.SECONDS);
+      batch.add(sample);
+    }
+    assertTrue(batch.isFull());
+    assertThrows(IllegalStateException.class, () -> batch.add(sample));
+    assertEquals(13.2f, batch.get(0, Register.BATTERY_ACTUAL_VOLTAGE));
+    assertEquals(Float.NaN, batch.get(1, Register.BATTERY_ACTUAL_VOLTAGE));
+    assertEquals(200f, batch.column(Register.BATTERY_CAPACITY)[1]);
+    assertTrue(batch.getTimestampNanos(0) <= batch.getTimestampNanos(1));
+    batch.clear();
+    assertThrows(IndexOutOfBoundsException.class, () -> batch.get(0, Register.BATTERY_CAPACITY));
+  }
+
+  @Test
+  void testNowNanos() {
+    final long before = System.currentTimeMillis();
+    final long now = TelemetrySample.nowNanos();
+    final long after = System.currentTimeMillis();
+    // the wall clock is read for each call instead of being derived from the monotonic clock
+    assertTrue(before <= now / 1_000_000L && now / 1_000_000L <= after);
+  }
+
+}
@@ -0,0 +1,124 @@
+package io.github.openhelios.epever.tracer.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.openhelios.epever.tracer.Tracer3210AN;
+import io.github.openhelios.epever.tracer.protocol.Checksum;
+import io.github.openhelios.epever.tracer.protocol.Command;
+import io.github.openhelios.epever.tracer.protocol.response.BatteryChargingDischargingStatus;
+
+/**
+ * Tests for the TCP transports against a local loopback server.
+ */
+class TcpTransportTest {
+
+  /** Response data for battery, charging and discharging status with output load on. */
+  private static final byte[] STATUS_DATA = new byte[] { 0x00, 0x00, 0x00, 0x00, 0x00, 0x01 };
+
+  private interface Responder {
+    void respond(InputStream in, OutputStream out) throws IOException;
+  }
+
+  private static InetSocketAddress serve(final ServerSocket server, final Responder responder) {
+    final Thread thread = new Thread(() -> {
+      try (Socket socket = server.accept()) {
+        responder.respond(socket.getInputStream(), socket.getOutputStream());
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+  }
+
+  private static byte[] mbap(final byte[] request, final int transactionIdOffset) {
+    final byte[] response = new byte[9 + STATUS_DATA.length];
+    final int transactionId = ((request[0] & 0xFF) << 8 | request[1] & 0xFF) + transactionIdOffset;
+    response[0] = (byte) (transactionId >> 8);
+    response[1] = (byte) transactionId;
+    response[5] = (byte) (3 + STATUS_DATA.length);
+    response[6] = request[6];
+    response[7] = request[7];
+    response[8] = (byte) STATUS_DATA.length;
+    System.arraycopy(STATUS_DATA, 0, response, 9, STATUS_DATA.length);
+    return response;
+  }
+
+  @Test
+  void testModbusTcp() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      final byte[] request = new byte[12];
+      final InetSocketAddress address = serve(server, (in, out) -> {
+        in.readNBytes(request, 0, request.length);
+        out.write(mbap(request, 1)); // outdated transaction
+        out.write(mbap(request, 0));
+      });
+      try (Tracer3210AN tracer = new Tracer3210AN(new ModbusTcpTransport(address))) {
+        final BatteryChargingDischargingStatus status = tracer.requestBatteryChargingDischargingStatus().get(5,
+            TimeUnit.SECONDS);
+        assertTrue(status.isOutputLoadOn());
+        final byte[] rtu = Command.batteryChargingDischargingStatus().get();
+        final byte[] pdu = new byte[rtu.length - 2];
+        System.arraycopy(request, 6, pdu, 0, pdu.length);
+        assertArrayEquals(Arrays.copyOf(rtu, rtu.length - 2), pdu);
+      }
+    }
+  }
+
+  @Test
+  void testModbusTcpLargeChunk() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      final InetSocketAddress address = serve(server, (in, out) -> {
+        final byte[] request = in.readNBytes(12);
+        final byte[] outdated = mbap(request, 1);
+        final byte[] valid = mbap(request, 0);
+        // far more than the receive buffer of two frames in one chunk
+        final byte[] chunk = new byte[100 * outdated.length + valid.length];
+        for (int i = 0; i < 100; i++) {
+          System.arraycopy(outdated, 0, chunk, i * outdated.length, outdated.length);
+        }
+        System.arraycopy(valid, 0, chunk, 100 * outdated.length, valid.length);
+        out.write(chunk);
+      });
+      try (Tracer3210AN tracer = new Tracer3210AN(new ModbusTcpTransport(address))) {
+        assertTrue(tracer.requestBatteryChargingDischargingStatus().get(5, TimeUnit.SECONDS).isOutputLoadOn());
+      }
+    }
+  }
+
+  @Test
+  void testRtuOverTcp() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      final InetSocketAddress address = serve(server, (in, out) -> {
+        in.readNBytes(8);
+        final byte[] response = new byte[5 + STATUS_DATA.length];
+        response[0] = 0x01;
+        response[1] = 0x04;
+        response[2] = (byte) STATUS_DATA.length;
+        System.arraycopy(STATUS_DATA, 0, response, 3, STATUS_DATA.length);
+        Checksum.write(response);
+        out.write(response, 0, 4); // fragmented
+        out.flush();
+        out.write(response, 4, response.length - 4);
+      });
+      try (Tracer3210AN tracer = new Tracer3210AN(new RtuOverTcpTransport(address))) {
+        assertTrue(tracer.requestBatteryChargingDischargingStatus().get(5, TimeUnit.SECONDS).isOutputLoadOn());
+      }
+    }
+  }
+
+}